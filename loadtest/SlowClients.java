@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Slow-client load test: many authenticated clients trickle a POST /api/wallets/me body at one
+ * byte per second, each holding a request thread while the controller reads it, and a probe
+ * measures how long GET /api/wallets/{id} of a wallet it creates first takes meanwhile. Run
+ * against a started application, once with platform and once with virtual threads (see run.sh):
+ * <pre>
+ * java loadtest/SlowClients.java [baseUrl] [clients] [seconds]
+ * </pre>
+ * Defaults are http://localhost:8080, 5000 clients and 40 seconds, signed in as the customer the
+ * application creates on startup. The clients use one thread and non-blocking
+ * sockets, so the harness itself needs no thread per client; raise the open file limit
+ * ({@code ulimit -n}) above the client count.
+ */
+public class SlowClients {
+
+    private static final String USERNAME = "12345678901";
+    private static final String PASSWORD = "password";
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(20);
+    private static final Duration PROBE_INTERVAL = Duration.ofMillis(500);
+
+    public static void main(String[] args) throws Exception {
+        URI baseUrl = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        String authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+
+        byte[] body = ("{\"walletName\":\"Slow\",\"currency\":\"TRY\",\"activeForShopping\":true,"
+                + "\"activeForWithdraw\":true}").getBytes(StandardCharsets.UTF_8);
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(PROBE_TIMEOUT).build();
+        HttpResponse<String> created = http.send(HttpRequest.newBuilder(baseUrl.resolve("/api/wallets/me"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher id = Pattern.compile("\"id\":(\\d+)").matcher(created.body());
+        if (created.statusCode() != 201 || !id.find()) {
+            throw new IllegalStateException("Could not create the probe wallet: " + created.statusCode() + " " + created.body());
+        }
+        long walletId = Long.parseLong(id.group(1));
+        HttpRequest probe = HttpRequest.newBuilder(baseUrl.resolve("/api/wallets/" + walletId))
+                .header("Authorization", authorization)
+                .timeout(PROBE_TIMEOUT)
+                .build();
+
+        System.out.println("Idle probe: " + summary(probeFor(http, probe, Duration.ofSeconds(5))));
+
+        byte[] head = ("POST /api/wallets/me HTTP/1.1\r\n"
+                + "Host: " + baseUrl.getHost() + "\r\n"
+                + "Authorization: " + authorization + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + (seconds + body.length) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        InetSocketAddress address = new InetSocketAddress(baseUrl.getHost(), baseUrl.getPort());
+        List<SocketChannel> channels = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            try {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.configureBlocking(false);
+                channel.write(ByteBuffer.wrap(head));
+                channels.add(channel);
+            } catch (IOException e) {
+                System.out.println("Connected " + channels.size() + " of " + clients + " clients: " + e.getMessage());
+                break;
+            }
+        }
+        System.out.println("Connected " + channels.size() + " slow clients");
+
+        Thread trickle = new Thread(() -> trickle(channels, seconds, body), "trickle");
+        trickle.start();
+        // Give the server time to hand the connections to request threads
+        Thread.sleep(2000);
+        List<Long> loaded = probeFor(http, probe, Duration.ofSeconds(seconds - 4));
+        System.out.println("Probe under " + channels.size() + " slow clients: " + summary(loaded));
+
+        trickle.join();
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+    }
+
+    /**
+     * One byte per client per second of leading whitespace, which JSON allows, then the body.
+     */
+    private static void trickle(List<SocketChannel> channels, int seconds, byte[] body) {
+        ByteBuffer space = ByteBuffer.wrap(new byte[]{' '});
+        try {
+            for (int second = 0; second < seconds && !Thread.currentThread().isInterrupted(); second++) {
+                for (SocketChannel channel : channels) {
+                    space.rewind();
+                    writeQuietly(channel, space);
+                }
+                Thread.sleep(1000);
+            }
+            for (SocketChannel channel : channels) {
+                writeQuietly(channel, ByteBuffer.wrap(body));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeQuietly(SocketChannel channel, ByteBuffer buffer) {
+        try {
+            channel.write(buffer);
+        } catch (IOException e) {
+            // Closed by the server; the remaining clients keep going
+        }
+    }
+
+    /**
+     * Probe latencies in milliseconds, -1 for a probe that timed out or failed. No probe starts
+     * after the duration, but the last one may take up to the probe timeout.
+     */
+    private static List<Long> probeFor(HttpClient http, HttpRequest probe, Duration duration) throws InterruptedException {
+        List<Long> latencies = new ArrayList<>();
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = http.send(probe, HttpResponse.BodyHandlers.discarding());
+                latencies.add(response.statusCode() == 200 ? (System.nanoTime() - start) / 1_000_000 : -1L);
+            } catch (IOException e) {
+                latencies.add(-1L);
+            }
+            Thread.sleep(PROBE_INTERVAL.toMillis());
+        }
+        return latencies;
+    }
+
+    private static String summary(List<Long> latencies) {
+        List<Long> answered = new ArrayList<>();
+        for (long latency : latencies) {
+            if (latency >= 0) {
+                answered.add(latency);
+            }
+        }
+        int failed = latencies.size() - answered.size();
+        if (answered.isEmpty()) {
+            return "no answers, " + failed + " failed";
+        }
+        Collections.sort(answered);
+        return String.format("%d answered, %d failed, p50 %d ms, p95 %d ms, max %d ms", answered.size(), failed,
+                percentile(answered, 0.50), percentile(answered, 0.95), answered.get(answered.size() - 1));
+    }
+
+    private static long percentile(List<Long> sorted, double quantile) {
+        return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(quantile * sorted.size()) - 1));
+    }
+}
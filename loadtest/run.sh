@@ -0,0 +1,38 @@
+#!/bin/bash
+# Platform against virtual threads under slow clients (see SlowClients.java).
+# Needs Java 21 or later for the virtual run; on Java 17 the application ignores
+# spring.threads.virtual.enabled and both runs use platform threads.
+#
+#   loadtest/run.sh [clients] [seconds]
+
+CLIENTS=${1:-5000}
+SECONDS_PER_RUN=${2:-40}
+PORT=${WALLET_LOADTEST_PORT:-18080}
+cd "$(dirname "$0")/.." || exit 1
+
+echo "📦 Building the application..."
+mvn -q clean package -DskipTests || exit 1
+JAR=$(ls target/digital-wallet-*.jar | grep -v original | head -1)
+
+ulimit -n $((CLIENTS * 2 + 1024)) 2>/dev/null || echo "⚠️  Could not raise the open file limit, some clients may not connect"
+
+for VIRTUAL in false true; do
+    echo ""
+    echo "🚀 spring.threads.virtual.enabled=$VIRTUAL"
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$VIRTUAL" \
+        --logging.level.root=WARN > "target/loadtest-virtual-$VIRTUAL.log" 2>&1 &
+    APP=$!
+    # Any answer will do: health needs a signed-in user
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health")" != "000" ]; do
+        if ! kill -0 $APP 2>/dev/null; then
+            echo "❌ Application did not start, see target/loadtest-virtual-$VIRTUAL.log"
+            exit 1
+        fi
+        sleep 1
+    done
+
+    java loadtest/SlowClients.java "http://localhost:$PORT" "$CLIENTS" "$SECONDS_PER_RUN"
+
+    kill $APP
+    wait $APP 2>/dev/null
+done
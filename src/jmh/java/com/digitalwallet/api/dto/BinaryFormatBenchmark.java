@@ -0,0 +1,130 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A list response of {@link #ITEMS} transactions encoded and decoded as JSON, CBOR and Smile,
+ * in the full and the compact view, with mappers configured as {@code JacksonConfig} builds
+ * the message converters. The payload size of each combination is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    static final int ITEMS = 1000;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"full", "compact"})
+    public String view;
+
+    private ObjectMapper objectMapper;
+    private List<?> body;
+    private JavaType bodyType;
+    private byte[] encoded;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(512 * 1024);
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        // As Spring Boot configures it
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        List<Transaction> transactions = transactions();
+        if ("compact".equals(view)) {
+            body = transactions.stream().map(CompactTransactionDto::fromEntity).toList();
+            bodyType = objectMapper.getTypeFactory().constructCollectionType(List.class, CompactTransactionDto.class);
+        } else {
+            body = transactions.stream().map(TransactionDto::fromEntity).toList();
+            bodyType = objectMapper.getTypeFactory().constructCollectionType(List.class, TransactionDto.class);
+        }
+        encoded = objectMapper.writeValueAsBytes(body);
+        System.out.printf("%n%s %s: %,d bytes%n", view, format, encoded.length);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, body);
+        return out.size();
+    }
+
+    @Benchmark
+    public List<?> decode() throws IOException {
+        return objectMapper.readValue(encoded, bodyType);
+    }
+
+    private static List<Transaction> transactions() {
+        List<Transaction> transactions = new ArrayList<>(ITEMS);
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123456000);
+        for (int i = 0; i < ITEMS; i++) {
+            Customer customer = new Customer();
+            customer.setId((long) i % 10);
+            customer.setName("Customer");
+            customer.setSurname("Number " + i % 10);
+            customer.setTckn(String.valueOf(10000000000L + i % 10));
+
+            Wallet wallet = new Wallet();
+            wallet.setId((long) i % 50);
+            wallet.setCustomer(customer);
+            wallet.setWalletName("Wallet " + i % 50);
+            wallet.setCurrency(Wallet.Currency.TRY);
+            wallet.setActiveForShopping(true);
+            wallet.setActiveForWithdraw(true);
+            wallet.setBalance(new BigDecimal("12500.75"));
+            wallet.setUsableBalance(new BigDecimal("11000.00"));
+
+            Transaction transaction = new Transaction();
+            transaction.setId(1000L + i);
+            transaction.setWallet(wallet);
+            transaction.setAmount(new BigDecimal("250.00"));
+            transaction.setType(i % 3 == 0 ? Transaction.TransactionType.WITHDRAW : Transaction.TransactionType.DEPOSIT);
+            transaction.setOppositePartyType(Transaction.OppositePartyType.IBAN);
+            transaction.setOppositeParty("TR330006100519786457841326");
+            transaction.setStatus(Transaction.TransactionStatus.PENDING);
+            transaction.setCreatedAt(createdAt.plusSeconds(i));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,128 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * List responses written through DTOs ({@code fromEntity}, then reflective Jackson) against
+ * {@link EntityListBody} writing the entities directly. Scores are per item: run with
+ * {@code -prof gc} (the profile's default) and read {@code gc.alloc.rate.norm} as bytes
+ * allocated per item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(ListSerializationBenchmark.ITEMS)
+public class ListSerializationBenchmark {
+
+    static final int ITEMS = 100;
+
+    private ObjectMapper objectMapper;
+    private List<Transaction> transactions;
+    private List<Wallet> wallets;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        // As Spring Boot configures it for the message converters
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+
+        transactions = new ArrayList<>(ITEMS);
+        wallets = new ArrayList<>(ITEMS);
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123456000);
+        for (int i = 0; i < ITEMS; i++) {
+            Customer customer = new Customer();
+            customer.setId((long) i % 10);
+            customer.setName("Customer");
+            customer.setSurname("Number " + i % 10);
+            customer.setTckn(String.valueOf(10000000000L + i % 10));
+
+            Wallet wallet = new Wallet();
+            wallet.setId((long) i);
+            wallet.setCustomer(customer);
+            wallet.setWalletName("Wallet " + i);
+            wallet.setCurrency(Wallet.Currency.TRY);
+            wallet.setActiveForShopping(true);
+            wallet.setActiveForWithdraw(true);
+            wallet.setBalance(new BigDecimal("12500.75"));
+            wallet.setUsableBalance(new BigDecimal("11000.00"));
+            wallets.add(wallet);
+
+            Transaction transaction = new Transaction();
+            transaction.setId(1000L + i);
+            transaction.setWallet(wallet);
+            transaction.setAmount(new BigDecimal("250.00"));
+            transaction.setType(Transaction.TransactionType.DEPOSIT);
+            transaction.setOppositePartyType(Transaction.OppositePartyType.IBAN);
+            transaction.setOppositeParty("TR330006100519786457841326");
+            transaction.setStatus(Transaction.TransactionStatus.PENDING);
+            transaction.setCreatedAt(createdAt.plusSeconds(i));
+            transactions.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public int transactionsThroughDtos() throws IOException {
+        return write(transactions.stream().map(TransactionDto::fromEntity).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public int transactionsDirect() throws IOException {
+        return write(EntityListBody.transactions(transactions));
+    }
+
+    @Benchmark
+    public int compactTransactionsThroughDtos() throws IOException {
+        return write(transactions.stream().map(CompactTransactionDto::fromEntity).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public int compactTransactionsDirect() throws IOException {
+        return write(EntityListBody.transactions(transactions).withRepresentation(true, null));
+    }
+
+    @Benchmark
+    public int walletsThroughDtos() throws IOException {
+        return write(wallets.stream().map(WalletDto::fromEntity).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public int walletsDirect() throws IOException {
+        return write(EntityListBody.wallets(wallets));
+    }
+
+    private int write(Object body) throws IOException {
+        out.reset();
+        objectMapper.writeValue(out, body);
+        return out.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.digitalwallet.api.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A rejected withdrawal: an {@link IllegalArgumentException} with a concatenated message, as the
+ * services threw before, against the stackless {@link InsufficientBalanceException} whose message
+ * is built once for the error body. Thrown {@code depth} frames below the catch, as from under
+ * the controller, proxies and filters of a real request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+
+    @Param({"10", "100"})
+    private int depth;
+
+    private final BigDecimal available = new BigDecimal("100.00");
+    private final BigDecimal required = new BigDecimal("2500.00");
+
+    @Benchmark
+    public String illegalArgumentException() {
+        try {
+            return rejectWithIllegalArgument(depth);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Benchmark
+    public String domainException() {
+        try {
+            return rejectWithDomainException(depth);
+        } catch (DomainException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String rejectWithIllegalArgument(int frames) {
+        if (frames > 0) {
+            return rejectWithIllegalArgument(frames - 1);
+        }
+        throw new IllegalArgumentException("Insufficient balance. Available: " + available + ", Required: " + required);
+    }
+
+    private String rejectWithDomainException(int frames) {
+        if (frames > 0) {
+            return rejectWithDomainException(frames - 1);
+        }
+        throw new InsufficientBalanceException(available, required);
+    }
+}
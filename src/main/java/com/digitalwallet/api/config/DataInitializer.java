@@ -7,6 +7,7 @@ import com.digitalwallet.api.repository.EmployeeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,6 +17,7 @@ public class DataInitializer implements CommandLineRunner {
 
     private final CustomerRepository customerRepository;
     private final EmployeeRepository employeeRepository;
+    private final PasswordEncoder passwordEncoder;
 
     @Override
     public void run(String... args) throws Exception {
@@ -28,7 +30,7 @@ public class DataInitializer implements CommandLineRunner {
                     .name("John")
                     .surname("Doe")
                     .tckn("12345678901")
-                    .password("password")
+                    .password(passwordEncoder.encode("password"))
                     .build();
             customerRepository.save(customer);
             
@@ -37,7 +39,7 @@ public class DataInitializer implements CommandLineRunner {
                     .name("Jane")
                     .surname("Smith")
                     .employeeId("EMP001")
-                    .password("password")
+                    .password(passwordEncoder.encode("password"))
                     .role(Employee.EmployeeRole.ADMIN)
                     .build();
             employeeRepository.save(employee);
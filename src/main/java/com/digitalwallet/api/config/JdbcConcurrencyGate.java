@@ -0,0 +1,135 @@
+package com.digitalwallet.api.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many connections are handed out at once, normally to the pool's size. Callers
+ * beyond that wait on a fair semaphore, in arrival order, instead of all contending inside the
+ * pool; with thousands of virtual request threads that is where they queue. A caller that
+ * waits longer than the timeout gets the same {@link SQLTransientConnectionException} the pool
+ * would throw. The permit is given back when the connection is closed.
+ */
+public class JdbcConcurrencyGate extends DelegatingDataSource implements MeterBinder {
+
+    private final Semaphore permits;
+    private final int permitCount;
+    private final long timeoutNanos;
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public JdbcConcurrencyGate(DataSource targetDataSource, int permits, Duration timeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(permits, true);
+        this.permitCount = permits;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return gated(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return gated(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getPermits() {
+        return permitCount;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("wallet.jdbc.gate.active", this, gate -> gate.permitCount - gate.permits.availablePermits())
+                .description("Connections handed out through the JDBC gate")
+                .register(registry);
+        Gauge.builder("wallet.jdbc.gate.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a JDBC gate permit")
+                .register(registry);
+        FunctionTimer.builder("wallet.jdbc.gate.wait", this,
+                        gate -> gate.acquired.sum(), gate -> gate.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for a JDBC gate permit")
+                .register(registry);
+        FunctionCounter.builder("wallet.jdbc.gate.timeouts", timeouts, LongAdder::sum)
+                .description("Connection requests that gave up waiting for a permit")
+                .register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean granted;
+        try {
+            granted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+        if (!granted) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("No database connection available within "
+                    + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms (" + permitCount + " in use, "
+                    + permits.getQueueLength() + " waiting)");
+        }
+        acquired.increment();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    private Connection gated(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            try {
+                                connection.close();
+                            } finally {
+                                // Closing twice must not give back two permits
+                                if (released.compareAndSet(false, true)) {
+                                    permits.release();
+                                }
+                            }
+                            return null;
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getTargetException();
+                            }
+                    }
+                });
+    }
+}
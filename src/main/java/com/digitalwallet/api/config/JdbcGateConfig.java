@@ -0,0 +1,79 @@
+package com.digitalwallet.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Configuration
+@Slf4j
+public class JdbcGateConfig {
+
+    /**
+     * Put the connection pool behind a {@link JdbcConcurrencyGate}. On by default in virtual
+     * thread mode, where request threads are no longer bounded by Tomcat's pool.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyGatePostProcessor(Environment environment) {
+        return new GatePostProcessor(environment);
+    }
+
+    @Bean
+    public MeterBinder jdbcConcurrencyGateMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream().forEach(dataSource -> {
+            try {
+                if (dataSource.isWrapperFor(JdbcConcurrencyGate.class)) {
+                    dataSource.unwrap(JdbcConcurrencyGate.class).bindTo(registry);
+                }
+            } catch (SQLException e) {
+                log.warn("Could not bind JDBC gate metrics: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Ordered so it wraps the pool itself, before the SQL timing proxy wraps the result.
+     */
+    private static final class GatePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        private GatePostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource pool) || !isEnabled()) {
+                return bean;
+            }
+            int permits = environment.getProperty("wallet.jdbc.gate.permits", Integer.class, 0);
+            if (permits <= 0) {
+                permits = pool.getMaximumPoolSize();
+            }
+            Duration timeout = environment.getProperty("wallet.jdbc.gate.timeout", Duration.class, Duration.ofSeconds(30));
+            log.info("Limiting concurrent JDBC connections of {} to {}", beanName, permits);
+            return new JdbcConcurrencyGate(pool, permits, timeout);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        private boolean isEnabled() {
+            return environment.getProperty("wallet.jdbc.gate.enabled", Boolean.class,
+                    Threading.VIRTUAL.isActive(environment));
+        }
+    }
+}
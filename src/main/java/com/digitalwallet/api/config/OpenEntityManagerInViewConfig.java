@@ -0,0 +1,33 @@
+package com.digitalwallet.api.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view for every request except event streams (spring.jpa.open-in-view is off so
+ * Spring Boot does not register its own for all paths). A stream request stays open for as long
+ * as the client is connected and would hold its JDBC connection all that time; streams read
+ * their snapshot in a service transaction instead.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    static final String[] EVENT_STREAM_PATHS = {
+            "/api/transactions/pending/stream",
+            "/api/wallets/me/stream"
+    };
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns(EVENT_STREAM_PATHS);
+    }
+}
@@ -1,15 +1,27 @@
 package com.digitalwallet.api.config;
 
 import com.digitalwallet.api.security.CustomAuthenticationProvider;
+import com.digitalwallet.api.security.LoginThrottledException;
+import com.digitalwallet.api.security.PasswordVerificationRejectedException;
+import com.digitalwallet.api.security.TokenAuthenticationFilter;
+import com.digitalwallet.api.security.TokenService;
+import com.digitalwallet.api.security.WalletPrincipal;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.io.IOException;
 
 @Configuration
 @EnableWebSecurity
@@ -18,43 +30,72 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     private final CustomAuthenticationProvider customAuthenticationProvider;
+    private final TokenService tokenService;
 
+    /**
+     * With wallet.auth.stateless=true no HttpSession is created and clients authenticate every
+     * request with the bearer token returned by /api/auth/login. Bearer tokens are accepted in both modes.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           @Value("${wallet.auth.stateless:false}") boolean stateless) throws Exception {
+        if (stateless) {
+            http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        }
 
-    @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
                 // Public endpoints
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                // Customer-specific endpoints, ahead of the broader matchers they fall under
+                .requestMatchers("/api/customers/me/**").hasRole("CUSTOMER")
+                .requestMatchers("/api/wallets/me/**").hasRole("CUSTOMER")
+                .requestMatchers("/api/transactions/me/**").hasRole("CUSTOMER")
                 // Customer management - EMPLOYEE and ADMIN can manage customers
                 .requestMatchers("/api/customers/**").hasAnyRole("EMPLOYEE", "ADMIN")
                 // Employee management - only ADMIN can manage employees
                 .requestMatchers("/api/employees/**").hasRole("ADMIN")
-                // Customer-specific endpoints
-                .requestMatchers("/api/customers/me/**").hasRole("CUSTOMER")
-                .requestMatchers("/api/wallets/me/**").hasRole("CUSTOMER")
-                .requestMatchers("/api/transactions/me/**").hasRole("CUSTOMER")
                 // Wallet endpoints - allow CUSTOMER, EMPLOYEE, and ADMIN roles
                 .requestMatchers("/api/wallets/**").hasAnyRole("CUSTOMER", "EMPLOYEE", "ADMIN")
                 // Transaction endpoints - allow CUSTOMER, EMPLOYEE, and ADMIN roles
                 .requestMatchers("/api/transactions/**").hasAnyRole("CUSTOMER", "EMPLOYEE", "ADMIN")
+                // Metrics, slowest operations, contended wallets and transaction flow - only EMPLOYEE and ADMIN
+                .requestMatchers("/actuator/metrics", "/actuator/metrics/**", "/actuator/prometheus",
+                        "/actuator/slowoperations", "/actuator/contendedwallets", "/actuator/transactionflow")
+                    .hasAnyRole("EMPLOYEE", "ADMIN")
+                // Flight recordings and request traces - only ADMIN
+                .requestMatchers("/actuator/jfr", "/actuator/jfr/**", "/actuator/traces", "/actuator/traces/**").hasRole("ADMIN")
                 // Allow all other requests for now
                 .anyRequest().authenticated()
             )
-            .authenticationProvider(customAuthenticationProvider)
+            // Own manager without a parent: otherwise a failed attempt is retried by the global
+            // manager, running the provider (throttle, lookup, BCrypt) twice
+            .authenticationManager(new ProviderManager(customAuthenticationProvider))
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), UsernamePasswordAuthenticationFilter.class)
+            // HTTP Basic for scripted clients; lookups and verified credentials are cached
+            .httpBasic(basic -> basic
+                .authenticationEntryPoint((request, response, exception) -> {
+                    if (writeLoginRejection(response, exception)) {
+                        return;
+                    }
+                    response.setHeader("WWW-Authenticate", "Basic realm=\"DigitalWallet\"");
+                    response.sendError(HttpServletResponse.SC_UNAUTHORIZED, exception.getMessage());
+                })
+            )
             .formLogin(form -> form
                 .loginProcessingUrl("/api/auth/login")
                 .successHandler((request, response, authentication) -> {
+                    TokenService.IssuedToken token = tokenService.issue((WalletPrincipal) authentication.getPrincipal());
                     response.setContentType("application/json");
-                    response.getWriter().write("{\"message\":\"Login successful\",\"user\":\"" + authentication.getName() + "\"}");
+                    response.getWriter().write("{\"message\":\"Login successful\",\"user\":\"" + authentication.getName()
+                            + "\",\"token\":\"" + token.getToken() + "\",\"tokenType\":\"Bearer\",\"expiresAt\":\"" + token.getExpiresAt() + "\"}");
                 })
                 .failureHandler((request, response, exception) -> {
+                    if (writeLoginRejection(response, exception)) {
+                        return;
+                    }
                     response.setStatus(401);
                     response.setContentType("application/json");
                     response.getWriter().write("{\"error\":\"Authentication failed\"}");
@@ -63,6 +104,13 @@ public class SecurityConfig {
             )
             .logout(logout -> logout
                 .logoutUrl("/api/auth/logout")
+                .addLogoutHandler((request, response, authentication) -> {
+                    // Revoke the presented bearer token until it expires
+                    String token = TokenAuthenticationFilter.resolveToken(request);
+                    if (token != null) {
+                        tokenService.revoke(token);
+                    }
+                })
                 .logoutSuccessHandler((request, response, authentication) -> {
                     response.setContentType("application/json");
                     response.getWriter().write("{\"message\":\"Logout successful\"}");
@@ -75,4 +123,27 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    /**
+     * Answer throttled (429) and load-shed (503) logins with Retry-After instead of reporting bad credentials.
+     *
+     * @return true if the response was written
+     */
+    private static boolean writeLoginRejection(HttpServletResponse response, AuthenticationException exception) throws IOException {
+        if (exception instanceof LoginThrottledException throttled) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(throttled.getRetryAfterSeconds()));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many login attempts, retry later\"}");
+            return true;
+        }
+        if (exception instanceof PasswordVerificationRejectedException) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"Too many concurrent logins, retry shortly\"}");
+            return true;
+        }
+        return false;
+    }
 } 
\ No newline at end of file
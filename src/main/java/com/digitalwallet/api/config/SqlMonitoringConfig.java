@@ -0,0 +1,46 @@
+package com.digitalwallet.api.config;
+
+import com.digitalwallet.api.monitoring.ConnectionAcquireListener;
+import com.digitalwallet.api.monitoring.SqlStatementInspector;
+import com.digitalwallet.api.monitoring.SqlTimingListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SqlMonitoringConfig {
+
+    /**
+     * Register the statement inspector with Hibernate so every prepared statement is counted.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementInspectorCustomizer(SqlStatementInspector sqlStatementInspector) {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementInspector);
+    }
+
+    /**
+     * Wrap the pooled DataSource so statement execution and connection acquisition time can be measured.
+     */
+    @Bean
+    public static BeanPostProcessor sqlTimingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new SqlTimingListener())
+                            .methodListener(new ConnectionAcquireListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.digitalwallet.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads for the application's own background executors. With
+ * {@code spring.threads.virtual.enabled=true} on Java 21 or later, Spring Boot runs Tomcat and
+ * its task executors on virtual threads and the executors created here use them too. On an
+ * older JVM the setting has no effect and everything runs on named platform threads.
+ */
+@Component
+@Slf4j
+public class WorkerThreads {
+
+    private final boolean virtual;
+
+    public WorkerThreads(Environment environment) {
+        this.virtual = Threading.VIRTUAL.isActive(environment);
+        if (virtual) {
+            log.info("Request handling and background executors run on virtual threads");
+        } else if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            log.warn("spring.threads.virtual.enabled is set, but Java {} has no virtual threads; using platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Factory for long-lived worker threads, virtual or platform.
+     */
+    public ThreadFactory threadFactory(String namePrefix) {
+        return virtual ? new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory()
+                : new CustomizableThreadFactory(namePrefix);
+    }
+
+    /**
+     * Executor for short tasks that may block on I/O: a new virtual thread per task, or a fixed
+     * pool of {@code platformThreads} with an unbounded queue.
+     */
+    public Executor taskExecutor(String namePrefix, int platformThreads) {
+        return taskExecutor(namePrefix, platformThreads, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #taskExecutor(String, int)}, but the platform pool queues at most
+     * {@code queueCapacity} tasks and rejects the rest with a RejectedExecutionException.
+     */
+    public Executor taskExecutor(String namePrefix, int platformThreads, int queueCapacity) {
+        if (virtual) {
+            return new VirtualThreadTaskExecutor(namePrefix);
+        }
+        return new ThreadPoolExecutor(platformThreads, platformThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(namePrefix));
+    }
+}
@@ -1,10 +1,14 @@
 package com.digitalwallet.api.controller;
 
+import com.digitalwallet.api.dto.CustomerDashboardDto;
 import com.digitalwallet.api.dto.CustomerDto;
 import com.digitalwallet.api.dto.CreateCustomerRequest;
+import com.digitalwallet.api.dto.EntityListBody;
 import com.digitalwallet.api.dto.UpdateCustomerRequest;
 import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.security.WalletPrincipal;
 import com.digitalwallet.api.service.AuthService;
+import com.digitalwallet.api.service.CustomerDashboardService;
 import com.digitalwallet.api.service.CustomerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +18,6 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -24,6 +27,7 @@ public class CustomerController {
 
     private final CustomerService customerService;
     private final AuthService authService;
+    private final CustomerDashboardService customerDashboardService;
 
     /**
      * Create a new customer (EMPLOYEE only)
@@ -40,15 +44,28 @@ public class CustomerController {
             Customer customer = request.toEntity();
             Customer createdCustomer = customerService.createCustomer(customer);
             return ResponseEntity.status(HttpStatus.CREATED).body(CustomerDto.fromEntity(createdCustomer));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating customer: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
     }
 
+    /**
+     * Get the current customer's dashboard: wallets, their latest transactions and pending totals
+     */
+    @GetMapping("/me/dashboard")
+    public ResponseEntity<CustomerDashboardDto> getDashboardForCurrentCustomer(
+            @RequestParam(defaultValue = "5") int transactions) {
+        log.info("Getting dashboard for current customer");
+        // Get current customer from authentication context
+        WalletPrincipal principal = authService.getCurrentPrincipal();
+        if (principal == null || !principal.isCustomer()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return ResponseEntity.ok(customerDashboardService.getDashboard(principal.getId(), transactions));
+    }
+
     /**
      * Get customer by ID
      */
@@ -77,7 +94,7 @@ public class CustomerController {
      * Get all customers (EMPLOYEE only)
      */
     @GetMapping
-    public ResponseEntity<List<CustomerDto>> getAllCustomers() {
+    public ResponseEntity<EntityListBody<Customer>> getAllCustomers() {
         log.info("Getting all customers");
         // Check authorization - only EMPLOYEE or ADMIN can view all customers
         if (!authService.isEmployeeOrAdmin()) {
@@ -85,10 +102,7 @@ public class CustomerController {
         }
         
         List<Customer> customers = customerService.getAllCustomers();
-        List<CustomerDto> customerDtos = customers.stream()
-                .map(CustomerDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(customerDtos);
+        return ResponseEntity.ok(EntityListBody.customers(customers));
     }
 
     // Role-based methods removed since customers don't have roles anymore
@@ -99,14 +113,9 @@ public class CustomerController {
     @PutMapping("/{id}")
     public ResponseEntity<CustomerDto> updateCustomer(@PathVariable Long id, @RequestBody UpdateCustomerRequest request) {
         log.info("Updating customer with ID: {}", id);
-        try {
-            Customer customerDetails = request.toEntity();
-            Customer updatedCustomer = customerService.updateCustomer(id, customerDetails);
-            return ResponseEntity.ok(CustomerDto.fromEntity(updatedCustomer));
-        } catch (IllegalArgumentException e) {
-            log.error("Error updating customer: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
-        }
+        Customer customerDetails = request.toEntity();
+        Customer updatedCustomer = customerService.updateCustomer(id, customerDetails);
+        return ResponseEntity.ok(CustomerDto.fromEntity(updatedCustomer));
     }
 
     /**
@@ -115,13 +124,8 @@ public class CustomerController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable Long id) {
         log.info("Deleting customer with ID: {}", id);
-        try {
-            customerService.deleteCustomer(id);
-            return ResponseEntity.noContent().build();
-        } catch (IllegalArgumentException e) {
-            log.error("Error deleting customer: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
-        }
+        customerService.deleteCustomer(id);
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -0,0 +1,69 @@
+package com.digitalwallet.api.controller;
+
+import com.digitalwallet.api.dto.ErrorDto;
+import com.digitalwallet.api.service.AlreadyExistsException;
+import com.digitalwallet.api.service.DomainException;
+import com.digitalwallet.api.service.NotFoundException;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Answers requests the services rejected with an {@link ErrorDto}:
+ * <ul>
+ *   <li>{@link NotFoundException}: 404</li>
+ *   <li>{@link AlreadyExistsException}: 409</li>
+ *   <li>a concurrent change of the same row ({@link OptimisticLockingFailureException}): 409 with
+ *       code {@code conflict}, which the client can retry</li>
+ *   <li>any other {@link DomainException} (insufficient balance, inactive wallet, invalid request, ...): 400</li>
+ *   <li>any other {@link IllegalArgumentException}: 400 with code {@code bad_request} and a generic
+ *       message, as it may come from anywhere and its message is not meant for clients</li>
+ * </ul>
+ * Rejections are routine, so they are logged at debug level without a stack trace. Other
+ * {@link IllegalArgumentException}s are logged with theirs, to find where they came from.
+ */
+@RestControllerAdvice
+@Slf4j
+public class DomainExceptionHandler {
+
+    static final String BAD_REQUEST = "bad_request";
+    static final String CONFLICT = "conflict";
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorDto> handleNotFound(NotFoundException e) {
+        return reject(HttpStatus.NOT_FOUND, e);
+    }
+
+    @ExceptionHandler(AlreadyExistsException.class)
+    public ResponseEntity<ErrorDto> handleAlreadyExists(AlreadyExistsException e) {
+        return reject(HttpStatus.CONFLICT, e);
+    }
+
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    public ResponseEntity<ErrorDto> handleConcurrentChange(RuntimeException e) {
+        log.debug("Request lost a concurrent update: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ErrorDto(CONFLICT, "Changed by another request at the same time, retry"));
+    }
+
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<ErrorDto> handleDomainException(DomainException e) {
+        return reject(HttpStatus.BAD_REQUEST, e);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorDto> handleIllegalArgument(IllegalArgumentException e) {
+        log.warn("Request rejected by an unexpected IllegalArgumentException", e);
+        return ResponseEntity.badRequest().body(new ErrorDto(BAD_REQUEST, "Invalid request"));
+    }
+
+    private static ResponseEntity<ErrorDto> reject(HttpStatus status, DomainException e) {
+        String message = e.getMessage();
+        log.debug("Request rejected with {}: {}", e.getCode(), message);
+        return ResponseEntity.status(status).body(new ErrorDto(e.getCode(), message));
+    }
+}
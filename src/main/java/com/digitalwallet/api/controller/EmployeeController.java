@@ -30,24 +30,14 @@ public class EmployeeController {
     @PostMapping
     public ResponseEntity<EmployeeDto> createEmployee(@RequestBody CreateEmployeeRequest request) {
         log.info("Creating employee: {}", request.getEmployeeId());
-        try {
-            // Check authorization - only ADMIN can create employees
-            if (!authService.isEmployee()) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Employee currentEmployee = authService.getCurrentEmployee();
-            if (currentEmployee == null || currentEmployee.getRole() != Employee.EmployeeRole.ADMIN) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Employee employee = request.toEntity();
-            Employee createdEmployee = employeeService.createEmployee(employee);
-            return ResponseEntity.status(HttpStatus.CREATED).body(EmployeeDto.fromEntity(createdEmployee));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating employee: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+        // Check authorization - only ADMIN can create employees
+        if (!authService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        
+        Employee employee = request.toEntity();
+        Employee createdEmployee = employeeService.createEmployee(employee);
+        return ResponseEntity.status(HttpStatus.CREATED).body(EmployeeDto.fromEntity(createdEmployee));
     }
 
     /**
@@ -82,12 +72,7 @@ public class EmployeeController {
         log.info("Getting all employees");
         
         // Check authorization - only ADMIN can view all employees
-        if (!authService.isEmployee()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        
-        Employee currentEmployee = authService.getCurrentEmployee();
-        if (currentEmployee == null || currentEmployee.getRole() != Employee.EmployeeRole.ADMIN) {
+        if (!authService.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
@@ -106,12 +91,7 @@ public class EmployeeController {
         log.info("Getting employees by role: {}", role);
         
         // Check authorization - only ADMIN can view employees by role
-        if (!authService.isEmployee()) {
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-        }
-        
-        Employee currentEmployee = authService.getCurrentEmployee();
-        if (currentEmployee == null || currentEmployee.getRole() != Employee.EmployeeRole.ADMIN) {
+        if (!authService.isAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
         
@@ -128,24 +108,14 @@ public class EmployeeController {
     @PutMapping("/{id}")
     public ResponseEntity<EmployeeDto> updateEmployee(@PathVariable Long id, @RequestBody UpdateEmployeeRequest request) {
         log.info("Updating employee with ID: {}", id);
-        try {
-            // Check authorization - only ADMIN can update employees
-            if (!authService.isEmployee()) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Employee currentEmployee = authService.getCurrentEmployee();
-            if (currentEmployee == null || currentEmployee.getRole() != Employee.EmployeeRole.ADMIN) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Employee employeeDetails = request.toEntity();
-            Employee updatedEmployee = employeeService.updateEmployee(id, employeeDetails);
-            return ResponseEntity.ok(EmployeeDto.fromEntity(updatedEmployee));
-        } catch (IllegalArgumentException e) {
-            log.error("Error updating employee: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
+        // Check authorization - only ADMIN can update employees
+        if (!authService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        
+        Employee employeeDetails = request.toEntity();
+        Employee updatedEmployee = employeeService.updateEmployee(id, employeeDetails);
+        return ResponseEntity.ok(EmployeeDto.fromEntity(updatedEmployee));
     }
 
     /**
@@ -154,23 +124,13 @@ public class EmployeeController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteEmployee(@PathVariable Long id) {
         log.info("Deleting employee with ID: {}", id);
-        try {
-            // Check authorization - only ADMIN can delete employees
-            if (!authService.isEmployee()) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            Employee currentEmployee = authService.getCurrentEmployee();
-            if (currentEmployee == null || currentEmployee.getRole() != Employee.EmployeeRole.ADMIN) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-            
-            employeeService.deleteEmployee(id);
-            return ResponseEntity.noContent().build();
-        } catch (IllegalArgumentException e) {
-            log.error("Error deleting employee: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
+        // Check authorization - only ADMIN can delete employees
+        if (!authService.isAdmin()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        
+        employeeService.deleteEmployee(id);
+        return ResponseEntity.noContent().build();
     }
 
     /**
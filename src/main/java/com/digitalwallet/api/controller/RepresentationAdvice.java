@@ -0,0 +1,59 @@
+package com.digitalwallet.api.controller;
+
+import com.digitalwallet.api.dto.EntityListBody;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Alternative representations for the transaction and wallet list endpoints:
+ * <ul>
+ *   <li>{@code view=compact} replaces the embedded wallet/customer with {@code walletId}/{@code customerId}</li>
+ *   <li>{@code fields=id,amount,status} writes only the listed top-level properties</li>
+ * </ul>
+ * Both can be combined. The lists are written straight from the entities ({@link EntityListBody}),
+ * which are told the representation; single-object responses are left unchanged.
+ */
+@RestControllerAdvice(assignableTypes = {TransactionController.class, WalletController.class})
+public class RepresentationAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    static final String VIEW_PARAM = "view";
+    static final String FIELDS_PARAM = "fields";
+    static final String COMPACT_VIEW = "compact";
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(bodyContainer.getValue() instanceof EntityListBody<?> body)
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        String view = httpRequest.getParameter(VIEW_PARAM);
+        String fields = httpRequest.getParameter(FIELDS_PARAM);
+        if (view == null && fields == null) {
+            return;
+        }
+        bodyContainer.setValue(body.withRepresentation(COMPACT_VIEW.equalsIgnoreCase(view),
+                StringUtils.hasText(fields) ? properties(fields) : null));
+    }
+
+    private static Set<String> properties(String fields) {
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toSet());
+    }
+}
@@ -1,23 +1,34 @@
 package com.digitalwallet.api.controller;
 
+import com.digitalwallet.api.dto.BatchItemDto;
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import com.digitalwallet.api.dto.EntityListBody;
 import com.digitalwallet.api.dto.TransactionDto;
-import com.digitalwallet.api.entity.Customer;
-import com.digitalwallet.api.entity.Employee;
+import com.digitalwallet.api.dto.TransactionSubmissionDto;
 import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.security.WalletPrincipal;
 import com.digitalwallet.api.service.AuthService;
 import com.digitalwallet.api.service.TransactionService;
 import com.digitalwallet.api.service.WalletService;
+import com.digitalwallet.api.stream.PendingTransactionStream;
+import com.digitalwallet.api.submission.SubmissionQueueFullException;
+import com.digitalwallet.api.submission.TransactionSubmissionQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -25,40 +36,50 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionController {
 
+    static final String RESPOND_ASYNC = "respond-async";
+
     private final TransactionService transactionService;
     private final AuthService authService;
     private final WalletService walletService;
+    private final WalletETags walletETags;
+    private final PendingTransactionStream pendingTransactionStream;
+    private final TransactionSubmissionQueue transactionSubmissionQueue;
 
     /**
      * Create a deposit transaction
      */
     @PostMapping("/deposit")
-    public ResponseEntity<TransactionDto> createDepositTransaction(
+    public ResponseEntity<?> createDepositTransaction(
             @RequestParam Long walletId,
             @RequestParam BigDecimal amount,
             @RequestParam Transaction.OppositePartyType oppositePartyType,
-            @RequestParam String oppositeParty) {
+            @RequestParam String oppositeParty,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         log.info("Creating deposit transaction for wallet ID: {}", walletId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can create transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can deposit to any wallet (no restriction)
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Customers can deposit to any wallet - no ownership check needed
                 // This allows customers to send money to other customers
             }
             
+            if (isAsyncPreferred(prefer)) {
+                return accepted(transactionSubmissionQueue.submit(new CreateTransactionRequest(walletId, amount,
+                        Transaction.TransactionType.DEPOSIT, oppositePartyType, oppositeParty), customerIdOf(principal)));
+            }
+            
             Transaction transaction = transactionService.createDepositTransaction(walletId, amount, oppositePartyType, oppositeParty);
             return ResponseEntity.status(HttpStatus.CREATED).body(TransactionDto.fromEntity(transaction));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating deposit transaction: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+        } catch (SubmissionQueueFullException e) {
+            log.warn("Deposit submission refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -69,34 +90,69 @@ public class TransactionController {
      * Create a withdrawal transaction
      */
     @PostMapping("/withdraw")
-    public ResponseEntity<TransactionDto> createWithdrawTransaction(
+    public ResponseEntity<?> createWithdrawTransaction(
             @RequestParam Long walletId,
             @RequestParam BigDecimal amount,
             @RequestParam Transaction.OppositePartyType oppositePartyType,
-            @RequestParam String oppositeParty) {
+            @RequestParam String oppositeParty,
+            @RequestHeader(value = "Prefer", required = false) String prefer) {
         log.info("Creating withdrawal transaction for wallet ID: {}", walletId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can create transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only withdraw from their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only withdraw from their own wallets");
                 }
             }
             
+            if (isAsyncPreferred(prefer)) {
+                return accepted(transactionSubmissionQueue.submit(new CreateTransactionRequest(walletId, amount,
+                        Transaction.TransactionType.WITHDRAW, oppositePartyType, oppositeParty), customerIdOf(principal)));
+            }
+            
             Transaction transaction = transactionService.createWithdrawTransaction(walletId, amount, oppositePartyType, oppositeParty);
             return ResponseEntity.status(HttpStatus.CREATED).body(TransactionDto.fromEntity(transaction));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating withdrawal transaction: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+        } catch (SubmissionQueueFullException e) {
+            log.warn("Withdrawal submission refused: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+        } catch (AccessDeniedException e) {
+            log.error("Access denied: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Get the status of a deposit or withdrawal submitted with Prefer: respond-async
+     */
+    @GetMapping("/submissions/{id}")
+    public ResponseEntity<TransactionSubmissionDto> getTransactionSubmission(@PathVariable String id) {
+        log.info("Getting transaction submission: {}", id);
+        try {
+            // Check authorization - only EMPLOYEE, ADMIN, or the submitting customer can view a submission
+            WalletPrincipal principal = authService.getCurrentPrincipal();
+            
+            if (principal == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            // If current user is CUSTOMER, they can only view their own submissions
+            if (principal.isCustomer()) {
+                return transactionSubmissionQueue.getSubmissionForCustomer(id, principal.getId())
+                        .map(ResponseEntity::ok)
+                        .orElseThrow(() -> new AccessDeniedException("Customers can only view their own submissions"));
+            }
+            
+            return transactionSubmissionQueue.getSubmission(id)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -111,23 +167,19 @@ public class TransactionController {
         log.info("Approving transaction with ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can approve transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can approve transactions
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can approve transactions");
             }
             
             Transaction approvedTransaction = transactionService.approveTransaction(id);
             return ResponseEntity.ok(TransactionDto.fromEntity(approvedTransaction));
-        } catch (IllegalArgumentException e) {
-            log.error("Error approving transaction: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -142,23 +194,19 @@ public class TransactionController {
         log.info("Denying transaction with ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can deny transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can deny transactions
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can deny transactions");
             }
             
             Transaction deniedTransaction = transactionService.denyTransaction(id);
             return ResponseEntity.ok(TransactionDto.fromEntity(deniedTransaction));
-        } catch (IllegalArgumentException e) {
-            log.error("Error denying transaction: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -173,20 +221,19 @@ public class TransactionController {
         log.info("Getting transaction by ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the transaction owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view their own transactions
-            if (authService.isCustomer()) {
-                // Check if the transaction belongs to the current customer
-                Optional<Transaction> transaction = transactionService.getTransactionById(id);
-                if (transaction.isEmpty() || !transaction.get().getWallet().getCustomer().getId().equals(currentCustomer.getId())) {
-                    throw new AccessDeniedException("Customers can only view their own transactions");
-                }
+            if (principal.isCustomer()) {
+                // Ownership is part of the query, so authorizing and fetching is one statement
+                return transactionService.getTransactionByIdForCustomer(id, principal.getId())
+                        .map(TransactionDto::fromEntity)
+                        .map(ResponseEntity::ok)
+                        .orElseThrow(() -> new AccessDeniedException("Customers can only view their own transactions"));
             }
             
             return transactionService.getTransactionById(id)
@@ -199,34 +246,62 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Get several transactions by ID in one call, answered in request order with a not-found
+     * marker for each ID that does not exist. For customers ownership is part of the query, so
+     * other customers' transactions are reported as not found.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<BatchItemDto<TransactionDto>>> getTransactionsByIds(@RequestParam List<Long> ids) {
+        log.info("Getting {} transactions by ID", ids.size());
+        WalletPrincipal principal = authService.getCurrentPrincipal();
+        
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Map<Long, Transaction> transactions = principal.isCustomer()
+                ? transactionService.getTransactionsByIdsForCustomer(ids, principal.getId())
+                : transactionService.getTransactionsByIds(ids);
+        return ResponseEntity.ok(BatchItemDto.inRequestOrder(ids, transactions, TransactionDto::fromEntity));
+    }
+
     /**
      * Get all transactions for a wallet
      */
     @GetMapping("/wallet/{walletId}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByWalletId(@PathVariable Long walletId) {
+    public ResponseEntity<EntityListBody<Transaction>> getTransactionsByWalletId(@PathVariable Long walletId, WebRequest request) {
         log.info("Getting transactions for wallet ID: {}", walletId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view transactions for their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only view transactions for their own wallets");
                 }
             }
             
-            List<Transaction> transactions = transactionService.getTransactionsByWalletId(walletId);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            // Unchanged since the client's copy: answer from the wallet version without loading the list
+            String eTag = walletETags.forConditionalRequest("transactions", walletId, principal, request);
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build(); // ETag header already set
+            }
+            
+            List<Transaction> transactions = principal.isCustomer()
+                    ? transactionService.getTransactionsByWalletIdForCustomer(walletId, principal.getId())
+                    : transactionService.getTransactionsByWalletId(walletId);
+            // The wallet comes with the rows, so only an empty list needs its version looked up
+            String currentETag = transactions.isEmpty()
+                    ? walletETags.forWallet("transactions", walletId, principal, request)
+                    : walletETags.of("transactions", transactions.get(0).getWallet(), request);
+            return ResponseEntity.ok().eTag(currentETag).body(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -237,32 +312,30 @@ public class TransactionController {
      * Get transactions by wallet ID and status
      */
     @GetMapping("/wallet/{walletId}/status/{status}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByWalletIdAndStatus(
+    public ResponseEntity<EntityListBody<Transaction>> getTransactionsByWalletIdAndStatus(
             @PathVariable Long walletId, 
             @PathVariable Transaction.TransactionStatus status) {
         log.info("Getting transactions for wallet ID: {} and status: {}", walletId, status);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view transactions for their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only view transactions for their own wallets");
                 }
             }
             
-            List<Transaction> transactions = transactionService.getTransactionsByWalletIdAndStatus(walletId, status);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            List<Transaction> transactions = principal.isCustomer()
+                    ? transactionService.getTransactionsByWalletIdAndStatusForCustomer(walletId, principal.getId(), status)
+                    : transactionService.getTransactionsByWalletIdAndStatus(walletId, status);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -273,32 +346,27 @@ public class TransactionController {
      * Get all transactions (EMPLOYEE/ADMIN see all, CUSTOMER sees their own)
      */
     @GetMapping
-    public ResponseEntity<List<TransactionDto>> getAllTransactions() {
+    public ResponseEntity<EntityListBody<Transaction>> getAllTransactions() {
         log.info("Getting all transactions");
         try {
             // Check authorization
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             List<Transaction> transactions;
-            List<TransactionDto> transactionDtos;
             
             // If current user is EMPLOYEE or ADMIN, they can view all transactions
-            if (authService.isEmployeeOrAdmin()) {
+            if (principal.isEmployeeOrAdmin()) {
                 transactions = transactionService.getAllTransactions();
             } else {
                 // If current user is CUSTOMER, they can only view their own transactions
-                transactions = transactionService.getTransactionsByCustomerId(currentCustomer.getId());
+                transactions = transactionService.getTransactionsByCustomerId(principal.getId());
             }
             
-            transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -309,27 +377,23 @@ public class TransactionController {
      * Get transactions by status
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByStatus(@PathVariable Transaction.TransactionStatus status) {
+    public ResponseEntity<EntityListBody<Transaction>> getTransactionsByStatus(@PathVariable Transaction.TransactionStatus status) {
         log.info("Getting transactions by status: {}", status);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view transactions by status
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view transactions by status
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view transactions by status");
             }
             
             List<Transaction> transactions = transactionService.getTransactionsByStatus(status);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -340,27 +404,49 @@ public class TransactionController {
      * Get pending transactions
      */
     @GetMapping("/pending")
-    public ResponseEntity<List<TransactionDto>> getPendingTransactions() {
+    public ResponseEntity<EntityListBody<Transaction>> getPendingTransactions() {
         log.info("Getting pending transactions");
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view pending transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view pending transactions
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view pending transactions");
             }
             
             List<Transaction> transactions = transactionService.getPendingTransactions();
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
+        } catch (AccessDeniedException e) {
+            log.error("Access denied: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    /**
+     * Stream pending transactions: a snapshot, then created/approved/denied changes as they commit
+     */
+    @GetMapping(value = "/pending/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPendingTransactions() {
+        log.info("Opening pending transaction stream");
+        try {
+            // Check authorization - only EMPLOYEE or ADMIN can view pending transactions
+            WalletPrincipal principal = authService.getCurrentPrincipal();
+            
+            if (principal == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            
+            // Only EMPLOYEE or ADMIN can view pending transactions
+            if (!principal.isEmployeeOrAdmin()) {
+                throw new AccessDeniedException("Only employees or admins can view pending transactions");
+            }
+            
+            return ResponseEntity.ok(pendingTransactionStream.subscribe());
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -371,27 +457,23 @@ public class TransactionController {
      * Get transactions by type
      */
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByType(@PathVariable Transaction.TransactionType type) {
+    public ResponseEntity<EntityListBody<Transaction>> getTransactionsByType(@PathVariable Transaction.TransactionType type) {
         log.info("Getting transactions by type: {}", type);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view transactions by type
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view transactions by type
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view transactions by type");
             }
             
             List<Transaction> transactions = transactionService.getTransactionsByType(type);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -402,32 +484,30 @@ public class TransactionController {
      * Get transactions by wallet ID and type
      */
     @GetMapping("/wallet/{walletId}/type/{type}")
-    public ResponseEntity<List<TransactionDto>> getTransactionsByWalletIdAndType(
+    public ResponseEntity<EntityListBody<Transaction>> getTransactionsByWalletIdAndType(
             @PathVariable Long walletId, 
             @PathVariable Transaction.TransactionType type) {
         log.info("Getting transactions for wallet ID: {} and type: {}", walletId, type);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view transactions for their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only view transactions for their own wallets");
                 }
             }
             
-            List<Transaction> transactions = transactionService.getTransactionsByWalletIdAndType(walletId, type);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            List<Transaction> transactions = principal.isCustomer()
+                    ? transactionService.getTransactionsByWalletIdAndTypeForCustomer(walletId, principal.getId(), type)
+                    : transactionService.getTransactionsByWalletIdAndType(walletId, type);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -438,30 +518,28 @@ public class TransactionController {
      * Get deposit transactions for a wallet
      */
     @GetMapping("/wallet/{walletId}/deposits")
-    public ResponseEntity<List<TransactionDto>> getDepositTransactionsByWalletId(@PathVariable Long walletId) {
+    public ResponseEntity<EntityListBody<Transaction>> getDepositTransactionsByWalletId(@PathVariable Long walletId) {
         log.info("Getting deposit transactions for wallet ID: {}", walletId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view transactions for their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only view transactions for their own wallets");
                 }
             }
             
-            List<Transaction> transactions = transactionService.getDepositTransactionsByWalletId(walletId);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            List<Transaction> transactions = principal.isCustomer()
+                    ? transactionService.getTransactionsByWalletIdAndTypeForCustomer(walletId, principal.getId(), Transaction.TransactionType.DEPOSIT)
+                    : transactionService.getDepositTransactionsByWalletId(walletId);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -472,33 +550,49 @@ public class TransactionController {
      * Get withdrawal transactions for a wallet
      */
     @GetMapping("/wallet/{walletId}/withdrawals")
-    public ResponseEntity<List<TransactionDto>> getWithdrawTransactionsByWalletId(@PathVariable Long walletId) {
+    public ResponseEntity<EntityListBody<Transaction>> getWithdrawTransactionsByWalletId(@PathVariable Long walletId) {
         log.info("Getting withdrawal transactions for wallet ID: {}", walletId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view transactions
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view transactions for their own wallets
-            if (authService.isCustomer()) {
+            if (principal.isCustomer()) {
                 // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(walletId, currentCustomer.getId())) {
+                if (!walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
                     throw new AccessDeniedException("Customers can only view transactions for their own wallets");
                 }
             }
             
-            List<Transaction> transactions = transactionService.getWithdrawTransactionsByWalletId(walletId);
-            List<TransactionDto> transactionDtos = transactions.stream()
-                    .map(TransactionDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(transactionDtos);
+            List<Transaction> transactions = principal.isCustomer()
+                    ? transactionService.getTransactionsByWalletIdAndTypeForCustomer(walletId, principal.getId(), Transaction.TransactionType.WITHDRAW)
+                    : transactionService.getWithdrawTransactionsByWalletId(walletId);
+            return ResponseEntity.ok(EntityListBody.transactions(transactions));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Prefer: respond-async (RFC 7240) asks for 202 Accepted and later processing
+     */
+    private static boolean isAsyncPreferred(String prefer) {
+        return prefer != null && prefer.toLowerCase(Locale.ROOT).contains(RESPOND_ASYNC);
+    }
+
+    private static Long customerIdOf(WalletPrincipal principal) {
+        return principal.isCustomer() ? principal.getId() : null;
+    }
+
+    private static ResponseEntity<TransactionSubmissionDto> accepted(TransactionSubmissionDto submission) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/transactions/submissions/" + submission.getId()))
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(submission);
+    }
+}
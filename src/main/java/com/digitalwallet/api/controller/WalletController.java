@@ -1,22 +1,27 @@
 package com.digitalwallet.api.controller;
 
+import com.digitalwallet.api.dto.BatchItemDto;
+import com.digitalwallet.api.dto.EntityListBody;
 import com.digitalwallet.api.dto.WalletDto;
 import com.digitalwallet.api.dto.CreateWalletRequest;
-import com.digitalwallet.api.entity.Customer;
-import com.digitalwallet.api.entity.Employee;
 import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.security.WalletPrincipal;
 import com.digitalwallet.api.service.AuthService;
 import com.digitalwallet.api.service.WalletService;
+import com.digitalwallet.api.stream.WalletStream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/wallets")
@@ -26,6 +31,8 @@ public class WalletController {
 
     private final WalletService walletService;
     private final AuthService authService;
+    private final WalletETags walletETags;
+    private final WalletStream walletStream;
 
     /**
      * Create a new wallet for a customer
@@ -35,29 +42,25 @@ public class WalletController {
         log.info("Creating wallet for customer ID: {}", customerId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the customer themselves can create wallets
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only create wallets for themselves
-            if (authService.isCustomer() && !currentCustomer.getId().equals(customerId)) {
+            if (principal.isCustomer() && !principal.getId().equals(customerId)) {
                 throw new AccessDeniedException("Customers can only create wallets for themselves");
             }
             
             // If current user is EMPLOYEE or ADMIN, they can create wallets for any customer
-            if (authService.isEmployeeOrAdmin()) {
+            if (principal.isEmployeeOrAdmin()) {
                 // Allow employee/admin to create wallet for any customer
             }
             
             Wallet wallet = request.toEntity();
             Wallet createdWallet = walletService.createWallet(customerId, wallet);
             return ResponseEntity.status(HttpStatus.CREATED).body(WalletDto.fromEntity(createdWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating wallet: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -70,48 +73,67 @@ public class WalletController {
     @PostMapping("/me")
     public ResponseEntity<WalletDto> createWalletForCurrentCustomer(@RequestBody CreateWalletRequest request) {
         log.info("Creating wallet for current customer");
-        try {
-            // Get current customer from authentication context
-            Customer currentCustomer = authService.getCurrentCustomer();
-            if (currentCustomer == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-            
-            Wallet wallet = request.toEntity();
-            Wallet createdWallet = walletService.createWallet(currentCustomer.getId(), wallet);
-            return ResponseEntity.status(HttpStatus.CREATED).body(WalletDto.fromEntity(createdWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error creating wallet: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+        // Get current customer from authentication context
+        WalletPrincipal principal = authService.getCurrentPrincipal();
+        if (principal == null || !principal.isCustomer()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Wallet wallet = request.toEntity();
+        Wallet createdWallet = walletService.createWallet(principal.getId(), wallet);
+        return ResponseEntity.status(HttpStatus.CREATED).body(WalletDto.fromEntity(createdWallet));
+    }
+
+    /**
+     * Stream the current customer's wallets: a snapshot, then wallet and transaction changes as they commit
+     */
+    @GetMapping(value = "/me/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamWalletsForCurrentCustomer(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("Opening wallet stream for current customer");
+        // Get current customer from authentication context
+        WalletPrincipal principal = authService.getCurrentPrincipal();
+        if (principal == null || !principal.isCustomer()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        
+        return ResponseEntity.ok(walletStream.subscribe(principal.getId(), lastEventId));
     }
 
     /**
      * Get wallet by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<WalletDto> getWalletById(@PathVariable Long id) {
+    public ResponseEntity<WalletDto> getWalletById(@PathVariable Long id, WebRequest request) {
         log.info("Getting wallet by ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the wallet owner can view wallet
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
+            // Unchanged since the client's copy: answer from the wallet version without loading it
+            String eTag = walletETags.forConditionalRequest("wallet", id, principal, request);
+            if (eTag != null && request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build(); // ETag header already set
+            }
+            
             // If current user is CUSTOMER, they can only view their own wallets
-            if (authService.isCustomer()) {
-                // Check if the wallet belongs to the current customer
-                if (!walletService.isWalletOwnedByCustomer(id, currentCustomer.getId())) {
-                    throw new AccessDeniedException("Customers can only view their own wallets");
-                }
+            if (principal.isCustomer()) {
+                // Ownership is part of the query, so authorizing and fetching is one statement
+                return walletService.getWalletByIdForCustomer(id, principal.getId())
+                        .map(wallet -> ResponseEntity.ok()
+                                .eTag(walletETags.of("wallet", wallet, request))
+                                .body(WalletDto.fromEntity(wallet)))
+                        .orElseThrow(() -> new AccessDeniedException("Customers can only view their own wallets"));
             }
             
             return walletService.getWalletById(id)
-                    .map(WalletDto::fromEntity)
-                    .map(ResponseEntity::ok)
+                    .map(wallet -> ResponseEntity.ok()
+                            .eTag(walletETags.of("wallet", wallet, request))
+                            .body(WalletDto.fromEntity(wallet)))
                     .orElse(ResponseEntity.notFound().build());
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
@@ -119,31 +141,47 @@ public class WalletController {
         }
     }
 
+    /**
+     * Get several wallets by ID in one call, answered in request order with a not-found marker
+     * for each ID that does not exist. For customers ownership is part of the query, so other
+     * customers' wallets are reported as not found.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<BatchItemDto<WalletDto>>> getWalletsByIds(@RequestParam List<Long> ids) {
+        log.info("Getting {} wallets by ID", ids.size());
+        WalletPrincipal principal = authService.getCurrentPrincipal();
+        
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        Map<Long, Wallet> wallets = principal.isCustomer()
+                ? walletService.getWalletsByIdsForCustomer(ids, principal.getId())
+                : walletService.getWalletsByIds(ids);
+        return ResponseEntity.ok(BatchItemDto.inRequestOrder(ids, wallets, WalletDto::fromEntity));
+    }
+
     /**
      * Get all wallets for a customer
      */
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<WalletDto>> getWalletsByCustomerId(@PathVariable Long customerId) {
+    public ResponseEntity<EntityListBody<Wallet>> getWalletsByCustomerId(@PathVariable Long customerId) {
         log.info("Getting wallets for customer ID: {}", customerId);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the customer themselves can view wallets
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view their own wallets
-            if (authService.isCustomer() && !currentCustomer.getId().equals(customerId)) {
+            if (principal.isCustomer() && !principal.getId().equals(customerId)) {
                 throw new AccessDeniedException("Customers can only view their own wallets");
             }
             
             List<Wallet> wallets = walletService.getWalletsByCustomerId(customerId);
-            List<WalletDto> walletDtos = wallets.stream()
-                    .map(WalletDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -154,29 +192,25 @@ public class WalletController {
      * Get wallets by customer ID and currency
      */
     @GetMapping("/customer/{customerId}/currency/{currency}")
-    public ResponseEntity<List<WalletDto>> getWalletsByCustomerIdAndCurrency(
+    public ResponseEntity<EntityListBody<Wallet>> getWalletsByCustomerIdAndCurrency(
             @PathVariable Long customerId, 
             @PathVariable Wallet.Currency currency) {
         log.info("Getting wallets for customer ID: {} and currency: {}", customerId, currency);
         try {
             // Check authorization - only EMPLOYEE, ADMIN, or the customer themselves can view wallets
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // If current user is CUSTOMER, they can only view their own wallets
-            if (authService.isCustomer() && !currentCustomer.getId().equals(customerId)) {
+            if (principal.isCustomer() && !principal.getId().equals(customerId)) {
                 throw new AccessDeniedException("Customers can only view their own wallets");
             }
             
             List<Wallet> wallets = walletService.getWalletsByCustomerIdAndCurrency(customerId, currency);
-            List<WalletDto> walletDtos = wallets.stream()
-                    .map(WalletDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -187,32 +221,27 @@ public class WalletController {
      * Get all wallets (EMPLOYEE/ADMIN see all, CUSTOMER sees their own)
      */
     @GetMapping
-    public ResponseEntity<List<WalletDto>> getAllWallets() {
+    public ResponseEntity<EntityListBody<Wallet>> getAllWallets() {
         log.info("Getting all wallets");
         try {
             // Check authorization
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             List<Wallet> wallets;
-            List<WalletDto> walletDtos;
             
             // If current user is EMPLOYEE or ADMIN, they can view all wallets
-            if (authService.isEmployeeOrAdmin()) {
+            if (principal.isEmployeeOrAdmin()) {
                 wallets = walletService.getAllWallets();
             } else {
                 // If current user is CUSTOMER, they can only view their own wallets
-                wallets = walletService.getWalletsByCustomerId(currentCustomer.getId());
+                wallets = walletService.getWalletsByCustomerId(principal.getId());
             }
             
-            walletDtos = wallets.stream()
-                .map(WalletDto::fromEntity)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -229,23 +258,19 @@ public class WalletController {
         log.info("Updating wallet balance for wallet ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can directly update wallet balance
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can directly update wallet balance
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can directly update wallet balance");
             }
             
             Wallet updatedWallet = walletService.updateWalletBalance(id, newBalance);
             return ResponseEntity.ok(WalletDto.fromEntity(updatedWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error updating wallet balance: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -262,23 +287,19 @@ public class WalletController {
         log.info("Adding {} to wallet balance for wallet ID: {}", amount, id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can directly add balance
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can directly add balance to wallets
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can directly add balance to wallets");
             }
             
             Wallet updatedWallet = walletService.addToWalletBalance(id, amount);
             return ResponseEntity.ok(WalletDto.fromEntity(updatedWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error adding to wallet balance: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -295,23 +316,19 @@ public class WalletController {
         log.info("Deducting {} from wallet balance for wallet ID: {}", amount, id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can directly deduct balance
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can directly deduct balance from wallets
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can directly deduct balance from wallets");
             }
             
             Wallet updatedWallet = walletService.deductFromWalletBalance(id, amount);
             return ResponseEntity.ok(WalletDto.fromEntity(updatedWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error deducting from wallet balance: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -329,23 +346,19 @@ public class WalletController {
         log.info("Updating wallet status for wallet ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can update wallet status
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can update wallet status
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can update wallet status");
             }
             
             Wallet updatedWallet = walletService.updateWalletStatus(id, activeForShopping, activeForWithdraw);
             return ResponseEntity.ok(WalletDto.fromEntity(updatedWallet));
-        } catch (IllegalArgumentException e) {
-            log.error("Error updating wallet status: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -360,23 +373,19 @@ public class WalletController {
         log.info("Deleting wallet with ID: {}", id);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can delete wallets
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can delete wallets
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can delete wallets");
             }
             
             walletService.deleteWallet(id);
             return ResponseEntity.noContent().build();
-        } catch (IllegalArgumentException e) {
-            log.error("Error deleting wallet: {}", e.getMessage());
-            return ResponseEntity.notFound().build();
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -387,27 +396,23 @@ public class WalletController {
      * Get wallets by currency
      */
     @GetMapping("/currency/{currency}")
-    public ResponseEntity<List<WalletDto>> getWalletsByCurrency(@PathVariable Wallet.Currency currency) {
+    public ResponseEntity<EntityListBody<Wallet>> getWalletsByCurrency(@PathVariable Wallet.Currency currency) {
         log.info("Getting wallets by currency: {}", currency);
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view wallets by currency
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view wallets by currency
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view wallets by currency");
             }
             
             List<Wallet> wallets = walletService.getWalletsByCurrency(currency);
-            List<WalletDto> walletDtos = wallets.stream()
-                    .map(WalletDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -418,27 +423,23 @@ public class WalletController {
      * Get active wallets for shopping
      */
     @GetMapping("/active/shopping")
-    public ResponseEntity<List<WalletDto>> getActiveWalletsForShopping() {
+    public ResponseEntity<EntityListBody<Wallet>> getActiveWalletsForShopping() {
         log.info("Getting active wallets for shopping");
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view active wallets for shopping
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view active wallets for shopping
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view active wallets for shopping");
             }
             
             List<Wallet> wallets = walletService.getActiveWalletsForShopping();
-            List<WalletDto> walletDtos = wallets.stream()
-                    .map(WalletDto::fromEntity)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -449,27 +450,23 @@ public class WalletController {
      * Get active wallets for withdrawal
      */
     @GetMapping("/active/withdraw")
-    public ResponseEntity<List<WalletDto>> getActiveWalletsForWithdraw() {
+    public ResponseEntity<EntityListBody<Wallet>> getActiveWalletsForWithdraw() {
         log.info("Getting active wallets for withdrawal");
         try {
             // Check authorization - only EMPLOYEE or ADMIN can view active wallets for withdrawal
-            Customer currentCustomer = authService.getCurrentCustomer();
-            Employee currentEmployee = authService.getCurrentEmployee();
+            WalletPrincipal principal = authService.getCurrentPrincipal();
             
-            if (currentCustomer == null && currentEmployee == null) {
+            if (principal == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
             
             // Only EMPLOYEE or ADMIN can view active wallets for withdrawal
-            if (!authService.isEmployeeOrAdmin()) {
+            if (!principal.isEmployeeOrAdmin()) {
                 throw new AccessDeniedException("Only employees or admins can view active wallets for withdrawal");
             }
             
             List<Wallet> wallets = walletService.getActiveWalletsForWithdraw();
-            List<WalletDto> walletDtos = wallets.stream()
-                    .map(WalletDto::fromEntity)
-                .collect(Collectors.toList());
-            return ResponseEntity.ok(walletDtos);
+            return ResponseEntity.ok(EntityListBody.wallets(wallets));
         } catch (AccessDeniedException e) {
             log.error("Access denied: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
@@ -0,0 +1,86 @@
+package com.digitalwallet.api.controller;
+
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.security.WalletPrincipal;
+import com.digitalwallet.api.service.WalletService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+/**
+ * Strong ETags for wallet-scoped reads, built from the wallet version instead of the response
+ * body. A poll carrying the current ETag is answered with 304 after one version lookup, before
+ * any entity is loaded or serialized; a full response takes the version from the loaded wallet,
+ * so it costs no extra query.
+ */
+@Component
+@RequiredArgsConstructor
+class WalletETags {
+
+    private final WalletService walletService;
+
+    /**
+     * Current ETag of a wallet-scoped resource, looked up only for requests carrying
+     * If-None-Match. Null when there is nothing to compare, the wallet does not exist, or the
+     * caller is a customer who does not own it (the normal path then answers 404/403).
+     *
+     * @param scope distinguishes the resources derived from the same wallet
+     */
+    String forConditionalRequest(String scope, Long walletId, WalletPrincipal principal, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return null;
+        }
+        return forWallet(scope, walletId, principal, request);
+    }
+
+    /**
+     * Current ETag of a wallet-scoped resource, looked up from the wallet version.
+     */
+    String forWallet(String scope, Long walletId, WalletPrincipal principal, WebRequest request) {
+        if (principal.isCustomer() && !walletService.isWalletOwnedByCustomer(walletId, principal.getId())) {
+            return null;
+        }
+        return walletService.getWalletVersion(walletId)
+                .map(version -> format(scope, walletId, version, request))
+                .orElse(null);
+    }
+
+    /**
+     * ETag of a wallet-scoped resource built from an already loaded wallet.
+     */
+    String of(String scope, Wallet wallet, WebRequest request) {
+        return format(scope, wallet.getId(), wallet.getVersion(), request);
+    }
+
+    private static String format(String scope, long walletId, long version, WebRequest request) {
+        StringBuilder eTag = new StringBuilder("\"").append(scope).append('-').append(walletId).append('-').append(version);
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (!request.getParameterMap().isEmpty() || isBinary(accept)) {
+            eTag.append('-').append(variant(request, accept));
+        }
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * Query parameters such as view and fields change the body, and so does a binary encoding,
+     * so they are part of the tag.
+     */
+    private static String variant(WebRequest request, String accept) {
+        StringBuilder parameters = new StringBuilder();
+        request.getParameterMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> parameters.append(entry.getKey()).append('=')
+                        .append(String.join(",", entry.getValue())).append('&'));
+        if (isBinary(accept)) {
+            parameters.append(HttpHeaders.ACCEPT).append('=').append(accept);
+        }
+        return Integer.toHexString(parameters.toString().hashCode());
+    }
+
+    private static boolean isBinary(String accept) {
+        return accept != null && (accept.contains("cbor") || accept.contains("smile"));
+    }
+}
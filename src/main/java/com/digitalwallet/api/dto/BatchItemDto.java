@@ -0,0 +1,44 @@
+package com.digitalwallet.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One entry of a batch get: the requested ID and either the item or a not-found marker.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemDto<T> {
+
+    private Long id;
+    private Status status;
+    private T item;
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND // Does not exist, or the caller may not see it
+    }
+
+    /**
+     * One entry per requested ID, in request order (repeated IDs repeat their entry).
+     */
+    public static <E, T> List<BatchItemDto<T>> inRequestOrder(List<Long> ids, Map<Long, E> found, Function<E, T> toDto) {
+        return ids.stream()
+                .map(id -> {
+                    E entity = found.get(id);
+                    return entity != null
+                            ? new BatchItemDto<>(id, Status.FOUND, toDto.apply(entity))
+                            : new BatchItemDto<T>(id, Status.NOT_FOUND, null);
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,47 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transaction representation for {@code view=compact}: the wallet and customer are referenced
+ * by ID instead of being embedded in every element of a list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompactTransactionDto {
+    
+    private Long id;
+    private Long walletId;
+    private Long customerId;
+    private BigDecimal amount;
+    private Transaction.TransactionType type;
+    private Transaction.OppositePartyType oppositePartyType;
+    private String oppositeParty;
+    private Transaction.TransactionStatus status;
+    private LocalDateTime createdAt;
+    
+    // Convert from Entity; reads only the IDs of the wallet and customer
+    public static CompactTransactionDto fromEntity(Transaction transaction) {
+        Wallet wallet = transaction.getWallet();
+        return CompactTransactionDto.builder()
+                .id(transaction.getId())
+                .walletId(wallet != null ? wallet.getId() : null)
+                .customerId(wallet != null && wallet.getCustomer() != null ? wallet.getCustomer().getId() : null)
+                .amount(transaction.getAmount())
+                .type(transaction.getType())
+                .oppositePartyType(transaction.getOppositePartyType())
+                .oppositeParty(transaction.getOppositeParty())
+                .status(transaction.getStatus())
+                .createdAt(transaction.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Wallet;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.math.BigDecimal;
+
+/**
+ * Wallet representation for {@code view=compact}: the customer is referenced by ID.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompactWalletDto {
+    
+    private Long id;
+    private Long customerId;
+    private String walletName;
+    private Wallet.Currency currency;
+    private boolean activeForShopping;
+    private boolean activeForWithdraw;
+    private BigDecimal balance;
+    private BigDecimal usableBalance;
+    
+    // Convert from Entity; reads only the ID of the customer
+    public static CompactWalletDto fromEntity(Wallet wallet) {
+        return CompactWalletDto.builder()
+                .id(wallet.getId())
+                .customerId(wallet.getCustomer() != null ? wallet.getCustomer().getId() : null)
+                .walletName(wallet.getWalletName())
+                .currency(wallet.getCurrency())
+                .activeForShopping(wallet.isActiveForShopping())
+                .activeForWithdraw(wallet.isActiveForWithdraw())
+                .balance(wallet.getBalance())
+                .usableBalance(wallet.getUsableBalance())
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Wallet;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Everything the customer home screen shows, in one response. Sections that were not ready
+ * by the deadline are named in {@code unavailable} and left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CustomerDashboardDto {
+
+    public static final String CUSTOMER = "customer";
+    public static final String WALLETS = "wallets";
+    public static final String TRANSACTIONS = "transactions";
+    public static final String PENDING = "pending";
+
+    private CustomerDto customer;
+    private List<WalletSummary> wallets;
+    private List<CurrencyTotal> totals;
+    private List<String> unavailable;
+
+    /**
+     * One wallet with its latest transactions and pending amounts. The wallet is missing when
+     * the wallets section was unavailable, the others when their own section was.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class WalletSummary {
+        private Long walletId;
+        private CompactWalletDto wallet;
+        private List<CompactTransactionDto> latestTransactions;
+        private PendingSummary pending;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PendingSummary {
+        private long depositCount;
+        private BigDecimal depositAmount;
+        private long withdrawCount;
+        private BigDecimal withdrawAmount;
+    }
+
+    /**
+     * Sums over the customer's wallets in one currency; pending figures only when the pending
+     * section is available.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CurrencyTotal {
+        private Wallet.Currency currency;
+        private int walletCount;
+        private BigDecimal balance;
+        private BigDecimal usableBalance;
+        private Long pendingCount;
+        private BigDecimal pendingDepositAmount;
+        private BigDecimal pendingWithdrawAmount;
+    }
+}
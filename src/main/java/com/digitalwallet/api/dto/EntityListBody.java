@@ -0,0 +1,337 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A list response written from the entities straight to the response stream, without a DTO per
+ * item. The output is that of the {@link TransactionDto}, {@link WalletDto} or {@link CustomerDto}
+ * list it stands for, property for property, in every format the message converters write
+ * (JSON, CBOR, Smile). The compact view and sparse fieldsets of the list endpoints are set with
+ * {@link #withRepresentation(boolean, Set)} instead of mapping and filtering DTOs.
+ * <p>
+ * Everything written must be loaded, or loadable from a still open session, when the response
+ * is written.
+ */
+public final class EntityListBody<E> implements JsonSerializable {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString WALLET = new SerializedString("wallet");
+    private static final SerializableString WALLET_ID = new SerializedString("walletId");
+    private static final SerializableString CUSTOMER = new SerializedString("customer");
+    private static final SerializableString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString OPPOSITE_PARTY_TYPE = new SerializedString("oppositePartyType");
+    private static final SerializableString OPPOSITE_PARTY = new SerializedString("oppositeParty");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString WALLET_NAME = new SerializedString("walletName");
+    private static final SerializableString CURRENCY = new SerializedString("currency");
+    private static final SerializableString ACTIVE_FOR_SHOPPING = new SerializedString("activeForShopping");
+    private static final SerializableString ACTIVE_FOR_WITHDRAW = new SerializedString("activeForWithdraw");
+    private static final SerializableString BALANCE = new SerializedString("balance");
+    private static final SerializableString USABLE_BALANCE = new SerializedString("usableBalance");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString SURNAME = new SerializedString("surname");
+    private static final SerializableString TCKN = new SerializedString("tckn");
+
+    private final List<E> items;
+    private final ItemWriter<E> writer;
+    private final ItemWriter<E> compactWriter;
+    private final Set<String> fields;
+
+    private EntityListBody(List<E> items, ItemWriter<E> writer, ItemWriter<E> compactWriter, Set<String> fields) {
+        this.items = items;
+        this.writer = writer;
+        this.compactWriter = compactWriter;
+        this.fields = fields;
+    }
+
+    /**
+     * Written like a list of {@link TransactionDto}, or {@link CompactTransactionDto} in the compact view.
+     */
+    public static EntityListBody<Transaction> transactions(List<Transaction> transactions) {
+        return new EntityListBody<>(transactions, EntityListBody::writeTransaction, EntityListBody::writeCompactTransaction, null);
+    }
+
+    /**
+     * Written like a list of {@link WalletDto}, or {@link CompactWalletDto} in the compact view.
+     */
+    public static EntityListBody<Wallet> wallets(List<Wallet> wallets) {
+        return new EntityListBody<>(wallets, EntityListBody::writeWallet, EntityListBody::writeCompactWallet, null);
+    }
+
+    /**
+     * Written like a list of {@link CustomerDto}.
+     */
+    public static EntityListBody<Customer> customers(List<Customer> customers) {
+        return new EntityListBody<>(customers, EntityListBody::writeCustomer, EntityListBody::writeCustomer, null);
+    }
+
+    public List<E> getItems() {
+        return items;
+    }
+
+    /**
+     * The same items in the compact view, and/or with only the given top-level properties
+     * ({@code null} for all of them). Embedded objects are written whole.
+     */
+    public EntityListBody<E> withRepresentation(boolean compact, Set<String> fields) {
+        return new EntityListBody<>(items, compact ? compactWriter : writer, compactWriter, fields);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartArray(items, items.size());
+        for (E item : items) {
+            writer.write(item, gen, provider, fields);
+        }
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSerializer)
+            throws IOException {
+        WritableTypeId typeId = typeSerializer.writeTypePrefix(gen,
+                typeSerializer.typeId(this, JsonToken.START_ARRAY));
+        serialize(gen, provider);
+        typeSerializer.writeTypeSuffix(gen, typeId);
+    }
+
+    @FunctionalInterface
+    private interface ItemWriter<E> {
+        void write(E item, JsonGenerator gen, SerializerProvider provider, Set<String> fields) throws IOException;
+    }
+
+    private static void writeTransaction(Transaction transaction, JsonGenerator gen, SerializerProvider provider,
+                                         Set<String> fields) throws IOException {
+        gen.writeStartObject(transaction);
+        if (includes(fields, ID)) {
+            writeNumber(gen, ID, transaction.getId());
+        }
+        if (includes(fields, WALLET)) {
+            gen.writeFieldName(WALLET);
+            if (transaction.getWallet() != null) {
+                writeWallet(transaction.getWallet(), gen, provider, null);
+            } else {
+                gen.writeNull();
+            }
+        }
+        writeTransactionDetails(transaction, gen, provider, fields);
+        gen.writeEndObject();
+    }
+
+    private static void writeCompactTransaction(Transaction transaction, JsonGenerator gen, SerializerProvider provider,
+                                                Set<String> fields) throws IOException {
+        Wallet wallet = transaction.getWallet();
+        gen.writeStartObject(transaction);
+        if (includes(fields, ID)) {
+            writeNumber(gen, ID, transaction.getId());
+        }
+        if (includes(fields, WALLET_ID)) {
+            writeNumber(gen, WALLET_ID, wallet != null ? wallet.getId() : null);
+        }
+        if (includes(fields, CUSTOMER_ID)) {
+            writeNumber(gen, CUSTOMER_ID, wallet != null && wallet.getCustomer() != null ? wallet.getCustomer().getId() : null);
+        }
+        writeTransactionDetails(transaction, gen, provider, fields);
+        gen.writeEndObject();
+    }
+
+    private static void writeTransactionDetails(Transaction transaction, JsonGenerator gen, SerializerProvider provider,
+                                                Set<String> fields) throws IOException {
+        if (includes(fields, AMOUNT)) {
+            writeNumber(gen, AMOUNT, transaction.getAmount());
+        }
+        if (includes(fields, TYPE)) {
+            writeEnum(gen, TYPE, transaction.getType());
+        }
+        if (includes(fields, OPPOSITE_PARTY_TYPE)) {
+            writeEnum(gen, OPPOSITE_PARTY_TYPE, transaction.getOppositePartyType());
+        }
+        if (includes(fields, OPPOSITE_PARTY)) {
+            gen.writeFieldName(OPPOSITE_PARTY);
+            gen.writeString(transaction.getOppositeParty());
+        }
+        if (includes(fields, STATUS)) {
+            writeEnum(gen, STATUS, transaction.getStatus());
+        }
+        if (includes(fields, CREATED_AT)) {
+            gen.writeFieldName(CREATED_AT);
+            writeDateTime(gen, provider, transaction.getCreatedAt());
+        }
+    }
+
+    private static void writeWallet(Wallet wallet, JsonGenerator gen, SerializerProvider provider,
+                                    Set<String> fields) throws IOException {
+        gen.writeStartObject(wallet);
+        if (includes(fields, ID)) {
+            writeNumber(gen, ID, wallet.getId());
+        }
+        if (includes(fields, CUSTOMER)) {
+            gen.writeFieldName(CUSTOMER);
+            if (wallet.getCustomer() != null) {
+                writeCustomer(wallet.getCustomer(), gen, provider, null);
+            } else {
+                gen.writeNull();
+            }
+        }
+        writeWalletDetails(wallet, gen, fields);
+        gen.writeEndObject();
+    }
+
+    private static void writeCompactWallet(Wallet wallet, JsonGenerator gen, SerializerProvider provider,
+                                           Set<String> fields) throws IOException {
+        gen.writeStartObject(wallet);
+        if (includes(fields, ID)) {
+            writeNumber(gen, ID, wallet.getId());
+        }
+        if (includes(fields, CUSTOMER_ID)) {
+            writeNumber(gen, CUSTOMER_ID, wallet.getCustomer() != null ? wallet.getCustomer().getId() : null);
+        }
+        writeWalletDetails(wallet, gen, fields);
+        gen.writeEndObject();
+    }
+
+    private static void writeWalletDetails(Wallet wallet, JsonGenerator gen, Set<String> fields) throws IOException {
+        if (includes(fields, WALLET_NAME)) {
+            gen.writeFieldName(WALLET_NAME);
+            gen.writeString(wallet.getWalletName());
+        }
+        if (includes(fields, CURRENCY)) {
+            writeEnum(gen, CURRENCY, wallet.getCurrency());
+        }
+        if (includes(fields, ACTIVE_FOR_SHOPPING)) {
+            gen.writeFieldName(ACTIVE_FOR_SHOPPING);
+            gen.writeBoolean(wallet.isActiveForShopping());
+        }
+        if (includes(fields, ACTIVE_FOR_WITHDRAW)) {
+            gen.writeFieldName(ACTIVE_FOR_WITHDRAW);
+            gen.writeBoolean(wallet.isActiveForWithdraw());
+        }
+        if (includes(fields, BALANCE)) {
+            writeNumber(gen, BALANCE, wallet.getBalance());
+        }
+        if (includes(fields, USABLE_BALANCE)) {
+            writeNumber(gen, USABLE_BALANCE, wallet.getUsableBalance());
+        }
+    }
+
+    private static void writeCustomer(Customer customer, JsonGenerator gen, SerializerProvider provider,
+                                      Set<String> fields) throws IOException {
+        gen.writeStartObject(customer);
+        if (includes(fields, ID)) {
+            writeNumber(gen, ID, customer.getId());
+        }
+        if (includes(fields, NAME)) {
+            gen.writeFieldName(NAME);
+            gen.writeString(customer.getName());
+        }
+        if (includes(fields, SURNAME)) {
+            gen.writeFieldName(SURNAME);
+            gen.writeString(customer.getSurname());
+        }
+        if (includes(fields, TCKN)) {
+            gen.writeFieldName(TCKN);
+            gen.writeString(customer.getTckn());
+        }
+        gen.writeEndObject();
+    }
+
+    private static boolean includes(Set<String> fields, SerializableString name) {
+        return fields == null || fields.contains(name.getValue());
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value != null) {
+            gen.writeNumber(value);
+        } else {
+            gen.writeNull();
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, SerializableString name, BigDecimal value) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeNumber(value); // Writes null for null
+    }
+
+    /**
+     * ISO-8601 dates, the mapper's default, are written from a char buffer rather than a formatted
+     * string. Anything else (timestamps, a configured format, years outside 0-9999) goes through
+     * the mapper's own serializer.
+     */
+    private static void writeDateTime(JsonGenerator gen, SerializerProvider provider, LocalDateTime value)
+            throws IOException {
+        if (value == null || value.getYear() < 0 || value.getYear() > 9999 || !writesIsoDates(provider)) {
+            provider.defaultSerializeValue(value, gen);
+            return;
+        }
+        char[] buffer = new char[29]; // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+        digits(buffer, 0, value.getYear(), 4);
+        buffer[4] = '-';
+        digits(buffer, 5, value.getMonthValue(), 2);
+        buffer[7] = '-';
+        digits(buffer, 8, value.getDayOfMonth(), 2);
+        buffer[10] = 'T';
+        digits(buffer, 11, value.getHour(), 2);
+        buffer[13] = ':';
+        digits(buffer, 14, value.getMinute(), 2);
+        buffer[16] = ':';
+        digits(buffer, 17, value.getSecond(), 2);
+        int length = 19;
+        int nano = value.getNano();
+        if (nano != 0) {
+            // As DateTimeFormatter.ISO_LOCAL_DATE_TIME: no trailing zeros
+            buffer[19] = '.';
+            digits(buffer, 20, nano, 9);
+            length = 29;
+            while (buffer[length - 1] == '0') {
+                length--;
+            }
+        }
+        gen.writeString(buffer, 0, length);
+    }
+
+    private static boolean writesIsoDates(SerializerProvider provider) throws IOException {
+        JsonFormat.Value format = provider.getConfig().getDefaultPropertyFormat(LocalDateTime.class);
+        return !provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                && !format.hasPattern() && !format.hasShape()
+                && (Object) provider.findValueSerializer(LocalDateTime.class) == LocalDateTimeSerializer.INSTANCE;
+    }
+
+    private static void digits(char[] buffer, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static void writeEnum(JsonGenerator gen, SerializableString name, Enum<?> value) throws IOException {
+        gen.writeFieldName(name);
+        if (value != null) {
+            gen.writeString(value.name());
+        } else {
+            gen.writeNull();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.digitalwallet.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of a rejected request: a stable reason code and a readable message.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorDto {
+
+    private String code;
+    private String message;
+}
@@ -0,0 +1,31 @@
+package com.digitalwallet.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an asynchronously submitted deposit or withdrawal.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionSubmissionDto {
+
+    private String id;
+    private Status status;
+    private Long transactionId;
+    private String error;
+    private LocalDateTime submittedAt;
+
+    public enum Status {
+        QUEUED,    // Accepted, not processed yet
+        COMPLETED, // Transaction created; see transactionId
+        REJECTED,  // Failed validation when processed; see error
+        FAILED     // Could not be processed
+    }
+}
@@ -28,7 +28,7 @@ public class Customer {
     private String tckn; // Turkish Citizenship Number
     
     @Column(nullable = false)
-    private String password; // In production, this should be hashed
+    private String password; // BCrypt hash
     
     // Note: Customers don't have roles - they are all CUSTOMER by default
     // Employees are now a separate entity
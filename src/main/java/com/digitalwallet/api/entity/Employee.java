@@ -28,7 +28,7 @@ public class Employee {
     private String employeeId; // Unique employee identifier
     
     @Column(nullable = false)
-    private String password; // In production, this should be hashed
+    private String password; // BCrypt hash
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -43,6 +43,10 @@ public class Transaction {
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
+    // Set for transactions created from a queued submission, so a replayed submission is not created twice
+    @Column(unique = true, length = 36)
+    private String submissionId;
+    
     public enum TransactionType {
         DEPOSIT, WITHDRAW
     }
@@ -40,6 +40,11 @@ public class Wallet {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal usableBalance = BigDecimal.ZERO;
     
+    // Bumped on every balance change and every change to the wallet's transactions; backs the wallet ETags
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     public enum Currency {
         TRY, USD, EUR
     }
@@ -0,0 +1,13 @@
+package com.digitalwallet.api.event;
+
+import lombok.Value;
+
+/**
+ * Published when a customer or employee login account is updated or deleted,
+ * so anything cached for that username can be dropped.
+ */
+@Value
+public class AccountChangedEvent {
+
+    String username; // TCKN for customers, employeeId for employees
+}
@@ -0,0 +1,20 @@
+package com.digitalwallet.api.event;
+
+import com.digitalwallet.api.entity.Transaction;
+import lombok.Value;
+
+/**
+ * Published by TransactionService when a transaction is created, approved or denied.
+ * Listeners run inside the changing transaction, so the entity and its wallet can still be
+ * read; anything sent to clients should wait for the commit.
+ */
+@Value
+public class TransactionChangedEvent {
+
+    Transaction transaction;
+    Change change;
+
+    public enum Change {
+        CREATED, APPROVED, DENIED
+    }
+}
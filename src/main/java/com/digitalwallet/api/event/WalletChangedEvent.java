@@ -0,0 +1,14 @@
+package com.digitalwallet.api.event;
+
+import com.digitalwallet.api.entity.Wallet;
+import lombok.Value;
+
+/**
+ * Published by WalletService when a wallet's balance or status changes. Listeners run inside
+ * the changing transaction, like {@link TransactionChangedEvent}.
+ */
+@Value
+public class WalletChangedEvent {
+
+    Wallet wallet;
+}
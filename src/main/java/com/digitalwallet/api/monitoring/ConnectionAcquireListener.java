@@ -0,0 +1,37 @@
+package com.digitalwallet.api.monitoring;
+
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+
+import javax.sql.DataSource;
+
+/**
+ * JDBC listener that times {@link DataSource#getConnection()}, including any wait for the JDBC
+ * gate and the pool, for the wallet write path running on the current thread.
+ */
+public class ConnectionAcquireListener implements MethodExecutionListener {
+
+    private static final String STARTED = "connectionAcquireStarted";
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+        if (isGetConnection(executionContext) && WalletWriteScope.current() != null) {
+            executionContext.addCustomValue(STARTED, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        if (isGetConnection(executionContext)) {
+            Long started = executionContext.getCustomValue(STARTED, Long.class);
+            if (started != null) {
+                WalletWriteScope.connectionAcquired(System.nanoTime() - started);
+            }
+        }
+    }
+
+    private static boolean isGetConnection(MethodExecutionContext executionContext) {
+        return executionContext.getTarget() instanceof DataSource
+                && "getConnection".equals(executionContext.getMethod().getName());
+    }
+}
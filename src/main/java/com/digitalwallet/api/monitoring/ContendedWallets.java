@@ -0,0 +1,145 @@
+package com.digitalwallet.api.monitoring;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Row lock waits and write conflicts per wallet over the last one to two windows, to find the
+ * wallets writers queue on. Each wallet's figures are kept for the current window and the one
+ * before it; wallets not written for two windows are dropped, and at most max-wallets are kept.
+ */
+@Component
+public class ContendedWallets {
+
+    private final Cache<Long, Contention> wallets;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public ContendedWallets(@Value("${wallet.contention.window:1m}") Duration window,
+                            @Value("${wallet.contention.max-wallets:10000}") long maxWallets) {
+        this(window, maxWallets, System::nanoTime);
+    }
+
+    ContendedWallets(Duration window, long maxWallets, LongSupplier nanoClock) {
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.wallets = Caffeine.newBuilder()
+                .maximumSize(maxWallets)
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+    }
+
+    void lockWaited(Long walletId, long nanos) {
+        if (walletId != null) {
+            wallets.get(walletId, id -> new Contention(nanoClock.getAsLong())).lockWaited(nanoClock.getAsLong(), nanos);
+        }
+    }
+
+    void conflicted(Long walletId) {
+        if (walletId != null) {
+            wallets.get(walletId, id -> new Contention(nanoClock.getAsLong())).conflicted(nanoClock.getAsLong());
+        }
+    }
+
+    /**
+     * The wallets with the most time spent waiting for their row lock, then the most conflicts
+     */
+    public List<ContendedWallet> top(int limit) {
+        long now = nanoClock.getAsLong();
+        return wallets.asMap().entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey(), now))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(ContendedWallet::lockWaitMillis)
+                        .thenComparingLong(ContendedWallet::conflicts)
+                        .reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        wallets.invalidateAll();
+    }
+
+    /**
+     * Figures for the current and the previous window. Row locks and conflicts of one wallet
+     * already serialize its writers, so a monitor per wallet adds no contention of its own.
+     */
+    private final class Contention {
+
+        private long windowStart;
+        private Window current = new Window();
+        private Window previous = new Window();
+
+        private Contention(long now) {
+            this.windowStart = now;
+        }
+
+        synchronized void lockWaited(long now, long nanos) {
+            roll(now);
+            current.locks++;
+            current.lockWaitNanos += nanos;
+            current.maxLockWaitNanos = Math.max(current.maxLockWaitNanos, nanos);
+        }
+
+        synchronized void conflicted(long now) {
+            roll(now);
+            current.conflicts++;
+        }
+
+        synchronized ContendedWallet snapshot(Long walletId, long now) {
+            roll(now);
+            long locks = current.locks + previous.locks;
+            long conflicts = current.conflicts + previous.conflicts;
+            if (locks == 0 && conflicts == 0) {
+                return null;
+            }
+            return new ContendedWallet(walletId, locks, millis(current.lockWaitNanos + previous.lockWaitNanos),
+                    millis(Math.max(current.maxLockWaitNanos, previous.maxLockWaitNanos)), conflicts);
+        }
+
+        private void roll(long now) {
+            long elapsed = now - windowStart;
+            if (elapsed < windowNanos) {
+                return;
+            }
+            if (elapsed < 2 * windowNanos) {
+                previous = current;
+                windowStart += windowNanos;
+            } else {
+                previous = new Window();
+                windowStart = now;
+            }
+            current = new Window();
+        }
+    }
+
+    private static final class Window {
+        long locks;
+        long lockWaitNanos;
+        long maxLockWaitNanos;
+        long conflicts;
+    }
+
+    private static double millis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * One wallet over the last one to two windows. Lock waits include the locking query itself.
+     */
+    public record ContendedWallet(long walletId, long locks, double lockWaitMillis, double maxLockWaitMillis,
+                                  long conflicts) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.digitalwallet.api.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/contendedwallets}: the wallets whose writers waited longest for the wallet
+ * row lock ({@link ContendedWallets}), most contended first. {@code ?limit=} sets how many are
+ * listed (10 by default); {@code DELETE} starts over.
+ */
+@Component
+@Endpoint(id = "contendedwallets")
+public class ContendedWalletsEndpoint {
+
+    static final int DEFAULT_LIMIT = 10;
+
+    private final ContendedWallets contendedWallets;
+
+    public ContendedWalletsEndpoint(ContendedWallets contendedWallets) {
+        this.contendedWallets = contendedWallets;
+    }
+
+    @ReadOperation
+    public List<ContendedWallets.ContendedWallet> contendedWallets(@Nullable Integer limit) {
+        return contendedWallets.top(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        contendedWallets.reset();
+    }
+}
@@ -0,0 +1,112 @@
+package com.digitalwallet.api.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the transaction, wallet, customer, employee and auth services as
+ * {@code wallet.service}, tagged with the class, the method and the outcome:
+ * <ul>
+ *   <li>{@code success}</li>
+ *   <li>{@code rejected}: an {@link IllegalArgumentException}, including the domain exceptions</li>
+ *   <li>{@code error}: anything else</li>
+ * </ul>
+ * and counts the exceptions as {@code wallet.service.errors}, tagged with the class, the method
+ * and the exception's simple class name. Every tag comes from the code, not from arguments, so
+ * the number of series stays bounded. Runs outside the transaction, so commit time is included.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    public static final String TIMER = "wallet.service";
+    public static final String ERRORS = "wallet.service.errors";
+
+    static final String SUCCESS = "success";
+    static final String REJECTED = "rejected";
+    static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    // Meters are looked up once per method, not built on every call
+    private final Map<Method, Operation> operations = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * *(..)) && ("
+            + "within(com.digitalwallet.api.service.TransactionService)"
+            + " || within(com.digitalwallet.api.service.WalletService)"
+            + " || within(com.digitalwallet.api.service.CustomerService)"
+            + " || within(com.digitalwallet.api.service.EmployeeService)"
+            + " || within(com.digitalwallet.api.service.AuthService))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Operation operation = operations.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> new Operation(method.getDeclaringClass().getSimpleName(), method.getName()));
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            operation.timer(SUCCESS).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            boolean rejected = e instanceof IllegalArgumentException;
+            operation.timer(rejected ? REJECTED : ERROR).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            operation.errors.computeIfAbsent(e.getClass(), type -> Counter.builder(ERRORS)
+                    .description("Exceptions thrown by service methods")
+                    .tag("class", operation.className)
+                    .tag("method", operation.methodName)
+                    .tag("outcome", rejected ? REJECTED : ERROR)
+                    .tag("exception", type.getSimpleName())
+                    .register(meterRegistry)).increment();
+            throw e;
+        }
+    }
+
+    private final class Operation {
+
+        private final String className;
+        private final String methodName;
+        // Per outcome, registered when first seen so methods that never fail have no empty series
+        private final Map<String, Timer> timers = new ConcurrentHashMap<>(4);
+        private final Map<Class<?>, Counter> errors = new ConcurrentHashMap<>(4);
+
+        private Operation(String className, String methodName) {
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        private Timer timer(String outcome) {
+            return timers.computeIfAbsent(outcome, this::register);
+        }
+
+        private Timer register(String outcome) {
+            // Percentiles for the slowest operations view and dashboards; the histogram lets
+            // Prometheus aggregate them across instances
+            return Timer.builder(TIMER)
+                    .description("Time spent in service methods")
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        }
+    }
+}
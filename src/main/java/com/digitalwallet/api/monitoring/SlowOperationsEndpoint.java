@@ -0,0 +1,81 @@
+package com.digitalwallet.api.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@code /actuator/slowoperations}: the service operations ({@link ServiceMetricsAspect}) with the
+ * highest p99 latency over the recent percentile window, slowest first. {@code ?limit=} sets how
+ * many are listed (10 by default).
+ */
+@Component
+@Endpoint(id = "slowoperations")
+public class SlowOperationsEndpoint {
+
+    static final int DEFAULT_LIMIT = 10;
+
+    private final MeterRegistry meterRegistry;
+
+    public SlowOperationsEndpoint(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public List<SlowOperation> slowOperations(@Nullable Integer limit) {
+        return meterRegistry.find(ServiceMetricsAspect.TIMER).timers().stream()
+                .map(SlowOperationsEndpoint::toSlowOperation)
+                .filter(operation -> operation.count() > 0)
+                .sorted(Comparator.comparingDouble(SlowOperation::p99Millis)
+                        .thenComparingDouble(SlowOperation::maxMillis)
+                        .reversed())
+                .limit(limit != null && limit > 0 ? limit : DEFAULT_LIMIT)
+                .collect(Collectors.toList());
+    }
+
+    private static SlowOperation toSlowOperation(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            percentiles.put("p" + format(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return new SlowOperation(
+                timer.getId().getTag("class") + "." + timer.getId().getTag("method"),
+                timer.getId().getTag("outcome"),
+                snapshot.count(),
+                snapshot.mean(TimeUnit.MILLISECONDS),
+                snapshot.max(TimeUnit.MILLISECONDS),
+                percentiles);
+    }
+
+    /**
+     * 0.5 as 50, 0.999 as 999
+     */
+    private static String format(double percentile) {
+        String digits = String.valueOf(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+
+    /**
+     * Latencies in milliseconds. Count and mean cover all calls so far, max and percentiles the recent window.
+     */
+    public record SlowOperation(String operation, String outcome, long count, double meanMillis,
+                                double maxMillis, Map<String, Double> percentilesMillis) {
+
+        double p99Millis() {
+            return percentilesMillis.getOrDefault("p99", 0.0);
+        }
+    }
+}
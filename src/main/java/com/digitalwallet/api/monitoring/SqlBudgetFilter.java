@@ -0,0 +1,251 @@
+package com.digitalwallet.api.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts SQL statements and DB time for every HTTP request, reports them as
+ * {@code X-SQL-Count} / {@code X-DB-Time} response headers (set as the body starts, without
+ * buffering it) and per-endpoint metrics,
+ * and logs requests that go over the configured budget together with their SQL shapes.
+ * Actuator requests are left alone: they do not use the database, and a flight recording dump
+ * streams a large file that would only be slowed down by the counting response wrapper.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    public static final String SQL_COUNT_HEADER = "X-SQL-Count";
+    public static final String DB_TIME_HEADER = "X-DB-Time";
+
+    private static final String STREAM_PATH_SUFFIX = "/stream";
+    private static final String ACTUATOR_PATH_PREFIX = "/actuator/";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final long maxDbTimeMillis;
+
+    public SqlBudgetFilter(MeterRegistry meterRegistry,
+                           @Value("${wallet.sql-budget.max-statements:10}") int maxStatements,
+                           @Value("${wallet.sql-budget.max-db-time-ms:200}") long maxDbTimeMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxDbTimeMillis = maxDbTimeMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + ACTUATOR_PATH_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.open();
+        // Event streams are written from other threads long after the request thread has left
+        SqlHeaderResponse target = isEventStream(request) ? null : new SqlHeaderResponse(response, stats);
+        try {
+            filterChain.doFilter(request, target != null ? target : response);
+        } finally {
+            stats.close();
+            if (target != null) {
+                target.writeHeaders();
+            } else if (!response.isCommitted()) {
+                setHeaders(response, stats);
+            }
+            record(request, stats);
+        }
+    }
+
+    private static void setHeaders(HttpServletResponse response, SqlStatementStats stats) {
+        response.setHeader(SQL_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+        response.setHeader(DB_TIME_HEADER, String.format(Locale.ROOT, "%.3f", stats.getDbTimeMillis()));
+    }
+
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return request.getRequestURI().endsWith(STREAM_PATH_SUFFIX)
+                || (accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    private void record(HttpServletRequest request, SqlStatementStats stats) {
+        String uri = endpointOf(request);
+        String method = request.getMethod();
+
+        DistributionSummary.builder("wallet.http.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        Timer.builder("wallet.http.db.time")
+                .description("Time spent in JDBC per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getDbTimeNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getStatementCount() > maxStatements || stats.getDbTimeMillis() > maxDbTimeMillis) {
+            StringBuilder shapes = new StringBuilder();
+            stats.getShapes().forEach((shape, count) ->
+                    shapes.append(System.lineSeparator()).append("  ").append(count).append("x ").append(shape));
+            log.warn("SQL budget exceeded for {} {}: {} statements (budget {}), {} ms DB time (budget {} ms){}",
+                    method, uri, stats.getStatementCount(), maxStatements,
+                    String.format(Locale.ROOT, "%.3f", stats.getDbTimeMillis()), maxDbTimeMillis, shapes);
+        }
+    }
+
+    /**
+     * Use the matched handler pattern rather than the raw path so metric tags stay bounded.
+     */
+    private String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    /**
+     * Sets the headers just before the first byte of the body is written, or when the response
+     * is committed without one, so the body goes straight to the client instead of being
+     * buffered. Statements run while the body is written, such as lazy loads of a streamed
+     * list, are in the metrics and the budget check but not in the headers.
+     */
+    static final class SqlHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementStats stats;
+        private boolean written;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        SqlHeaderResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        void writeHeaders() {
+            if (!written) {
+                written = true;
+                if (!isCommitted()) {
+                    setHeaders((HttpServletResponse) getResponse(), stats);
+                }
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        writeHeaders();
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writeHeaders();
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        writeHeaders();
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        writeHeaders();
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                PrintWriter delegate = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] cbuf, int off, int len) {
+                        writeHeaders();
+                        delegate.write(cbuf, off, len);
+                    }
+
+                    @Override
+                    public void flush() {
+                        writeHeaders();
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() {
+                        writeHeaders();
+                        delegate.close();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.digitalwallet.api.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts every statement Hibernate prepares against the current {@link SqlStatementStats} scope.
+ * The SQL itself is passed through unchanged.
+ */
+@Component
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementStats.recordStatement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,117 @@
+package com.digitalwallet.api.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Statement count, DB time and SQL shapes collected for one unit of work
+ * (usually one HTTP request) on the current thread.
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    private static final int MAX_SHAPES = 50;
+    private static final int MAX_SHAPE_LENGTH = 240;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SqlStatementStats parent;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int statementCount;
+    private long dbTimeNanos;
+    private long queryStartedAt;
+
+    private SqlStatementStats(SqlStatementStats parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Start collecting on the current thread. Scopes nest: statements are
+     * also counted in any enclosing scope until {@link #close()} is called.
+     */
+    public static SqlStatementStats open() {
+        SqlStatementStats stats = new SqlStatementStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    public void close() {
+        if (parent != null) {
+            CURRENT.set(parent);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static void recordStatement(String sql) {
+        SqlStatementStats current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (SqlStatementStats stats = current; stats != null; stats = stats.parent) {
+            stats.statementCount++;
+            if (stats.shapes.size() < MAX_SHAPES || stats.shapes.containsKey(shape)) {
+                stats.shapes.merge(shape, 1, Integer::sum);
+            }
+        }
+    }
+
+    static void queryStarted() {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.queryStartedAt = System.nanoTime();
+        }
+    }
+
+    static void queryFinished() {
+        SqlStatementStats stats = CURRENT.get();
+        if (stats != null && stats.queryStartedAt != 0) {
+            long elapsed = System.nanoTime() - stats.queryStartedAt;
+            stats.queryStartedAt = 0;
+            for (SqlStatementStats s = stats; s != null; s = s.parent) {
+                s.dbTimeNanos += elapsed;
+            }
+        }
+    }
+
+    /**
+     * Normalize a statement to its shape: literals and IN-lists replaced with
+     * placeholders and whitespace collapsed, so repeated N+1 queries group together.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return shape.length() > MAX_SHAPE_LENGTH ? shape.substring(0, MAX_SHAPE_LENGTH) + "..." : shape;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getDbTimeNanos() {
+        return dbTimeNanos;
+    }
+
+    public double getDbTimeMillis() {
+        return dbTimeNanos / 1_000_000.0;
+    }
+
+    /**
+     * Distinct statement shapes with the number of times each was executed, in first-seen order.
+     */
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+}
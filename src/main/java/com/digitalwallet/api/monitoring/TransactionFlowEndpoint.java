@@ -0,0 +1,28 @@
+package com.digitalwallet.api.monitoring;
+
+import com.digitalwallet.api.service.TransactionFlow;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/transactionflow}: transactions created, approved and denied per second, the
+ * PENDING backlog by type and currency with its age distribution, and approval latency, all
+ * from {@link TransactionFlow}'s in-memory counters. A positive {@code backlogGrowthPerSecond}
+ * means approvals are falling behind intake.
+ */
+@Component
+@Endpoint(id = "transactionflow")
+public class TransactionFlowEndpoint {
+
+    private final TransactionFlow transactionFlow;
+
+    public TransactionFlowEndpoint(TransactionFlow transactionFlow) {
+        this.transactionFlow = transactionFlow;
+    }
+
+    @ReadOperation
+    public TransactionFlow.FlowSnapshot transactionFlow() {
+        return transactionFlow.snapshot();
+    }
+}
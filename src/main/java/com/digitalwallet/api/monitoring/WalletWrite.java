@@ -0,0 +1,22 @@
+package com.digitalwallet.api.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method as a wallet write path, measured by {@link WalletWriteMetrics} under
+ * the given name. A write path called from another one is measured as part of the caller.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WalletWrite {
+
+    /**
+     * The path's name, the {@code path} tag of its meters
+     */
+    String value();
+}
@@ -0,0 +1,179 @@
+package com.digitalwallet.api.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.StaleStateException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaks down the time of each {@link WalletWrite wallet write path}, tagged with its name as
+ * {@code path}:
+ * <ul>
+ *   <li>{@code wallet.write.transaction}: the whole call, commit included, by outcome
+ *       ({@code success}, {@code rejected}, {@code conflict} or {@code error})</li>
+ *   <li>{@code wallet.write.pool.acquire}: getting a connection, through the JDBC gate and the pool</li>
+ *   <li>{@code wallet.write.lock.wait}: locking the wallet row, waiting for other writers included</li>
+ *   <li>{@code wallet.write.conflicts}: writes that failed on an {@code optimistic} version check
+ *       or a {@code lock} timeout or deadlock, each one a write the client has to retry</li>
+ * </ul>
+ * Lock waits and conflicts are also kept per wallet in {@link ContendedWallets}, for each wallet
+ * a path locks, so a batch attributes them to all of its wallets. Runs inside
+ * {@link ServiceMetricsAspect} and outside the transaction.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class WalletWriteMetrics {
+
+    public static final String TRANSACTION = "wallet.write.transaction";
+    public static final String POOL_ACQUIRE = "wallet.write.pool.acquire";
+    public static final String LOCK_WAIT = "wallet.write.lock.wait";
+    public static final String CONFLICTS = "wallet.write.conflicts";
+
+    static final String SUCCESS = "success";
+    static final String REJECTED = "rejected";
+    static final String CONFLICT = "conflict";
+    static final String ERROR = "error";
+    static final String OPTIMISTIC = "optimistic";
+    static final String LOCK = "lock";
+
+    private final MeterRegistry meterRegistry;
+    private final ContendedWallets contendedWallets;
+    private final Map<String, Path> paths = new ConcurrentHashMap<>();
+
+    public WalletWriteMetrics(MeterRegistry meterRegistry, ContendedWallets contendedWallets) {
+        this.meterRegistry = meterRegistry;
+        this.contendedWallets = contendedWallets;
+    }
+
+    @Around("@annotation(write)")
+    public Object measure(ProceedingJoinPoint joinPoint, WalletWrite write) throws Throwable {
+        if (WalletWriteScope.current() != null) {
+            return joinPoint.proceed();
+        }
+        Path path = paths.computeIfAbsent(write.value(), Path::new);
+        WalletWriteScope scope = WalletWriteScope.open(path);
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            Object result = joinPoint.proceed();
+            outcome = SUCCESS;
+            return result;
+        } catch (Throwable e) {
+            String conflict = conflictOf(e);
+            if (conflict != null) {
+                outcome = CONFLICT;
+                path.conflicts(conflict).increment();
+                // The write of every wallet it locked failed, each of them in a batch
+                scope.walletIds().forEach(contendedWallets::conflicted);
+            } else if (e instanceof IllegalArgumentException) {
+                outcome = REJECTED;
+            }
+            throw e;
+        } finally {
+            scope.close();
+            path.transaction(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Around("execution(* com.digitalwallet.api.repository.WalletRepository.lockWithVersionIncrement(..)) && args(walletId)")
+    public Object measureLock(ProceedingJoinPoint joinPoint, Long walletId) throws Throwable {
+        WalletWriteScope scope = WalletWriteScope.current();
+        if (scope == null) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long waited = System.nanoTime() - start;
+            scope.path.lockWait().record(waited, TimeUnit.NANOSECONDS);
+            contendedWallets.lockWaited(walletId, waited);
+            scope.locked(walletId);
+        }
+    }
+
+    /**
+     * Spring translates these at the repository and on commit; the JPA and Hibernate ones may
+     * still arrive untranslated as a cause.
+     */
+    static String conflictOf(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockingFailureException || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return OPTIMISTIC;
+            }
+            if (cause instanceof PessimisticLockingFailureException || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException) {
+                return LOCK;
+            }
+        }
+        return null;
+    }
+
+    final class Path {
+
+        private final String name;
+        final Timer poolAcquire;
+        // Registered when first seen, like the outcomes and conflict types: not every path locks the row
+        private volatile Timer lockWait;
+        private final Map<String, Timer> transactions = new ConcurrentHashMap<>(4);
+        private final Map<String, Counter> conflicts = new ConcurrentHashMap<>(2);
+
+        private Path(String name) {
+            this.name = name;
+            this.poolAcquire = timer(POOL_ACQUIRE, "Time wallet writes spent getting a database connection")
+                    .register(meterRegistry);
+        }
+
+        private Timer lockWait() {
+            Timer timer = lockWait;
+            if (timer == null) {
+                // Registering twice returns the same timer, so a race is harmless
+                timer = timer(LOCK_WAIT, "Time wallet writes spent locking the wallet row").register(meterRegistry);
+                lockWait = timer;
+            }
+            return timer;
+        }
+
+        private Timer transaction(String outcome) {
+            return transactions.computeIfAbsent(outcome, key -> timer(TRANSACTION, "Time spent in wallet writes, commit included")
+                    .tag("outcome", key)
+                    .register(meterRegistry));
+        }
+
+        private Counter conflicts(String type) {
+            return conflicts.computeIfAbsent(type, key -> Counter.builder(CONFLICTS)
+                    .description("Wallet writes that failed on a version check, lock timeout or deadlock")
+                    .tag("path", name)
+                    .tag("type", key)
+                    .register(meterRegistry));
+        }
+
+        private Timer.Builder timer(String meter, String description) {
+            // Lock and pool waits are usually well under a millisecond
+            return Timer.builder(meter)
+                    .description(description)
+                    .tag("path", name)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofSeconds(30));
+        }
+    }
+}
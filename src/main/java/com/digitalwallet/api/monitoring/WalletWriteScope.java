@@ -0,0 +1,54 @@
+package com.digitalwallet.api.monitoring;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The wallet write path running on the current thread, so connection acquisition and row
+ * locks below it are attributed to it.
+ */
+final class WalletWriteScope {
+
+    private static final ThreadLocal<WalletWriteScope> CURRENT = new ThreadLocal<>();
+
+    final WalletWriteMetrics.Path path;
+    // The wallet rows locked, more than one for a batch
+    private Set<Long> walletIds;
+
+    private WalletWriteScope(WalletWriteMetrics.Path path) {
+        this.path = path;
+    }
+
+    static WalletWriteScope open(WalletWriteMetrics.Path path) {
+        WalletWriteScope scope = new WalletWriteScope(path);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static WalletWriteScope current() {
+        return CURRENT.get();
+    }
+
+    void locked(Long walletId) {
+        if (walletIds == null) {
+            walletIds = new HashSet<>(2);
+        }
+        walletIds.add(walletId);
+    }
+
+    Set<Long> walletIds() {
+        return walletIds != null ? walletIds : Set.of();
+    }
+
+    void close() {
+        CURRENT.remove();
+    }
+
+    static void connectionAcquired(long nanos) {
+        WalletWriteScope current = CURRENT.get();
+        if (current != null) {
+            current.path.poolAcquire.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.math.BigDecimal;
+
+@Name("com.digitalwallet.BalanceChanged")
+@Label("Balance Changed")
+@Description("A wallet balance set, added to or deducted from")
+public final class BalanceChangedEvent extends LedgerEvent {
+
+    public static final String SET = "set";
+    public static final String ADD = "add";
+    public static final String DEDUCT = "deduct";
+
+    @Label("Change")
+    @Description("set, add or deduct")
+    String change;
+
+    public BalanceChangedEvent(String change, Long walletId, BigDecimal amount) {
+        super(walletId, null, amount);
+        this.change = change;
+    }
+}
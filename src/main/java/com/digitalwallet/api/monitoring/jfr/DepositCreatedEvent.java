@@ -0,0 +1,17 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.math.BigDecimal;
+
+@Name("com.digitalwallet.DepositCreated")
+@Label("Deposit Created")
+@Description("A deposit transaction created (pending approval)")
+public final class DepositCreatedEvent extends LedgerEvent {
+
+    public DepositCreatedEvent(Long walletId, BigDecimal amount) {
+        super(walletId, null, amount);
+    }
+}
@@ -0,0 +1,156 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * {@code /actuator/jfr}: one Flight Recorder recording at a time, with the settings of
+ * {@code jfr/ledger.jfc} (the ledger events and some JVM context).
+ * <ul>
+ *   <li>{@code GET}: the recording's state</li>
+ *   <li>{@code POST}: start one, optionally with {@code duration} and {@code maxAge} (e.g. {@code 10m})</li>
+ *   <li>{@code DELETE}: stop it; it is kept to be dumped until the next one starts</li>
+ *   <li>{@code GET /actuator/jfr/dump}: the recorded data as a {@code .jfr} file, running or stopped</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    static final String SETTINGS = "jfr/ledger.jfc";
+    static final String DUMP = "dump";
+
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+    private static final long MAX_SIZE_BYTES = 256L * 1024 * 1024;
+
+    private Recording recording;
+
+    @ReadOperation
+    public synchronized RecordingStatus status() {
+        return RecordingStatus.of(recording);
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<RecordingStatus> start(@Nullable Duration duration, @Nullable Duration maxAge)
+            throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(RecordingStatus.of(recording), HttpStatus.CONFLICT.value());
+        }
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(settings());
+        recording.setName("ledger-" + Instant.now());
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge != null ? maxAge : DEFAULT_MAX_AGE);
+        recording.setMaxSize(MAX_SIZE_BYTES);
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        log.info("Started flight recording {}", recording.getName());
+        return new WebEndpointResponse<>(RecordingStatus.of(recording));
+    }
+
+    @DeleteOperation
+    public synchronized WebEndpointResponse<RecordingStatus> stop() {
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped flight recording {}", recording.getName());
+        }
+        return new WebEndpointResponse<>(RecordingStatus.of(recording));
+    }
+
+    @ReadOperation
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String action) throws IOException {
+        if (!DUMP.equals(action) || recording == null
+                || (recording.getState() != RecordingState.RUNNING && recording.getState() != RecordingState.STOPPED)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Files.createTempFile("ledger-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    private static Configuration settings() throws IOException, ParseException {
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS).getInputStream(), StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    public record RecordingStatus(String state, String name, Instant startTime, Duration maxAge, Long sizeBytes) {
+
+        static RecordingStatus of(@Nullable Recording recording) {
+            if (recording == null) {
+                return new RecordingStatus("NONE", null, null, null, null);
+            }
+            return new RecordingStatus(recording.getState().name(), recording.getName(), recording.getStartTime(),
+                    recording.getMaxAge(), recording.getSize());
+        }
+    }
+
+    /**
+     * The dump, deleted once it has been streamed. Not reported as a file, so it is read through
+     * {@link #getInputStream()} rather than copied from the path.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.service.DomainException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+/**
+ * A JDK Flight Recorder event for a ledger operation, timed by {@link #record(Supplier)}:
+ * <pre>
+ * return new DepositCreatedEvent(walletId, amount).record(() -> ...);
+ * </pre>
+ * Unless a recording enables the event, nothing is written and the amount bucket is not computed.
+ * The amount is only recorded as its order of magnitude.
+ */
+@Category({"Digital Wallet", "Ledger"})
+@StackTrace(false)
+public abstract class LedgerEvent extends Event {
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private static final BigDecimal[] BOUNDS = {
+            BigDecimal.ONE, BigDecimal.TEN, new BigDecimal(100), new BigDecimal(1_000),
+            new BigDecimal(10_000), new BigDecimal(100_000), new BigDecimal(1_000_000)};
+    private static final String[] BUCKETS = {"<1", "1-10", "10-100", "100-1K", "1K-10K", "10K-100K", "100K-1M"};
+
+    @Label("Wallet ID")
+    long walletId;
+
+    @Label("Transaction ID")
+    @Description("0 for balance changes made directly on the wallet")
+    long transactionId;
+
+    @Label("Amount")
+    @Description("Order of magnitude of the amount, e.g. 100-1K")
+    String amountBucket;
+
+    @Label("Outcome")
+    @Description("success, the reason code of a rejection (e.g. insufficient_balance), or error")
+    String outcome = ERROR;
+
+    private transient BigDecimal amount;
+
+    LedgerEvent(Long walletId, Long transactionId, BigDecimal amount) {
+        this.walletId = walletId != null ? walletId : 0L;
+        this.transactionId = transactionId != null ? transactionId : 0L;
+        this.amount = amount;
+    }
+
+    /**
+     * Run the operation as this event, with its outcome and the transaction or wallet it returned.
+     */
+    public <T> T record(Supplier<T> operation) {
+        begin();
+        try {
+            T result = operation.get();
+            if (result instanceof Transaction transaction) {
+                completed(transaction);
+            } else {
+                outcome = SUCCESS;
+            }
+            return result;
+        } catch (RuntimeException e) {
+            outcome = e instanceof DomainException domainException ? domainException.getCode() : ERROR;
+            throw e;
+        } finally {
+            if (shouldCommit()) {
+                amountBucket = bucketOf(amount);
+                commit();
+            }
+        }
+    }
+
+    private void completed(Transaction transaction) {
+        outcome = SUCCESS;
+        transactionId = transaction.getId() != null ? transaction.getId() : 0L;
+        if (transaction.getWallet() != null && transaction.getWallet().getId() != null) {
+            walletId = transaction.getWallet().getId();
+        }
+        amount = transaction.getAmount();
+    }
+
+    static String bucketOf(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        BigDecimal magnitude = amount.abs();
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (magnitude.compareTo(BOUNDS[i]) < 0) {
+                return BUCKETS[i];
+            }
+        }
+        return ">=1M";
+    }
+}
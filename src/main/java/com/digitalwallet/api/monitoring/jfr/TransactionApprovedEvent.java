@@ -0,0 +1,15 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.digitalwallet.TransactionApproved")
+@Label("Transaction Approved")
+@Description("A pending transaction approved and applied to the wallet balance")
+public final class TransactionApprovedEvent extends LedgerEvent {
+
+    public TransactionApprovedEvent(Long transactionId) {
+        super(null, transactionId, null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.digitalwallet.TransactionDenied")
+@Label("Transaction Denied")
+@Description("A pending transaction denied")
+public final class TransactionDeniedEvent extends LedgerEvent {
+
+    public TransactionDeniedEvent(Long transactionId) {
+        super(null, transactionId, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.math.BigDecimal;
+
+@Name("com.digitalwallet.WithdrawalCreated")
+@Label("Withdrawal Created")
+@Description("A withdrawal transaction created (pending approval)")
+public final class WithdrawalCreatedEvent extends LedgerEvent {
+
+    public WithdrawalCreatedEvent(Long walletId, BigDecimal amount) {
+        super(walletId, null, amount);
+    }
+}
@@ -0,0 +1,154 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decides which requests are traced and keeps the finished traces: the latest
+ * {@code wallet.tracing.max-traces} in memory for {@link TracesEndpoint}, and every one in
+ * {@code wallet.tracing.file} if set. A request under {@code wallet.tracing.paths} is traced
+ * with probability {@code wallet.tracing.sample-rate}, which can also be changed at runtime.
+ * Traces faster than {@code wallet.tracing.min-duration} are not kept.
+ */
+@Component
+@Slf4j
+public class RequestTracer {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> paths;
+    private final double minDurationMillis;
+    private final int maxTraces;
+    private final int maxSpans;
+    private final TraceFileExporter exporter;
+    private final Deque<Trace> traces = new ArrayDeque<>(); // Latest last, guarded by this
+    private volatile double sampleRate;
+
+    public RequestTracer(@Value("${wallet.tracing.sample-rate:0.01}") double sampleRate,
+                         @Value("${wallet.tracing.paths:/api/**}") List<String> paths,
+                         @Value("${wallet.tracing.min-duration:0ms}") Duration minDuration,
+                         @Value("${wallet.tracing.max-traces:200}") int maxTraces,
+                         @Value("${wallet.tracing.max-spans:256}") int maxSpans,
+                         @Value("${wallet.tracing.file:}") String file,
+                         @Value("${wallet.tracing.file-max-size:64MB}") DataSize fileMaxSize,
+                         ObjectMapper objectMapper,
+                         WorkerThreads workerThreads) throws IOException {
+        setSampleRate(sampleRate);
+        this.paths = paths;
+        this.minDurationMillis = minDuration.toNanos() / 1_000_000.0;
+        this.maxTraces = maxTraces;
+        this.maxSpans = maxSpans;
+        this.exporter = file.isBlank() ? null : new TraceFileExporter(Path.of(file), fileMaxSize.toBytes(),
+                objectMapper, workerThreads.taskExecutor("trace-export-", 1, 1000));
+        if (exporter != null) {
+            log.info("Writing sampled request traces to {}", exporter.getFile());
+        }
+    }
+
+    /**
+     * Start a trace on the current thread if the request is sampled, otherwise {@code null}.
+     */
+    TraceRecorder start(String path) {
+        double rate = sampleRate;
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate || !traced(path)) {
+            return null;
+        }
+        return TraceRecorder.start(String.format(Locale.ROOT, "%016x", ThreadLocalRandom.current().nextLong()), maxSpans);
+    }
+
+    void finished(Trace trace) {
+        if (trace.durationMillis() < minDurationMillis) {
+            return;
+        }
+        synchronized (this) {
+            traces.addLast(trace);
+            while (traces.size() > maxTraces) {
+                traces.removeFirst();
+            }
+        }
+        if (exporter != null) {
+            exporter.export(trace);
+        }
+    }
+
+    /**
+     * The kept traces, latest first, with {@code uri} containing {@code uriPart} if given and
+     * taking at least {@code minMillis}.
+     */
+    public List<Trace> recent(String uriPart, double minMillis, int limit) {
+        List<Trace> kept;
+        synchronized (this) {
+            kept = List.copyOf(traces);
+        }
+        return Stream.iterate(kept.size() - 1, i -> i >= 0, i -> i - 1)
+                .map(kept::get)
+                .filter(trace -> uriPart == null || trace.uri().contains(uriPart))
+                .filter(trace -> trace.durationMillis() >= minMillis)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized Trace find(String traceId) {
+        return traces.stream().filter(trace -> trace.traceId().equals(traceId)).findFirst().orElse(null);
+    }
+
+    public synchronized void clear() {
+        traces.clear();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public String getFile() {
+        return exporter != null ? exporter.getFile().toString() : null;
+    }
+
+    /**
+     * Traces that could not be queued for the file.
+     */
+    public long getExportDropped() {
+        return exporter != null ? exporter.getDropped() : 0;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (exporter != null) {
+            exporter.close();
+        }
+    }
+
+    private boolean traced(String path) {
+        for (String pattern : paths) {
+            if (pathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
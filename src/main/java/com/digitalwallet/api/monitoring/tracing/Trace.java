@@ -0,0 +1,39 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One traced HTTP request: its spans in the order they started, the request itself first.
+ * Times are in milliseconds, span starts relative to the start of the request.
+ */
+public record Trace(String traceId, Instant startedAt, String method, String uri, int status,
+                    double durationMillis, int sqlStatements, double dbTimeMillis, int droppedSpans,
+                    List<Span> spans) {
+
+    /**
+     * {@code selfMillis} is the span's duration minus that of its child spans: the time spent in
+     * the span's own code, in SQL it ran directly, or in calls that are not traced.
+     * {@code sqlStatements} and {@code dbTimeMillis} include the child spans.
+     */
+    public record Span(int id, Integer parentId, String kind, String name, double startMillis,
+                       double durationMillis, double selfMillis, int sqlStatements, double dbTimeMillis,
+                       Map<String, Object> attributes, String error) {
+    }
+
+    /**
+     * The trace without its spans, but with the span that spent the most time in itself.
+     */
+    public record Summary(String traceId, Instant startedAt, String method, String uri, int status,
+                          double durationMillis, int sqlStatements, double dbTimeMillis, int spans,
+                          String slowestSpan, double slowestSpanSelfMillis) {
+    }
+
+    Summary summary() {
+        Span slowest = spans.stream().max(Comparator.comparingDouble(Span::selfMillis)).orElse(null);
+        return new Summary(traceId, startedAt, method, uri, status, durationMillis, sqlStatements, dbTimeMillis,
+                spans.size(), slowest != null ? slowest.name() : null, slowest != null ? slowest.selfMillis() : 0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends traces to a file as JSON lines, off the request thread. Traces that do not fit in the
+ * executor's queue are dropped and counted. Once the file reaches {@code maxSize} it is moved to
+ * {@code <file>.1}, replacing the previous one, and a new file is started.
+ * <p>
+ * The lock is a {@link ReentrantLock} rather than a monitor because it is held across file
+ * writes, which would pin a virtual thread to its carrier.
+ */
+@Slf4j
+class TraceFileExporter implements Closeable {
+
+    private final Path file;
+    private final long maxSize;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong dropped = new AtomicLong();
+    private OutputStream out; // Guarded by lock
+    private long size; // Guarded by lock
+
+    TraceFileExporter(Path file, long maxSize, ObjectMapper objectMapper, Executor executor) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.maxSize = maxSize;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        Files.createDirectories(this.file.getParent());
+        this.out = open();
+    }
+
+    void export(Trace trace) {
+        try {
+            executor.execute(() -> write(trace));
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private void write(Trace trace) {
+        lock.lock();
+        try {
+            if (out == null) {
+                return;
+            }
+            byte[] line = objectMapper.writeValueAsBytes(trace);
+            if (size > 0 && size + line.length + 1 > maxSize) {
+                rotate();
+            }
+            out.write(line);
+            out.write('\n');
+            // Flushed per trace so the file can be followed while it is written
+            out.flush();
+            size += line.length + 1;
+        } catch (IOException e) {
+            log.warn("Could not write trace {} to {}: {}", trace.traceId(), file, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        out = open();
+    }
+
+    private OutputStream open() throws IOException {
+        size = Files.exists(file) ? Files.size(file) : 0;
+        return new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Traces already queued are still written
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
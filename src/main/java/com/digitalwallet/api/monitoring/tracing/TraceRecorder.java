@@ -0,0 +1,143 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import com.digitalwallet.api.monitoring.SqlStatementStats;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The trace being recorded on the current thread. Spans nest like the calls they stand for;
+ * work handed to other threads is not part of the trace. SQL statements and DB time of a span
+ * are read from the enclosing {@link SqlStatementStats} scope when it opens and closes.
+ */
+final class TraceRecorder {
+
+    private static final ThreadLocal<TraceRecorder> CURRENT = new ThreadLocal<>();
+
+    static final String HTTP = "http";
+    static final String CONTROLLER = "controller";
+    static final String SERVICE = "service";
+    static final String REPOSITORY = "repository";
+
+    final String traceId;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final int maxSpans;
+    private final List<ActiveSpan> spans = new ArrayList<>();
+    private final ActiveSpan root;
+    private ActiveSpan current;
+    private int dropped;
+
+    private TraceRecorder(String traceId, int maxSpans) {
+        this.traceId = traceId;
+        this.maxSpans = maxSpans;
+        this.root = open(HTTP, HTTP);
+    }
+
+    /**
+     * Start recording on the current thread, with the request as the root span.
+     */
+    static TraceRecorder start(String traceId, int maxSpans) {
+        TraceRecorder recorder = new TraceRecorder(traceId, maxSpans);
+        CURRENT.set(recorder);
+        return recorder;
+    }
+
+    static TraceRecorder current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Open a span under the innermost open one, or {@code null} once the trace has
+     * {@code maxSpans} spans: a loop of repository calls must not grow it without bound.
+     */
+    ActiveSpan open(String kind, String name) {
+        if (spans.size() >= maxSpans) {
+            dropped++;
+            return null;
+        }
+        ActiveSpan span = new ActiveSpan(spans.size(), current, kind, name);
+        spans.add(span);
+        current = span;
+        return span;
+    }
+
+    void close(ActiveSpan span, Throwable error) {
+        span.durationNanos = System.nanoTime() - span.startNanos;
+        if (span.stats != null) {
+            span.sqlStatements = span.stats.getStatementCount() - span.statementsAtStart;
+            span.dbTimeNanos = span.stats.getDbTimeNanos() - span.dbTimeAtStart;
+        }
+        if (error != null) {
+            span.error = error.getClass().getSimpleName();
+        }
+        if (span.parent != null) {
+            span.parent.childNanos += span.durationNanos;
+        }
+        current = span.parent;
+    }
+
+    /**
+     * Close the root span, stop recording on this thread and return the trace.
+     */
+    Trace finish(String method, String uri, int status, Throwable error) {
+        CURRENT.remove();
+        root.name = method + " " + uri;
+        root.attributes.put("http.status", status);
+        close(root, error);
+        List<Trace.Span> finished = new ArrayList<>(spans.size());
+        for (ActiveSpan span : spans) {
+            finished.add(span.finish(startNanos));
+        }
+        return new Trace(traceId, startedAt, method, uri, status, millis(root.durationNanos), root.sqlStatements,
+                millis(root.dbTimeNanos), dropped, finished);
+    }
+
+    ActiveSpan root() {
+        return root;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    static final class ActiveSpan {
+
+        private final int id;
+        private final ActiveSpan parent;
+        private final String kind;
+        private String name;
+        private final long startNanos = System.nanoTime();
+        private final SqlStatementStats stats = SqlStatementStats.current();
+        private final int statementsAtStart;
+        private final long dbTimeAtStart;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private long durationNanos;
+        private long childNanos;
+        private int sqlStatements;
+        private long dbTimeNanos;
+        private String error;
+
+        private ActiveSpan(int id, ActiveSpan parent, String kind, String name) {
+            this.id = id;
+            this.parent = parent;
+            this.kind = kind;
+            this.name = name;
+            this.statementsAtStart = stats != null ? stats.getStatementCount() : 0;
+            this.dbTimeAtStart = stats != null ? stats.getDbTimeNanos() : 0;
+        }
+
+        void attribute(String key, Object value) {
+            attributes.put(key, value);
+        }
+
+        private Trace.Span finish(long traceStartNanos) {
+            return new Trace.Span(id, parent != null ? parent.id : null, kind, name, millis(startNanos - traceStartNanos),
+                    millis(durationNanos), millis(durationNanos - childNanos), sqlStatements, millis(dbTimeNanos),
+                    attributes, error);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@code /actuator/traces}: the kept request traces ({@link RequestTracer}), latest first.
+ * <ul>
+ *   <li>{@code GET ?uri=&minMillis=&limit=}: summaries of the traces whose URI pattern contains
+ *       {@code uri} and that took at least {@code minMillis}, at most {@code limit} (20 by default)</li>
+ *   <li>{@code GET /{traceId}}: one trace with all its spans</li>
+ *   <li>{@code POST {"sampleRate": 0.5}}: change the sample rate until the next restart</li>
+ *   <li>{@code DELETE}: forget the kept traces</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    static final int DEFAULT_LIMIT = 20;
+
+    private final RequestTracer requestTracer;
+
+    public TracesEndpoint(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    @ReadOperation
+    public TracesReport traces(@Nullable String uri, @Nullable Double minMillis, @Nullable Integer limit) {
+        List<Trace.Summary> traces = requestTracer.recent(uri, minMillis != null ? minMillis : 0,
+                        limit != null && limit > 0 ? limit : DEFAULT_LIMIT).stream()
+                .map(Trace::summary)
+                .collect(Collectors.toList());
+        return report(traces);
+    }
+
+    @ReadOperation
+    public Trace trace(@Selector String traceId) {
+        return requestTracer.find(traceId);
+    }
+
+    @WriteOperation
+    public TracesReport sampleRate(double sampleRate) {
+        try {
+            requestTracer.setSampleRate(sampleRate);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return report(List.of());
+    }
+
+    @DeleteOperation
+    public void clear() {
+        requestTracer.clear();
+    }
+
+    private TracesReport report(List<Trace.Summary> traces) {
+        return new TracesReport(requestTracer.getSampleRate(), requestTracer.getFile(), requestTracer.getExportDropped(), traces);
+    }
+
+    public record TracesReport(double sampleRate, String file, long exportDropped, List<Trace.Summary> traces) {
+    }
+}
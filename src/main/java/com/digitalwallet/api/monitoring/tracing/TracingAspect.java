@@ -0,0 +1,172 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import com.digitalwallet.api.dto.EntityListBody;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds a span for every controller handler, service method and repository call made while a
+ * trace is recorded on the current thread, named after the class and method. Span attributes:
+ * <ul>
+ *   <li>id arguments by parameter name ({@code id}, {@code walletId}, {@code customerId}, ...)</li>
+ *   <li>{@code <name>.size} for id list arguments ({@code ids}, {@code walletIds}, ...)</li>
+ *   <li>{@code result.size} for lists, pages, optionals and list responses</li>
+ * </ul>
+ * Without a trace it only looks up the current one. Runs inside {@code ServiceMetricsAspect}
+ * and outside the transaction, so commit time is part of the service span.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TracingAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.digitalwallet.api.repository";
+
+    // Spans are described once per method, and repositories once per repository, not on every call
+    private final Map<Method, Operation> operations = new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> repositories = new ConcurrentHashMap<>();
+
+    @Around("within(com.digitalwallet.api.controller..*)"
+            + " && @within(org.springframework.web.bind.annotation.RestController)"
+            + " && execution(public * *(..))")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, TraceRecorder.CONTROLLER);
+    }
+
+    @Around("within(com.digitalwallet.api.service..*)"
+            + " && @within(org.springframework.stereotype.Service)"
+            + " && execution(public * *(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, TraceRecorder.SERVICE);
+    }
+
+    @Around("execution(public * org.springframework.data.repository.Repository+.*(..))")
+    public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, TraceRecorder.REPOSITORY);
+    }
+
+    private Object trace(ProceedingJoinPoint joinPoint, String kind) throws Throwable {
+        TraceRecorder recorder = TraceRecorder.current();
+        if (recorder == null) {
+            return joinPoint.proceed();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Operation operation = operations.computeIfAbsent(signature.getMethod(),
+                method -> new Operation(method, signature.getParameterNames()));
+        String name = TraceRecorder.REPOSITORY.equals(kind)
+                ? repositoryOf(joinPoint.getThis().getClass()) + "." + operation.methodName
+                : operation.className + "." + operation.methodName;
+        TraceRecorder.ActiveSpan span = recorder.open(kind, name);
+        if (span == null) {
+            return joinPoint.proceed();
+        }
+        operation.describeArguments(span, joinPoint.getArgs());
+        Throwable error = null;
+        try {
+            Object result = joinPoint.proceed();
+            Integer size = sizeOf(result);
+            if (size != null) {
+                span.attribute("result.size", size);
+            }
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            recorder.close(span, error);
+        }
+    }
+
+    /**
+     * Inherited methods such as {@code save} are declared by Spring Data, so the repository is
+     * taken from the interfaces of the proxy.
+     */
+    private String repositoryOf(Class<?> proxyClass) {
+        return repositories.computeIfAbsent(proxyClass, type -> {
+            for (Class<?> candidate : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+                if (Repository.class.isAssignableFrom(candidate) && candidate.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+
+    static Integer sizeOf(Object result) {
+        Object value = result instanceof ResponseEntity<?> response ? response.getBody() : result;
+        if (value instanceof EntityListBody<?> body) {
+            return body.getItems().size();
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (value instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (value != null && value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        return null;
+    }
+
+    private static final class Operation {
+
+        private final String className;
+        private final String methodName;
+        private final List<Argument> arguments = new ArrayList<>();
+
+        private Operation(Method method, String[] parameterNames) {
+            this.className = method.getDeclaringClass().getSimpleName();
+            this.methodName = method.getName();
+            for (int i = 0; parameterNames != null && i < parameterNames.length; i++) {
+                String parameter = parameterNames[i];
+                if (parameter.equals("id") || parameter.endsWith("Id")) {
+                    arguments.add(new Argument(i, parameter, false));
+                } else if (parameter.equals("ids") || parameter.endsWith("Ids")) {
+                    arguments.add(new Argument(i, parameter + ".size", true));
+                }
+            }
+        }
+
+        private void describeArguments(TraceRecorder.ActiveSpan span, Object[] args) {
+            for (Argument argument : arguments) {
+                Object value = args[argument.index];
+                if (argument.size) {
+                    Integer size = sizeOf(value);
+                    if (size != null) {
+                        span.attribute(argument.attribute, size);
+                    }
+                } else if (value instanceof Number || value instanceof String) {
+                    span.attribute(argument.attribute, value);
+                }
+            }
+        }
+    }
+
+    private record Argument(int index, String attribute, boolean size) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records sampled requests as the root span of a trace and returns the trace id as
+ * {@code X-Trace-Id}. Runs inside {@code SqlBudgetFilter}, so the request's SQL statements are
+ * counted in its spans.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 11)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final RequestTracer requestTracer;
+
+    public TracingFilter(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        TraceRecorder recorder = requestTracer.start(path);
+        if (recorder == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(RequestTracer.TRACE_ID_HEADER, recorder.traceId);
+        recorder.root().attribute("http.path", path);
+        Throwable error = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            requestTracer.finished(recorder.finish(request.getMethod(), pattern != null ? pattern.toString() : path,
+                    response.getStatus(), error));
+        }
+    }
+}
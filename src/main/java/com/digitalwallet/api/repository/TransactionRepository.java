@@ -1,41 +1,141 @@
 package com.digitalwallet.api.repository;
 
 import com.digitalwallet.api.entity.Transaction;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Read queries fetch the wallet and its customer in the same statement, since every
+ * TransactionDto includes both.
+ */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
+    /**
+     * Find all transactions
+     */
+    @Override
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findAll();
+    
+    /**
+     * Find transaction by ID with its wallet and customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    Optional<Transaction> findWithWalletById(Long id);
+    
+    /**
+     * Find transaction by ID only if it belongs to the given customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    Optional<Transaction> findByIdAndWalletCustomerId(Long id, Long customerId);
+    
+    /**
+     * Find transactions by IDs
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findByIdIn(Collection<Long> ids);
+    
+    /**
+     * Find those of the transactions that belong to the given customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findByIdInAndWalletCustomerId(Collection<Long> ids, Long customerId);
+    
     /**
      * Find transactions by wallet ID
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByWalletId(Long walletId);
     
+    /**
+     * Find transactions by wallet ID only if the wallet belongs to the given customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findByWalletIdAndWalletCustomerId(Long walletId, Long customerId);
+    
     /**
      * Find transactions by wallet ID and status
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByWalletIdAndStatus(Long walletId, Transaction.TransactionStatus status);
     
+    /**
+     * Find transactions by wallet ID and status only if the wallet belongs to the given customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findByWalletIdAndWalletCustomerIdAndStatus(Long walletId, Long customerId, Transaction.TransactionStatus status);
+    
     /**
      * Find transactions by status
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByStatus(Transaction.TransactionStatus status);
     
     /**
      * Find transactions by type
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByType(Transaction.TransactionType type);
     
     /**
      * Find transactions by wallet ID and type
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByWalletIdAndType(Long walletId, Transaction.TransactionType type);
     
+    /**
+     * Find transactions by wallet ID and type only if the wallet belongs to the given customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    List<Transaction> findByWalletIdAndWalletCustomerIdAndType(Long walletId, Long customerId, Transaction.TransactionType type);
+    
     /**
      * Find transactions by customer ID (through wallet)
      */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
     List<Transaction> findByWalletCustomerId(Long customerId);
-} 
\ No newline at end of file
+    
+    /**
+     * Find the transactions already created for the given submissions
+     */
+    List<Transaction> findBySubmissionIdIn(Collection<String> submissionIds);
+    
+    /**
+     * Find the transaction created for a submission, with its wallet and customer
+     */
+    @EntityGraph(attributePaths = {"wallet", "wallet.customer"})
+    Optional<Transaction> findBySubmissionId(String submissionId);
+    
+    /**
+     * Find the latest transactions of each of the customer's wallets, at most {@code limit} per
+     * wallet, newest first within a wallet
+     */
+    @Query("select t from Transaction t join fetch t.wallet w"
+            + " where t.id in (select r.id from ("
+            + "select l.id as id, row_number() over (partition by l.wallet.id order by l.createdAt desc, l.id desc) as rank"
+            + " from Transaction l where l.wallet.customer.id = :customerId) r where r.rank <= :limit)"
+            + " order by w.id, t.createdAt desc, t.id desc")
+    List<Transaction> findLatestPerWalletByCustomerId(@Param("customerId") Long customerId, @Param("limit") int limit);
+    
+    /**
+     * Count and sum the customer's transactions in a status as (walletId, type, count, amount) rows
+     */
+    @Query("select t.wallet.id, t.type, count(t), sum(t.amount) from Transaction t"
+            + " where t.wallet.customer.id = :customerId and t.status = :status group by t.wallet.id, t.type")
+    List<Object[]> summarizeByCustomerIdAndStatus(@Param("customerId") Long customerId,
+                                                  @Param("status") Transaction.TransactionStatus status);
+    
+    /**
+     * Find every transaction in a status as (id, type, wallet currency, createdAt) rows
+     */
+    @Query("select t.id, t.type, t.wallet.currency, t.createdAt from Transaction t where t.status = :status")
+    List<Object[]> findFlowEntriesByStatus(@Param("status") Transaction.TransactionStatus status);
+}
@@ -0,0 +1,28 @@
+package com.digitalwallet.api.repository;
+
+import com.digitalwallet.api.entity.Wallet;
+
+import java.util.Optional;
+
+/**
+ * Locking of a wallet row for changes that do not touch the row itself (its transactions, its
+ * customer).
+ */
+public interface WalletLocking {
+
+    /**
+     * Bump the version of a wallet in one statement, then read the wallet as of that update. The row
+     * stays locked until commit, so writers to the same wallet queue here.
+     *
+     * @return the wallet, or empty if there is no such wallet
+     */
+    Optional<Wallet> lockWithVersionIncrement(Long walletId);
+
+    /**
+     * Bump the version of every wallet of a customer, whose details are part of the wallet's
+     * representation. Wallets already loaded in this transaction are read again.
+     *
+     * @return the number of wallets
+     */
+    int incrementVersionsOfCustomer(Long customerId);
+}
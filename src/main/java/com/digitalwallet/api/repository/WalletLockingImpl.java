@@ -0,0 +1,55 @@
+package com.digitalwallet.api.repository;
+
+import com.digitalwallet.api.entity.Wallet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+
+import java.util.List;
+import java.util.Optional;
+
+class WalletLockingImpl implements WalletLocking {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Wallet> lockWithVersionIncrement(Long walletId) {
+        // Pending changes are flushed first, so the update sees them
+        int updated = entityManager.createQuery("update Wallet w set w.version = w.version + 1 where w.id = :walletId")
+                .setParameter("walletId", walletId)
+                .executeUpdate();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+
+        Wallet wallet = entityManager.getReference(Wallet.class, walletId);
+        if (Hibernate.isInitialized(wallet)) {
+            // Loaded earlier in this transaction, so one version behind the row
+            entityManager.refresh(wallet);
+        } else {
+            Hibernate.initialize(wallet);
+        }
+        return Optional.of(wallet);
+    }
+
+    @Override
+    public int incrementVersionsOfCustomer(Long customerId) {
+        List<Long> walletIds = entityManager.createQuery("select w.id from Wallet w where w.customer.id = :customerId", Long.class)
+                .setParameter("customerId", customerId)
+                .getResultList();
+        if (walletIds.isEmpty()) {
+            return 0;
+        }
+        int updated = entityManager.createQuery("update Wallet w set w.version = w.version + 1 where w.id in :walletIds")
+                .setParameter("walletIds", walletIds)
+                .executeUpdate();
+        for (Long walletId : walletIds) {
+            Wallet wallet = entityManager.getReference(Wallet.class, walletId);
+            if (Hibernate.isInitialized(wallet)) {
+                entityManager.refresh(wallet);
+            }
+        }
+        return updated;
+    }
+}
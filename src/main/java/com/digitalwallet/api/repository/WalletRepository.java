@@ -1,36 +1,95 @@
 package com.digitalwallet.api.repository;
 
 import com.digitalwallet.api.entity.Wallet;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface WalletRepository extends JpaRepository<Wallet, Long> {
+public interface WalletRepository extends JpaRepository<Wallet, Long>, WalletLocking {
+    
+    /**
+     * Find all wallets with their customers
+     */
+    @Override
+    @EntityGraph(attributePaths = "customer")
+    List<Wallet> findAll();
+    
+    /**
+     * Find wallet by ID with its customer
+     */
+    @EntityGraph(attributePaths = "customer")
+    Optional<Wallet> findWithCustomerById(Long id);
+    
+    /**
+     * Find wallet by ID only if it belongs to the given customer
+     */
+    @EntityGraph(attributePaths = "customer")
+    Optional<Wallet> findByIdAndCustomerId(Long id, Long customerId);
+    
+    /**
+     * Find wallets by IDs with their customers
+     */
+    @EntityGraph(attributePaths = "customer")
+    List<Wallet> findByIdIn(Collection<Long> ids);
+    
+    /**
+     * Find those of the wallets that belong to the given customer
+     */
+    @EntityGraph(attributePaths = "customer")
+    List<Wallet> findByIdInAndCustomerId(Collection<Long> ids, Long customerId);
     
     /**
      * Find wallets by customer ID
      */
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByCustomerId(Long customerId);
     
     /**
      * Find wallets by customer ID and currency
      */
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByCustomerIdAndCurrency(Long customerId, Wallet.Currency currency);
     
     /**
      * Find wallets by currency
      */
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByCurrency(Wallet.Currency currency);
     
     /**
      * Find active wallets for shopping
      */
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByActiveForShoppingTrue();
     
     /**
      * Find active wallets for withdrawal
      */
+    @EntityGraph(attributePaths = "customer")
     List<Wallet> findByActiveForWithdrawTrue();
-} 
\ No newline at end of file
+
+    /**
+     * Find the owning customer ID of a wallet without loading either entity
+     */
+    @Query("select w.customer.id from Wallet w where w.id = :walletId")
+    Optional<Long> findCustomerIdById(@Param("walletId") Long walletId);
+
+    /**
+     * Find all (walletId, customerId) pairs for the ownership index
+     */
+    @Query("select w.id, w.customer.id from Wallet w")
+    List<Object[]> findAllWalletOwnerships();
+
+    /**
+     * Find the current version of a wallet without loading it
+     */
+    @Query("select w.version from Wallet w where w.id = :walletId")
+    Optional<Long> findVersionById(@Param("walletId") Long walletId);
+}
@@ -0,0 +1,143 @@
+package com.digitalwallet.api.security;
+
+import com.digitalwallet.api.event.AccountChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of login accounts keyed by username, so authenticating a
+ * known user costs no DB round trip. Hit/miss counts are published as
+ * {@code cache.gets{cache=authentication}}.
+ */
+@Component
+@Slf4j
+public class AuthenticationCache {
+
+    static final String CACHE_NAME = "authentication";
+
+    private final Cache<String, CachedAccount> cache;
+    // Loads running per username, joined by concurrent misses for the same username
+    private final ConcurrentMap<String, Load> loads = new ConcurrentHashMap<>();
+
+    public AuthenticationCache(MeterRegistry meterRegistry,
+                               @Value("${wallet.auth.cache.max-size:10000}") long maxSize,
+                               @Value("${wallet.auth.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the cached account or load it. Unknown usernames are not cached.
+     * <p>
+     * The loader runs outside the cache, not in {@code Cache.get(key, loader)}, which would hold
+     * a map bin's monitor across the query and pin a virtual thread. Concurrent misses for the
+     * same username wait for the first one's load instead of each running the query. The result
+     * is only cached if that username was not evicted while it loaded.
+     */
+    public CachedAccount get(String username, Function<String, CachedAccount> loader) {
+        CachedAccount cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        Load load = new Load();
+        Load running = loads.putIfAbsent(username, load);
+        if (running != null) {
+            return running.await();
+        }
+        try {
+            CachedAccount loaded = loader.apply(username);
+            if (loaded != null) {
+                // Checked inside compute, which an eviction's invalidate is ordered with
+                cache.asMap().compute(username, (key, current) -> load.evicted ? current : loaded);
+            }
+            load.result.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(username, load);
+        }
+    }
+
+    public void evict(String username) {
+        Load load = loads.remove(username);
+        if (load != null) {
+            // Callers from now on load again, and this load's result is not cached
+            load.evicted = true;
+        }
+        cache.invalidate(username);
+    }
+
+    public void invalidateAll() {
+        loads.values().removeIf(load -> {
+            load.evicted = true;
+            return true;
+        });
+        cache.invalidateAll();
+    }
+
+    /**
+     * Evict right away, and again once the changing transaction completes so a concurrent
+     * login cannot re-cache the old state in between.
+     */
+    @EventListener
+    public void onAccountChanged(AccountChangedEvent event) {
+        String username = event.getUsername();
+        log.debug("Evicting cached authentication for: {}", username);
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * One running load and whether its username was evicted since it started.
+     */
+    private static final class Load {
+
+        private final CompletableFuture<CachedAccount> result = new CompletableFuture<>();
+        private volatile boolean evicted;
+
+        CachedAccount await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @lombok.Value
+    public static class CachedAccount {
+        WalletPrincipal principal;
+        String password; // Stored credential, checked on every authentication
+    }
+}
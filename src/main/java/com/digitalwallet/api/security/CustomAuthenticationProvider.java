@@ -12,6 +12,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
@@ -23,46 +24,57 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
 
     private final CustomerRepository customerRepository;
     private final EmployeeRepository employeeRepository;
+    private final AuthenticationCache authenticationCache;
+    private final PasswordVerifier passwordVerifier;
+    private final LoginThrottle loginThrottle;
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
         String username = authentication.getName();
         String password = authentication.getCredentials().toString();
 
-        log.info("Attempting authentication for username: {}", username);
+        log.debug("Attempting authentication for username: {}", username);
 
-        // First try to find as customer (by TCKN)
+        // Over-limit attempts are rejected here, before any lookup or password check
+        String clientIp = authentication.getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress() : null;
+        loginThrottle.acquire(username, clientIp);
+
+        AuthenticationCache.CachedAccount account = authenticationCache.get(username, this::loadAccount);
+        if (account == null) {
+            // If neither customer nor employee found
+            throw new BadCredentialsException("Invalid username or password");
+        }
+
+        if (!passwordVerifier.matches(username, password, account.getPassword())) {
+            throw new BadCredentialsException("Invalid username or password");
+        }
+
+        loginThrottle.succeeded(username, clientIp);
+        WalletPrincipal principal = account.getPrincipal();
+        log.debug("Authentication successful for: {} with role: {}", username, principal.getAuthority());
+
+        return new UsernamePasswordAuthenticationToken(
+                principal,
+                password,
+                Collections.singletonList(new SimpleGrantedAuthority(principal.getAuthority()))
+        );
+    }
+
+    /**
+     * Cache loader: customer by TCKN first, then employee by employeeId.
+     */
+    private AuthenticationCache.CachedAccount loadAccount(String username) {
         Customer customer = customerRepository.findByTckn(username).orElse(null);
         if (customer != null) {
-            // For now, accept any password (in production, you'd want proper password validation)
-            String role = "ROLE_CUSTOMER";
-            
-            log.info("Customer authentication successful for TCKN: {} with role: {}", username, role);
-
-            return new UsernamePasswordAuthenticationToken(
-                    username,
-                    password,
-                    Collections.singletonList(new SimpleGrantedAuthority(role))
-            );
+            return new AuthenticationCache.CachedAccount(WalletPrincipal.customer(customer), customer.getPassword());
         }
 
-        // If not found as customer, try as employee (by employeeId)
         Employee employee = employeeRepository.findByEmployeeId(username).orElse(null);
         if (employee != null) {
-            // For now, accept any password (in production, you'd want proper password validation)
-            String role = "ROLE_" + employee.getRole().name();
-            
-            log.info("Employee authentication successful for EmployeeID: {} with role: {}", username, role);
-
-            return new UsernamePasswordAuthenticationToken(
-                    username,
-                    password,
-                    Collections.singletonList(new SimpleGrantedAuthority(role))
-            );
+            return new AuthenticationCache.CachedAccount(WalletPrincipal.employee(employee), employee.getPassword());
         }
-
-        // If neither customer nor employee found
-        throw new BadCredentialsException("Invalid username or password");
+        return null;
     }
 
     @Override
@@ -0,0 +1,170 @@
+package com.digitalwallet.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Login attempt throttle checked before the provider touches the database. Each username and
+ * each client IP gets a token bucket; an attempt needs a token from both. Successful logins hand
+ * their tokens back, so only failed attempts count against the limits and HTTP Basic clients are
+ * not throttled for authenticating every request.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private final Cache<String, TokenBucket> usernameBuckets;
+    private final Cache<String, TokenBucket> ipBuckets;
+    private final int usernameCapacity;
+    private final long usernameRefillNanos;
+    private final int ipCapacity;
+    private final long ipRefillNanos;
+    private final LongSupplier nanoClock;
+
+    private final Counter accepted;
+    private final Counter rejectedByUsername;
+    private final Counter rejectedByIp;
+
+    @Autowired
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${wallet.auth.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${wallet.auth.throttle.username.refill-period:6s}") Duration usernameRefill,
+                         @Value("${wallet.auth.throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${wallet.auth.throttle.ip.refill-period:2s}") Duration ipRefill,
+                         @Value("${wallet.auth.throttle.max-entries:100000}") long maxEntries) {
+        this(meterRegistry, usernameCapacity, usernameRefill, ipCapacity, ipRefill, maxEntries, System::nanoTime);
+    }
+
+    LoginThrottle(MeterRegistry meterRegistry, int usernameCapacity, Duration usernameRefill,
+                  int ipCapacity, Duration ipRefill, long maxEntries, LongSupplier nanoClock) {
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillNanos = usernameRefill.toNanos();
+        this.ipCapacity = ipCapacity;
+        this.ipRefillNanos = ipRefill.toNanos();
+        this.nanoClock = nanoClock;
+        // Idle buckets are full again after capacity * refill, so they can be dropped by then
+        this.usernameBuckets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(usernameRefill.multipliedBy(usernameCapacity))
+                .build();
+        this.ipBuckets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(ipRefill.multipliedBy(ipCapacity))
+                .build();
+
+        this.accepted = Counter.builder("wallet.auth.throttle")
+                .description("Login attempts checked by the throttle")
+                .tag("result", "accepted").tag("limit", "none")
+                .register(meterRegistry);
+        this.rejectedByUsername = Counter.builder("wallet.auth.throttle")
+                .description("Login attempts checked by the throttle")
+                .tag("result", "rejected").tag("limit", "username")
+                .register(meterRegistry);
+        this.rejectedByIp = Counter.builder("wallet.auth.throttle")
+                .description("Login attempts checked by the throttle")
+                .tag("result", "rejected").tag("limit", "ip")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take one attempt from the username and IP buckets.
+     *
+     * @param clientIp may be null when the attempt did not come over HTTP
+     * @throws LoginThrottledException if either bucket is empty
+     */
+    public void acquire(String username, String clientIp) {
+        long now = nanoClock.getAsLong();
+
+        TokenBucket ipBucket = null;
+        if (clientIp != null) {
+            ipBucket = ipBuckets.get(clientIp, key -> new TokenBucket(ipCapacity, ipRefillNanos, now));
+            long waitNanos = ipBucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                rejectedByIp.increment();
+                log.warn("Login throttled for IP {}", clientIp);
+                throw new LoginThrottledException("Too many login attempts", waitNanos);
+            }
+        }
+
+        TokenBucket usernameBucket = usernameBuckets.get(username, key -> new TokenBucket(usernameCapacity, usernameRefillNanos, now));
+        long waitNanos = usernameBucket.tryAcquire(now);
+        if (waitNanos > 0) {
+            if (ipBucket != null) {
+                ipBucket.release(); // Not charged to the IP when the username limit rejects it
+            }
+            rejectedByUsername.increment();
+            log.warn("Login throttled for username {}", username);
+            throw new LoginThrottledException("Too many login attempts", waitNanos);
+        }
+        accepted.increment();
+    }
+
+    /**
+     * Give back the tokens of a successful login.
+     */
+    public void succeeded(String username, String clientIp) {
+        TokenBucket usernameBucket = usernameBuckets.getIfPresent(username);
+        if (usernameBucket != null) {
+            usernameBucket.release();
+        }
+        if (clientIp != null) {
+            TokenBucket ipBucket = ipBuckets.getIfPresent(clientIp);
+            if (ipBucket != null) {
+                ipBucket.release();
+            }
+        }
+    }
+
+    public void reset() {
+        usernameBuckets.invalidateAll();
+        ipBuckets.invalidateAll();
+    }
+
+    /**
+     * Token bucket in its GCRA form: the whole state is one "theoretical arrival time", so taking
+     * and returning tokens are single CAS loops with no lock.
+     */
+    static final class TokenBucket {
+
+        private final long refillNanos;
+        private final long burstNanos;
+        private final AtomicLong arrival;
+
+        TokenBucket(int capacity, long refillNanos, long now) {
+            this.refillNanos = refillNanos;
+            this.burstNanos = capacity * refillNanos;
+            this.arrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise nanoseconds until one is available
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = arrival.get();
+                long next = Math.max(current, now) + refillNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (arrival.compareAndSet(current, next)) {
+                    return 0L;
+                }
+            }
+        }
+
+        void release() {
+            arrival.addAndGet(-refillNanos);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.digitalwallet.api.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thrown when a login attempt is over the per-username or per-IP limit. Answered with 429.
+ */
+public class LoginThrottledException extends AuthenticationServiceException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long waitNanos) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1L, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,14 @@
+package com.digitalwallet.api.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when the password verification pool is saturated. Answered with 503 so clients
+ * back off instead of treating it as a wrong password.
+ */
+public class PasswordVerificationRejectedException extends AuthenticationServiceException {
+
+    public PasswordVerificationRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.digitalwallet.api.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Checks passwords against their stored BCrypt hash on a small dedicated pool, so a login
+ * burst can only burn that pool's threads and never the Tomcat request threads' CPU. The request
+ * thread waits for its check for at most {@code wallet.auth.password.timeout}. When the pool's
+ * queue is full, or the checks ahead of it would take longer than that going by the recent average,
+ * the check is rejected immediately instead of piling up request threads.
+ * <p>
+ * Only BCrypt hashes are accepted; any other stored password fails the check.
+ * <p>
+ * Successful checks are remembered for a short time as a SHA-256 digest of username, stored
+ * hash and password, so repeated HTTP Basic requests skip BCrypt. The stored hash is part of
+ * the digest, so a password change invalidates the entry.
+ */
+@Component
+@Slf4j
+public class PasswordVerifier {
+
+    private static final String BCRYPT_PREFIX = "$2";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Boolean> verifiedCredentials;
+    private final Duration timeout;
+    private final int poolSize;
+    private final Counter rejections;
+    // Recent average BCrypt check time, updated without synchronization: an estimate is enough
+    private volatile long averageCheckNanos;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder,
+                            MeterRegistry meterRegistry,
+                            @Value("${wallet.auth.password.threads:0}") int threads,
+                            @Value("${wallet.auth.password.queue-capacity:64}") int queueCapacity,
+                            @Value("${wallet.auth.password.timeout:500ms}") Duration timeout,
+                            @Value("${wallet.auth.password.verified-ttl:2m}") Duration verifiedTtl) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeout = timeout;
+
+        // Platform threads even in virtual thread mode: BCrypt is CPU work, and the pool is the limit
+        this.poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-verifier-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(verifiedTtl)
+                .recordStats()
+                .build();
+
+        new ExecutorServiceMetrics(executor, "password-verifier", Tags.empty()).bindTo(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "verified-credentials");
+        this.rejections = Counter.builder("wallet.auth.password.rejected")
+                .description("Password checks rejected because the verification pool was saturated")
+                .register(meterRegistry);
+        log.info("Password verification pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * Check a raw password against the stored one.
+     *
+     * @throws PasswordVerificationRejectedException if the verification pool is saturated
+     */
+    public boolean matches(String username, String rawPassword, String storedPassword) {
+        if (rawPassword == null || storedPassword == null) {
+            return false;
+        }
+        if (!storedPassword.startsWith(BCRYPT_PREFIX)) {
+            // Every password is hashed when it is set, so anything else is a corrupt or hand-written row
+            log.warn("Stored password of {} is not a BCrypt hash, rejecting the login", username);
+            return false;
+        }
+
+        String digest = digest(username, storedPassword, rawPassword);
+        if (verifiedCredentials.getIfPresent(digest) != null) {
+            return true;
+        }
+
+        // Waiting would only time out: fail now and keep the request thread free
+        int ahead = executor.getActiveCount() + executor.getQueue().size();
+        long expectedWaitNanos = (ahead / poolSize + 1) * averageCheckNanos;
+        if (expectedWaitNanos > timeout.toNanos()) {
+            rejections.increment();
+            throw new PasswordVerificationRejectedException("Too many concurrent logins");
+        }
+
+        Future<Boolean> check;
+        try {
+            check = executor.submit(() -> {
+                long start = System.nanoTime();
+                boolean result = passwordEncoder.matches(rawPassword, storedPassword);
+                long elapsed = System.nanoTime() - start;
+                long average = averageCheckNanos;
+                averageCheckNanos = average == 0 ? elapsed : average + (elapsed - average) / 8;
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordVerificationRejectedException("Too many concurrent logins");
+        }
+
+        boolean matches;
+        try {
+            matches = check.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            rejections.increment();
+            throw new PasswordVerificationRejectedException("Password verification timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted during password verification", e);
+        } catch (ExecutionException e) {
+            throw new AuthenticationServiceException("Password verification failed", e.getCause());
+        }
+
+        if (matches) {
+            verifiedCredentials.put(digest, Boolean.TRUE);
+        }
+        return matches;
+    }
+
+    int queuedChecks() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String digest(String username, String storedPassword, String rawPassword) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(username.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(storedPassword.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            sha256.update(rawPassword.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.digitalwallet.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory list of revoked token ids. Entries are only kept until the token
+ * would have expired anyway, so the list stays short.
+ * <p>
+ * A revocation is never forgotten before its token expires. If the list is still over its bound
+ * after dropping expired entries, every token issued so far is revoked instead: the watermark moves
+ * past them, the entries it covers are dropped, and everyone signed in has to sign in again.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Clock clock;
+    // Tokens issued before this are revoked
+    private volatile Instant revokedIssuedBefore = Instant.MIN;
+
+    @Autowired
+    public TokenRevocationList(@Value("${wallet.auth.token.revocation.max-entries:100000}") int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+    }
+
+    TokenRevocationList(int maxEntries, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(clock.instant())) {
+            return; // Already expired, nothing to remember
+        }
+        revoked.put(tokenId, expiresAt);
+        if (revoked.size() > maxEntries) {
+            purge();
+        }
+    }
+
+    public boolean isRevoked(String tokenId, Instant issuedAt) {
+        return issuedAt.isBefore(revokedIssuedBefore) || revoked.containsKey(tokenId);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Drop expired entries. If more than half the bound is still taken, revoke every token issued
+     * so far, so the next purge is at least half the bound of revocations away.
+     */
+    synchronized void purge() {
+        Instant now = clock.instant();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        if (revoked.size() > maxEntries / 2) {
+            // Tokens carry their issue time in whole seconds, so the current second is covered too
+            Instant watermark = now.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+            log.warn("Token revocation list holds {} unexpired entries (max {}), revoking all tokens issued before {}",
+                    revoked.size(), maxEntries, watermark);
+            // Raised before the entries go, so none of them is valid in between
+            revokedIssuedBefore = watermark;
+            revoked.clear();
+        }
+    }
+}
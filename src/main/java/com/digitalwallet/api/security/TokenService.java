@@ -0,0 +1,201 @@
+package com.digitalwallet.api.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Issues and verifies compact HMAC-SHA256 signed bearer tokens carrying the caller's
+ * {@link WalletPrincipal}, so requests can be authenticated without a session or DB lookup.
+ * <p>
+ * Token format: {@code base64url(payload).base64url(hmac)} where the payload is
+ * {@code v1|keyId|tokenId|issuedAt|expiresAt|type|id|role|username}.
+ * <p>
+ * Key rotation: the active key signs new tokens, every configured key verifies. To rotate, add the
+ * new key to {@code wallet.auth.token.keys} on all nodes, switch {@code active-key-id} to it, and
+ * remove the old key once tokens signed with it have expired.
+ */
+@Component
+@Slf4j
+public class TokenService {
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+    private final Duration ttl;
+    private final TokenRevocationList revocationList;
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(@Value("${wallet.auth.token.keys:}") String keys,
+                        @Value("${wallet.auth.token.active-key-id:}") String activeKeyId,
+                        @Value("${wallet.auth.token.ttl:1h}") Duration ttl,
+                        @Value("${wallet.auth.stateless:false}") boolean stateless,
+                        TokenRevocationList revocationList) {
+        this(requireSharedKeys(parseKeys(keys), stateless), activeKeyId, ttl, revocationList, Clock.systemUTC());
+    }
+
+    TokenService(Map<String, byte[]> keys, String activeKeyId, Duration ttl,
+                 TokenRevocationList revocationList, Clock clock) {
+        Map<String, SecretKeySpec> keySpecs = new LinkedHashMap<>();
+        keys.forEach((keyId, secret) -> {
+            if (secret.length < MIN_KEY_BYTES) {
+                throw new IllegalArgumentException("Token key " + keyId + " must be at least " + MIN_KEY_BYTES + " bytes");
+            }
+            keySpecs.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+        });
+        if (keySpecs.isEmpty()) {
+            // Tokens from this node will not verify on other nodes or after a restart
+            log.warn("No wallet.auth.token.keys configured, signing tokens with a random per-process key");
+            byte[] secret = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(secret);
+            keySpecs.put("local", new SecretKeySpec(secret, ALGORITHM));
+        }
+        this.keys = Collections.unmodifiableMap(keySpecs);
+        this.activeKeyId = StringUtils.hasText(activeKeyId) ? activeKeyId : keySpecs.keySet().iterator().next();
+        if (!this.keys.containsKey(this.activeKeyId)) {
+            throw new IllegalArgumentException("Active token key " + this.activeKeyId + " is not configured");
+        }
+        this.ttl = ttl;
+        this.revocationList = revocationList;
+        this.clock = clock;
+    }
+
+    /**
+     * Stateless nodes only know a caller by the token, so a per-process key would make every
+     * other node reject it.
+     */
+    static Map<String, byte[]> requireSharedKeys(Map<String, byte[]> keys, boolean stateless) {
+        if (stateless && keys.isEmpty()) {
+            throw new IllegalStateException(
+                    "wallet.auth.stateless=true needs wallet.auth.token.keys, shared by all nodes, to be configured");
+        }
+        return keys;
+    }
+
+    /**
+     * Parse {@code keyId:base64Secret,keyId:base64Secret}.
+     */
+    static Map<String, byte[]> parseKeys(String keys) {
+        Map<String, byte[]> parsed = new LinkedHashMap<>();
+        if (!StringUtils.hasText(keys)) {
+            return parsed;
+        }
+        for (String entry : keys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Token keys must be configured as keyId:base64Secret");
+            }
+            parsed.put(entry.substring(0, separator).trim(), Base64.getDecoder().decode(entry.substring(separator + 1).trim()));
+        }
+        return parsed;
+    }
+
+    public IssuedToken issue(WalletPrincipal principal) {
+        Instant issuedAt = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        Instant expiresAt = issuedAt.plus(ttl);
+        String tokenId = UUID.randomUUID().toString();
+        String payload = String.join("|",
+                VERSION,
+                activeKeyId,
+                tokenId,
+                Long.toString(issuedAt.getEpochSecond()),
+                Long.toString(expiresAt.getEpochSecond()),
+                principal.getType().name(),
+                principal.getId().toString(),
+                principal.getRole(),
+                principal.getUsername());
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        String token = ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(activeKeyId, payloadBytes));
+        return new IssuedToken(token, tokenId, expiresAt);
+    }
+
+    /**
+     * Verify signature, expiry and revocation. Returns empty for any invalid token.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 9);
+            if (fields.length != 9 || !VERSION.equals(fields[0]) || !keys.containsKey(fields[1])) {
+                return Optional.empty();
+            }
+            if (!MessageDigest.isEqual(signature, sign(fields[1], payloadBytes))) {
+                return Optional.empty();
+            }
+            Instant issuedAt = Instant.ofEpochSecond(Long.parseLong(fields[3]));
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(fields[4]));
+            if (!expiresAt.isAfter(clock.instant()) || revocationList.isRevoked(fields[2], issuedAt)) {
+                return Optional.empty();
+            }
+            WalletPrincipal principal = new WalletPrincipal(
+                    WalletPrincipal.Type.valueOf(fields[5]), Long.valueOf(fields[6]), fields[8], fields[7]);
+            return Optional.of(new VerifiedToken(principal, fields[2], expiresAt));
+        } catch (IllegalArgumentException e) {
+            // Malformed base64, number or type
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Revoke a token until it expires. Invalid tokens are ignored.
+     */
+    public boolean revoke(String token) {
+        Optional<VerifiedToken> verified = verify(token);
+        verified.ifPresent(v -> revocationList.revoke(v.getTokenId(), v.getExpiresAt()));
+        return verified.isPresent();
+    }
+
+    private byte[] sign(String keyId, byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(keys.get(keyId));
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign token", e);
+        }
+    }
+
+    @lombok.Value
+    public static class IssuedToken {
+        String token;
+        String tokenId;
+        Instant expiresAt;
+    }
+
+    @lombok.Value
+    public static class VerifiedToken {
+        WalletPrincipal principal;
+        String tokenId;
+        Instant expiresAt;
+    }
+}
@@ -0,0 +1,61 @@
+package com.digitalwallet.api.security;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Employee;
+import lombok.Value;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.io.Serializable;
+
+/**
+ * Identity of the authenticated caller, resolved once during authentication and
+ * carried in the {@code SecurityContext} so authorization checks need no DB lookups.
+ */
+@Value
+public class WalletPrincipal implements AuthenticatedPrincipal, Serializable {
+
+    public static final String CUSTOMER_ROLE = "CUSTOMER";
+
+    public enum Type {
+        CUSTOMER, EMPLOYEE
+    }
+
+    Type type;
+    Long id;          // Customer id or Employee id, depending on type
+    String username;  // TCKN for customers, employeeId for employees
+    String role;      // CUSTOMER, or the employee's EmployeeRole name
+
+    public static WalletPrincipal customer(Customer customer) {
+        return new WalletPrincipal(Type.CUSTOMER, customer.getId(), customer.getTckn(), CUSTOMER_ROLE);
+    }
+
+    public static WalletPrincipal employee(Employee employee) {
+        return new WalletPrincipal(Type.EMPLOYEE, employee.getId(), employee.getEmployeeId(), employee.getRole().name());
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public String getAuthority() {
+        return "ROLE_" + role;
+    }
+
+    public boolean isCustomer() {
+        return type == Type.CUSTOMER;
+    }
+
+    public boolean isEmployee() {
+        return type == Type.EMPLOYEE;
+    }
+
+    public boolean isEmployeeOrAdmin() {
+        return isEmployee() && (Employee.EmployeeRole.EMPLOYEE.name().equals(role)
+                || Employee.EmployeeRole.ADMIN.name().equals(role));
+    }
+
+    public boolean isAdmin() {
+        return isEmployee() && Employee.EmployeeRole.ADMIN.name().equals(role);
+    }
+}
@@ -0,0 +1,27 @@
+package com.digitalwallet.api.service;
+
+/**
+ * A customer or employee whose unique key is already taken. Answered with 409.
+ */
+public class AlreadyExistsException extends DomainException {
+
+    private final String resource;
+    private final String key;
+    private final Object value;
+
+    public AlreadyExistsException(String resource, String key, Object value) {
+        this.resource = resource;
+        this.key = key;
+        this.value = value;
+    }
+
+    @Override
+    public String getCode() {
+        return "already_exists";
+    }
+
+    @Override
+    public String getMessage() {
+        return resource + " with " + key + " " + value + " already exists";
+    }
+}
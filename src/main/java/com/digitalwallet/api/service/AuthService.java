@@ -4,9 +4,13 @@ import com.digitalwallet.api.entity.Customer;
 import com.digitalwallet.api.entity.Employee;
 import com.digitalwallet.api.repository.CustomerRepository;
 import com.digitalwallet.api.repository.EmployeeRepository;
+import com.digitalwallet.api.security.WalletPrincipal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -26,34 +30,87 @@ public class AuthService {
         return null;
     }
 
+    /**
+     * Get the authenticated principal without touching the DB.
+     * Authentications created outside CustomAuthenticationProvider (e.g. test mocks) carry only
+     * a username; those are resolved once and the typed principal is stored back in the context.
+     */
+    public WalletPrincipal getCurrentPrincipal() {
+        SecurityContext context = SecurityContextHolder.getContext();
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof WalletPrincipal principal) {
+            return principal;
+        }
+
+        WalletPrincipal principal = resolvePrincipal(authentication.getName());
+        if (principal != null) {
+            UsernamePasswordAuthenticationToken resolved = UsernamePasswordAuthenticationToken.authenticated(
+                    principal, authentication.getCredentials(), authentication.getAuthorities());
+            resolved.setDetails(authentication.getDetails());
+            context.setAuthentication(resolved);
+        }
+        return principal;
+    }
+
+    private WalletPrincipal resolvePrincipal(String username) {
+        Customer customer = customerRepository.findByTckn(username).orElse(null);
+        if (customer != null) {
+            return WalletPrincipal.customer(customer);
+        }
+        return employeeRepository.findByEmployeeId(username)
+                .map(WalletPrincipal::employee)
+                .orElse(null);
+    }
+
+    public Long getCurrentCustomerId() {
+        WalletPrincipal principal = getCurrentPrincipal();
+        return principal != null && principal.isCustomer() ? principal.getId() : null;
+    }
+
+    /**
+     * Load the current customer entity. Prefer {@link #getCurrentPrincipal()} for authorization checks.
+     */
     public Customer getCurrentCustomer() {
-        String username = getCurrentUsername();
-        if (username != null) {
-            return customerRepository.findByTckn(username).orElse(null);
+        Long customerId = getCurrentCustomerId();
+        if (customerId != null) {
+            return customerRepository.findById(customerId).orElse(null);
         }
         return null;
     }
 
+    /**
+     * Load the current employee entity. Prefer {@link #getCurrentPrincipal()} for authorization checks.
+     */
     public Employee getCurrentEmployee() {
-        String username = getCurrentUsername();
-        if (username != null) {
-            return employeeRepository.findByEmployeeId(username).orElse(null);
+        WalletPrincipal principal = getCurrentPrincipal();
+        if (principal != null && principal.isEmployee()) {
+            return employeeRepository.findById(principal.getId()).orElse(null);
         }
         return null;
     }
 
     public boolean isCustomer() {
-        return getCurrentCustomer() != null;
+        WalletPrincipal principal = getCurrentPrincipal();
+        return principal != null && principal.isCustomer();
     }
 
     public boolean isEmployee() {
-        return getCurrentEmployee() != null;
+        WalletPrincipal principal = getCurrentPrincipal();
+        return principal != null && principal.isEmployee();
     }
 
     public boolean isEmployeeOrAdmin() {
-        Employee employee = getCurrentEmployee();
-        return employee != null && (employee.getRole() == Employee.EmployeeRole.EMPLOYEE || 
-                                   employee.getRole() == Employee.EmployeeRole.ADMIN);
+        WalletPrincipal principal = getCurrentPrincipal();
+        return principal != null && principal.isEmployeeOrAdmin();
+    }
+
+    public boolean isAdmin() {
+        WalletPrincipal principal = getCurrentPrincipal();
+        return principal != null && principal.isAdmin();
     }
 
     // For backward compatibility
@@ -64,4 +121,4 @@ public class AuthService {
     public Customer getCurrentUser() {
         return getCurrentCustomer();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,253 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.digitalwallet.api.dto.CompactTransactionDto;
+import com.digitalwallet.api.dto.CompactWalletDto;
+import com.digitalwallet.api.dto.CustomerDashboardDto;
+import com.digitalwallet.api.dto.CustomerDashboardDto.CurrencyTotal;
+import com.digitalwallet.api.dto.CustomerDashboardDto.PendingSummary;
+import com.digitalwallet.api.dto.CustomerDashboardDto.WalletSummary;
+import com.digitalwallet.api.dto.CustomerDto;
+import com.digitalwallet.api.dto.WalletDto;
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the customer dashboard from four independent queries (customer, wallets, latest
+ * transactions per wallet, pending totals) run concurrently on a small pool, each in its own
+ * read-only transaction. The response waits for them until a shared deadline; a section that
+ * is not ready by then, or failed, is reported as unavailable and the rest is returned.
+ * A query still running at the deadline is left to finish on its pool thread.
+ */
+@Service
+@Slf4j
+public class CustomerDashboardService {
+
+    private final CustomerService customerService;
+    private final WalletService walletService;
+    private final TransactionService transactionService;
+    private final Executor executor;
+    private final long deadlineNanos;
+    private final int maxTransactionsPerWallet;
+    private final MeterRegistry meterRegistry;
+    private final Timer timer;
+
+    public CustomerDashboardService(CustomerService customerService,
+                                    WalletService walletService,
+                                    TransactionService transactionService,
+                                    WorkerThreads workerThreads,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${wallet.dashboard.deadline:2s}") Duration deadline,
+                                    @Value("${wallet.dashboard.threads:8}") int threads,
+                                    @Value("${wallet.dashboard.queue-capacity:256}") int queueCapacity,
+                                    @Value("${wallet.dashboard.max-transactions:50}") int maxTransactionsPerWallet) {
+        this.customerService = customerService;
+        this.walletService = walletService;
+        this.transactionService = transactionService;
+        this.executor = workerThreads.taskExecutor("dashboard-", threads, queueCapacity);
+        this.deadlineNanos = deadline.toNanos();
+        this.maxTransactionsPerWallet = maxTransactionsPerWallet;
+        this.meterRegistry = meterRegistry;
+        this.timer = Timer.builder("wallet.dashboard")
+                .description("Time to build a customer dashboard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Build the dashboard of a customer with up to {@code transactionsPerWallet} latest
+     * transactions per wallet.
+     */
+    public CustomerDashboardDto getDashboard(Long customerId, int transactionsPerWallet) {
+        if (transactionsPerWallet < 0 || transactionsPerWallet > maxTransactionsPerWallet) {
+            throw new InvalidRequestException("Transactions per wallet must be between 0 and " + maxTransactionsPerWallet);
+        }
+        long start = System.nanoTime();
+        long deadline = start + deadlineNanos;
+
+        // All sections start before any is awaited
+        CompletableFuture<Optional<Customer>> customerSection = section(CustomerDashboardDto.CUSTOMER, deadline,
+                () -> customerService.findCustomerById(customerId));
+        CompletableFuture<List<Wallet>> walletSection = section(CustomerDashboardDto.WALLETS, deadline,
+                () -> walletService.getWalletsByCustomerId(customerId));
+        CompletableFuture<List<Transaction>> transactionSection = transactionsPerWallet == 0
+                ? CompletableFuture.completedFuture(List.of())
+                : section(CustomerDashboardDto.TRANSACTIONS, deadline,
+                        () -> transactionService.getLatestTransactionsPerWallet(customerId, transactionsPerWallet));
+        CompletableFuture<List<Object[]>> pendingSection = section(CustomerDashboardDto.PENDING, deadline,
+                () -> transactionService.getPendingTotalsByCustomerId(customerId));
+
+        List<String> unavailable = new ArrayList<>();
+        Optional<Customer> customer = await(customerSection, CustomerDashboardDto.CUSTOMER, deadline, unavailable);
+        List<Wallet> wallets = await(walletSection, CustomerDashboardDto.WALLETS, deadline, unavailable);
+        List<Transaction> transactions = await(transactionSection, CustomerDashboardDto.TRANSACTIONS, deadline, unavailable);
+        List<Object[]> pendingRows = await(pendingSection, CustomerDashboardDto.PENDING, deadline, unavailable);
+
+        Map<Long, List<CompactTransactionDto>> latest = transactions == null ? null : transactions.stream()
+                .map(CompactTransactionDto::fromEntity)
+                .collect(Collectors.groupingBy(CompactTransactionDto::getWalletId, LinkedHashMap::new, Collectors.toList()));
+        Map<Long, PendingSummary> pending = pendingRows == null ? null : pendingSummaries(pendingRows);
+
+        CustomerDashboardDto dashboard = CustomerDashboardDto.builder()
+                .customer(customer != null ? customer.map(CustomerDto::fromEntity).orElse(null) : null)
+                .wallets(walletSummaries(wallets, latest, pending))
+                .totals(wallets != null ? totals(wallets, pending) : null)
+                .unavailable(unavailable.isEmpty() ? null : unavailable)
+                .build();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return dashboard;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private <T> CompletableFuture<T> section(String name, long deadline, Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                // Queued past the deadline: nobody is waiting for the answer any more
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new CancellationException("Deadline passed before the " + name + " section started");
+                }
+                return query.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> section, String name, long deadline, List<String> unavailable) {
+        try {
+            return section.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Dashboard section {} not ready by the deadline", name);
+            section.cancel(false);
+            return unavailable(name, "timeout", unavailable);
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.warn("Dashboard section {} failed: {}", name, cause.toString());
+            return unavailable(name, "error", unavailable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return unavailable(name, "error", unavailable);
+        }
+    }
+
+    private <T> T unavailable(String name, String reason, List<String> unavailable) {
+        unavailable.add(name);
+        Counter.builder("wallet.dashboard.unavailable")
+                .description("Dashboard sections left out of a response")
+                .tag("section", name)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return null;
+    }
+
+    private static Map<Long, PendingSummary> pendingSummaries(List<Object[]> rows) {
+        Map<Long, PendingSummary> summaries = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            PendingSummary summary = summaries.computeIfAbsent((Long) row[0],
+                    walletId -> new PendingSummary(0L, BigDecimal.ZERO, 0L, BigDecimal.ZERO));
+            long count = (Long) row[2];
+            BigDecimal amount = (BigDecimal) row[3];
+            if (row[1] == Transaction.TransactionType.DEPOSIT) {
+                summary.setDepositCount(count);
+                summary.setDepositAmount(amount);
+            } else {
+                summary.setWithdrawCount(count);
+                summary.setWithdrawAmount(amount);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * One summary per wallet, or per wallet ID seen in the other sections when the wallets
+     * themselves are unavailable.
+     */
+    private static List<WalletSummary> walletSummaries(List<Wallet> wallets,
+                                                       Map<Long, List<CompactTransactionDto>> latest,
+                                                       Map<Long, PendingSummary> pending) {
+        Map<Long, CompactWalletDto> walletsById = new LinkedHashMap<>();
+        if (wallets != null) {
+            wallets.forEach(wallet -> walletsById.put(wallet.getId(), CompactWalletDto.fromEntity(wallet)));
+        }
+        Set<Long> walletIds = new LinkedHashSet<>(walletsById.keySet());
+        if (wallets == null) {
+            if (latest != null) {
+                walletIds.addAll(latest.keySet());
+            }
+            if (pending != null) {
+                walletIds.addAll(pending.keySet());
+            }
+        }
+        return walletIds.stream()
+                .map(walletId -> WalletSummary.builder()
+                        .walletId(walletId)
+                        .wallet(walletsById.get(walletId))
+                        .latestTransactions(latest != null ? latest.getOrDefault(walletId, List.of()) : null)
+                        .pending(pending != null ? pending.getOrDefault(walletId, emptyPending()) : null)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static List<CurrencyTotal> totals(List<Wallet> wallets, Map<Long, PendingSummary> pending) {
+        Map<Wallet.Currency, CurrencyTotal> totals = new EnumMap<>(Wallet.Currency.class);
+        for (Wallet wallet : wallets) {
+            CurrencyTotal total = totals.computeIfAbsent(wallet.getCurrency(), currency -> CurrencyTotal.builder()
+                    .currency(currency)
+                    .balance(BigDecimal.ZERO)
+                    .usableBalance(BigDecimal.ZERO)
+                    .pendingCount(pending != null ? 0L : null)
+                    .pendingDepositAmount(pending != null ? BigDecimal.ZERO : null)
+                    .pendingWithdrawAmount(pending != null ? BigDecimal.ZERO : null)
+                    .build());
+            total.setWalletCount(total.getWalletCount() + 1);
+            total.setBalance(total.getBalance().add(wallet.getBalance()));
+            total.setUsableBalance(total.getUsableBalance().add(wallet.getUsableBalance()));
+            PendingSummary walletPending = pending != null ? pending.get(wallet.getId()) : null;
+            if (walletPending != null) {
+                total.setPendingCount(total.getPendingCount() + walletPending.getDepositCount() + walletPending.getWithdrawCount());
+                total.setPendingDepositAmount(total.getPendingDepositAmount().add(walletPending.getDepositAmount()));
+                total.setPendingWithdrawAmount(total.getPendingWithdrawAmount().add(walletPending.getWithdrawAmount()));
+            }
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    private static PendingSummary emptyPending() {
+        return new PendingSummary(0L, BigDecimal.ZERO, 0L, BigDecimal.ZERO);
+    }
+}
@@ -1,13 +1,18 @@
 package com.digitalwallet.api.service;
 
 import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.event.AccountChangedEvent;
 import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.WalletRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -17,6 +22,9 @@ import java.util.Optional;
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final WalletRepository walletRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
 
     /**
      * Create a new customer
@@ -26,9 +34,10 @@ public class CustomerService {
         
         // Validate TCKN uniqueness
         if (customerRepository.existsByTckn(customer.getTckn())) {
-            throw new IllegalArgumentException("Customer with TCKN " + customer.getTckn() + " already exists");
+            throw new AlreadyExistsException("Customer", "TCKN", customer.getTckn());
         }
         
+        customer.setPassword(encodePassword(customer.getPassword()));
         Customer savedCustomer = customerRepository.save(customer);
         log.info("Customer created successfully with ID: {}", savedCustomer.getId());
         return savedCustomer;
@@ -67,15 +76,22 @@ public class CustomerService {
         log.info("Updating customer with ID: {}", id);
         
         Customer existingCustomer = customerRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Customer not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Customer", id));
+        
+        // Wallets embed the customer, so their versions (and ETags) move with a name change
+        if (!Objects.equals(existingCustomer.getName(), customerDetails.getName())
+                || !Objects.equals(existingCustomer.getSurname(), customerDetails.getSurname())) {
+            walletRepository.incrementVersionsOfCustomer(id);
+        }
         
         // Update fields
         existingCustomer.setName(customerDetails.getName());
         existingCustomer.setSurname(customerDetails.getSurname());
-        existingCustomer.setPassword(customerDetails.getPassword());
+        existingCustomer.setPassword(encodePassword(customerDetails.getPassword()));
         
         // Don't update TCKN as it should remain unique
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        eventPublisher.publishEvent(new AccountChangedEvent(updatedCustomer.getTckn()));
         log.info("Customer updated successfully");
         return updatedCustomer;
     }
@@ -86,14 +102,18 @@ public class CustomerService {
     public void deleteCustomer(Long id) {
         log.info("Deleting customer with ID: {}", id);
         
-        if (!customerRepository.existsById(id)) {
-            throw new IllegalArgumentException("Customer not found with ID: " + id);
-        }
+        Customer customer = customerRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Customer", id));
         
-        customerRepository.deleteById(id);
+        customerRepository.delete(customer);
+        eventPublisher.publishEvent(new AccountChangedEvent(customer.getTckn()));
         log.info("Customer deleted successfully");
     }
 
+    private String encodePassword(String rawPassword) {
+        return rawPassword != null ? passwordEncoder.encode(rawPassword) : null;
+    }
+
     /**
      * Check if customer exists by TCKN
      */
@@ -0,0 +1,25 @@
+package com.digitalwallet.api.service;
+
+/**
+ * A routine rejection of a request by the business rules: something not found, a duplicate,
+ * an insufficient balance. These are expected outcomes, not failures, so no stack trace is
+ * captured and the message is only built when it is read. Answered with a structured error
+ * body by {@code DomainExceptionHandler}.
+ * <p>
+ * Extends {@link IllegalArgumentException}, which the services threw for these before.
+ */
+public abstract class DomainException extends IllegalArgumentException {
+
+    /**
+     * Stable, machine-readable reason, e.g. {@code insufficient_balance}.
+     */
+    public abstract String getCode();
+
+    @Override
+    public abstract String getMessage();
+
+    @Override
+    public final Throwable fillInStackTrace() {
+        return this;
+    }
+}
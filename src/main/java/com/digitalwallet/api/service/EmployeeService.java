@@ -1,9 +1,12 @@
 package com.digitalwallet.api.service;
 
 import com.digitalwallet.api.entity.Employee;
+import com.digitalwallet.api.event.AccountChangedEvent;
 import com.digitalwallet.api.repository.EmployeeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,14 +18,17 @@ import java.util.Optional;
 public class EmployeeService {
 
     private final EmployeeRepository employeeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PasswordEncoder passwordEncoder;
 
     public Employee createEmployee(Employee employee) {
         log.info("Creating employee: {}", employee.getEmployeeId());
         
         if (employeeRepository.existsByEmployeeId(employee.getEmployeeId())) {
-            throw new IllegalArgumentException("Employee with ID " + employee.getEmployeeId() + " already exists");
+            throw new AlreadyExistsException("Employee", "ID", employee.getEmployeeId());
         }
         
+        employee.setPassword(encodePassword(employee.getPassword()));
         return employeeRepository.save(employee);
     }
 
@@ -46,30 +52,36 @@ public class EmployeeService {
         log.info("Updating employee with ID: {}", id);
         
         Employee employee = employeeRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Employee not found with ID: " + id));
+                .orElseThrow(() -> new NotFoundException("Employee", id));
         
         // Note: employeeId validation is not needed since we don't update it
         
         employee.setName(employeeDetails.getName());
         employee.setSurname(employeeDetails.getSurname());
         // Note: employeeId is not updated to prevent ID changes
-        employee.setPassword(employeeDetails.getPassword());
+        employee.setPassword(encodePassword(employeeDetails.getPassword()));
         employee.setRole(employeeDetails.getRole());
         
-        return employeeRepository.save(employee);
+        Employee updatedEmployee = employeeRepository.save(employee);
+        eventPublisher.publishEvent(new AccountChangedEvent(updatedEmployee.getEmployeeId()));
+        return updatedEmployee;
     }
 
     public void deleteEmployee(Long id) {
         log.info("Deleting employee with ID: {}", id);
         
-        if (!employeeRepository.existsById(id)) {
-            throw new IllegalArgumentException("Employee not found with ID: " + id);
-        }
+        Employee employee = employeeRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Employee", id));
         
-        employeeRepository.deleteById(id);
+        employeeRepository.delete(employee);
+        eventPublisher.publishEvent(new AccountChangedEvent(employee.getEmployeeId()));
     }
 
     public boolean existsByEmployeeId(String employeeId) {
         return employeeRepository.existsByEmployeeId(employeeId);
     }
+
+    private String encodePassword(String rawPassword) {
+        return rawPassword != null ? passwordEncoder.encode(rawPassword) : null;
+    }
 } 
\ No newline at end of file
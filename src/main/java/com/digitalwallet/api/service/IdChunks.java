@@ -0,0 +1,43 @@
+package com.digitalwallet.api.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Lookups by ID list, run as IN queries of at most {@link #CHUNK_SIZE} IDs so a long list
+ * does not become one huge statement. Hibernate pads IN lists to a power of two, so the
+ * chunks share a handful of statement shapes.
+ */
+final class IdChunks {
+
+    static final int MAX_IDS = 500;
+    static final int CHUNK_SIZE = 100;
+
+    private IdChunks() {
+    }
+
+    /**
+     * Run the query per chunk of distinct IDs and index the results by ID.
+     */
+    static <T> Map<Long, T> fetch(Collection<Long> ids, Function<List<Long>, List<T>> query, Function<T, Long> idOf) {
+        if (ids.size() > MAX_IDS) {
+            throw new InvalidRequestException("At most " + MAX_IDS + " IDs can be requested at once");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException("IDs must not be empty");
+        }
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, T> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()));
+            query.apply(chunk).forEach(item -> found.put(idOf.apply(item), item));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,27 @@
+package com.digitalwallet.api.service;
+
+import java.math.BigDecimal;
+
+/**
+ * A withdrawal or deduction larger than the wallet's balance.
+ */
+public class InsufficientBalanceException extends DomainException {
+
+    private final BigDecimal available;
+    private final BigDecimal required;
+
+    public InsufficientBalanceException(BigDecimal available, BigDecimal required) {
+        this.available = available;
+        this.required = required;
+    }
+
+    @Override
+    public String getCode() {
+        return "insufficient_balance";
+    }
+
+    @Override
+    public String getMessage() {
+        return "Insufficient balance. Available: " + available + ", Required: " + required;
+    }
+}
@@ -0,0 +1,24 @@
+package com.digitalwallet.api.service;
+
+/**
+ * A request the services reject before running it: a missing field, an out of range parameter,
+ * too many IDs.
+ */
+public class InvalidRequestException extends DomainException {
+
+    private final String message;
+
+    public InvalidRequestException(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String getCode() {
+        return "bad_request";
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
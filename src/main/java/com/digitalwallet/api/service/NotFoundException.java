@@ -0,0 +1,25 @@
+package com.digitalwallet.api.service;
+
+/**
+ * A customer, employee, wallet or transaction that does not exist. Answered with 404.
+ */
+public class NotFoundException extends DomainException {
+
+    private final String resource;
+    private final Object id;
+
+    public NotFoundException(String resource, Object id) {
+        this.resource = resource;
+        this.id = id;
+    }
+
+    @Override
+    public String getCode() {
+        return "not_found";
+    }
+
+    @Override
+    public String getMessage() {
+        return resource + " not found with ID: " + id;
+    }
+}
@@ -0,0 +1,116 @@
+package com.digitalwallet.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the load, callers with
+ * the same key arriving while it runs wait for it and get the same result (or exception).
+ * Nothing is kept once the load completes, so this is not a cache. The key must include
+ * whatever scopes the result to the caller, such as the customer ID of an ownership check.
+ * <p>
+ * Callers inside a transaction always load for themselves, so entities they may modify belong
+ * to their own persistence context. The others share the loaded entities and only read them.
+ * A load that started before the last {@link #invalidateAfterCommit() invalidation} is not
+ * joined, so a caller never gets a result read before a change it has seen committed.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter loads;
+    private final Counter coalesced;
+
+    SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.loads = Counter.builder("wallet.singleflight.loads")
+                .description("Coalescable reads that ran their own query")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("wallet.singleflight.coalesced")
+                .description("Reads that shared the result of a query already running")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    V load(K key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+        Flight<V> flight = new Flight<>(generation.get());
+        while (true) {
+            Flight<V> running = flights.putIfAbsent(key, flight);
+            if (running == null) {
+                break;
+            }
+            if (running.generation == flight.generation) {
+                coalesced.increment();
+                return running.await();
+            }
+            // Started before a change was committed: later callers wait for a fresh load
+            if (flights.replace(key, running, flight)) {
+                break;
+            }
+        }
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Stop callers from joining loads that are running now, once the current transaction
+     * commits (immediately without one).
+     */
+    void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+
+    private static final class Flight<V> {
+
+        final long generation;
+        final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Flight(long generation) {
+            this.generation = generation;
+        }
+
+        V await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+    }
+}
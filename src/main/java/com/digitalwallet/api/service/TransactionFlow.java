@@ -0,0 +1,341 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.repository.TransactionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of the transaction flow, so throughput and the approval backlog are read
+ * without counting rows:
+ * <ul>
+ *   <li>transactions created, approved and denied per second, over the last 10 and 60 seconds</li>
+ *   <li>the PENDING transactions by type and wallet currency, and how long they have waited</li>
+ *   <li>approval latency: approval time minus {@link Transaction#getCreatedAt()}</li>
+ * </ul>
+ * Fed by {@link TransactionService} with every {@link TransactionChangedEvent} and applied once
+ * the change commits. The pending set is loaded once at startup.
+ */
+@Component
+@Slf4j
+public class TransactionFlow {
+
+    public static final String CREATED = "created";
+    public static final String APPROVED = "approved";
+    public static final String DENIED = "denied";
+
+    private final TransactionRepository transactionRepository;
+    private final Clock clock;
+
+    private final EventRate created = new EventRate();
+    private final EventRate approved = new EventRate();
+    private final EventRate denied = new EventRate();
+    // By id, which follows creation order, so the first entry is the oldest
+    private final ConcurrentSkipListMap<Long, Pending> pending = new ConcurrentSkipListMap<>();
+    private final Map<Transaction.TransactionType, Map<Wallet.Currency, AtomicLong>> pendingCounts =
+            new EnumMap<>(Transaction.TransactionType.class);
+    private final Map<Transaction.TransactionType, Timer> approvalLatency = new EnumMap<>(Transaction.TransactionType.class);
+
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+    private Set<Long> decidedWhileLoading = new HashSet<>(); // Guarded by loadLock
+
+    @Autowired
+    public TransactionFlow(TransactionRepository transactionRepository, MeterRegistry meterRegistry) {
+        this(transactionRepository, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    TransactionFlow(TransactionRepository transactionRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.transactionRepository = transactionRepository;
+        this.clock = clock;
+        for (Transaction.TransactionType type : Transaction.TransactionType.values()) {
+            Map<Wallet.Currency, AtomicLong> byCurrency = new EnumMap<>(Wallet.Currency.class);
+            for (Wallet.Currency currency : Wallet.Currency.values()) {
+                AtomicLong count = new AtomicLong();
+                byCurrency.put(currency, count);
+                Gauge.builder("wallet.transactions.pending", count, AtomicLong::get)
+                        .description("PENDING transactions waiting for approval")
+                        .tag("type", type.name())
+                        .tag("currency", currency.name())
+                        .register(meterRegistry);
+            }
+            pendingCounts.put(type, byCurrency);
+            // Approvals take minutes to days, well past the default histogram range
+            approvalLatency.put(type, Timer.builder("wallet.transactions.approval.latency")
+                    .description("Time from creating a transaction to approving it")
+                    .tag("type", type.name())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofSeconds(1))
+                    .maximumExpectedValue(Duration.ofDays(7))
+                    .register(meterRegistry));
+        }
+        registerRate(meterRegistry, CREATED, created);
+        registerRate(meterRegistry, APPROVED, approved);
+        registerRate(meterRegistry, DENIED, denied);
+        Gauge.builder("wallet.transactions.pending.oldest.age", this, flow -> flow.oldestPendingAge().toMillis() / 1000.0)
+                .description("Seconds the oldest PENDING transaction has waited")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (loadLock) {
+            List<Object[]> rows = transactionRepository.findFlowEntriesByStatus(Transaction.TransactionStatus.PENDING);
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                if (!decidedWhileLoading.contains(id)) {
+                    addPending(id, new Pending((Transaction.TransactionType) row[1], (Wallet.Currency) row[2],
+                            (LocalDateTime) row[3]));
+                }
+            }
+            decidedWhileLoading = null;
+            loaded = true;
+        }
+        log.info("Transaction flow loaded with {} pending transactions", pending.size());
+    }
+
+    /**
+     * Record a change once the transaction making it commits. Called inside it, while the
+     * wallet's currency can still be read.
+     */
+    void changed(TransactionChangedEvent event) {
+        Transaction transaction = event.getTransaction();
+        Long id = transaction.getId();
+        Pending entry = new Pending(transaction.getType(), transaction.getWallet().getCurrency(), transaction.getCreatedAt());
+        Runnable apply = switch (event.getChange()) {
+            case CREATED -> () -> {
+                created.increment(clock.millis());
+                addPending(id, entry);
+            };
+            case APPROVED -> () -> {
+                approved.increment(clock.millis());
+                decided(id);
+                if (entry.createdAt() != null) {
+                    approvalLatency.get(entry.type()).record(Duration.between(entry.createdAt(), LocalDateTime.now(clock)));
+                }
+            };
+            case DENIED -> () -> {
+                denied.increment(clock.millis());
+                decided(id);
+            };
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    public FlowSnapshot snapshot() {
+        long now = clock.millis();
+        LocalDateTime nowDateTime = LocalDateTime.now(clock);
+        long[] ages = new long[AgeBucket.values().length];
+        for (Pending entry : pending.values()) {
+            ages[AgeBucket.of(entry.age(nowDateTime)).ordinal()]++;
+        }
+        Map<String, Long> ageDistribution = new LinkedHashMap<>();
+        for (AgeBucket bucket : AgeBucket.values()) {
+            ageDistribution.put(bucket.label, ages[bucket.ordinal()]);
+        }
+        Map<String, Map<String, Long>> byTypeAndCurrency = new LinkedHashMap<>();
+        pendingCounts.forEach((type, byCurrency) -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            byCurrency.forEach((currency, count) -> counts.put(currency.name(), count.get()));
+            byTypeAndCurrency.put(type.name(), counts);
+        });
+        Map<String, Rates> rates = new LinkedHashMap<>();
+        rates.put(CREATED, created.rates(now));
+        rates.put(APPROVED, approved.rates(now));
+        rates.put(DENIED, denied.rates(now));
+        Map<String, Latency> latencies = new LinkedHashMap<>();
+        approvalLatency.forEach((type, timer) -> latencies.put(type.name(), Latency.of(timer.takeSnapshot())));
+        return new FlowSnapshot(rates, rates.get(CREATED).last60s() - rates.get(APPROVED).last60s() - rates.get(DENIED).last60s(),
+                pending.size(), byTypeAndCurrency, ageDistribution, oldestPendingAge(nowDateTime).toMillis() / 1000.0,
+                latencies);
+    }
+
+    private void addPending(Long id, Pending entry) {
+        if (id != null && pending.putIfAbsent(id, entry) == null) {
+            pendingCounts.get(entry.type()).get(entry.currency()).incrementAndGet();
+        }
+    }
+
+    private void decided(Long id) {
+        if (!loaded) {
+            synchronized (loadLock) {
+                if (!loaded) {
+                    decidedWhileLoading.add(id);
+                }
+            }
+        }
+        Pending removed = id != null ? pending.remove(id) : null;
+        if (removed != null) {
+            pendingCounts.get(removed.type()).get(removed.currency()).decrementAndGet();
+        }
+    }
+
+    private Duration oldestPendingAge() {
+        return oldestPendingAge(LocalDateTime.now(clock));
+    }
+
+    private Duration oldestPendingAge(LocalDateTime now) {
+        Map.Entry<Long, Pending> oldest = pending.firstEntry();
+        return oldest != null ? oldest.getValue().age(now) : Duration.ZERO;
+    }
+
+    private void registerRate(MeterRegistry meterRegistry, String event, EventRate rate) {
+        Gauge.builder("wallet.transactions.rate", rate, r -> r.rates(clock.millis()).last60s())
+                .description("Transactions per second over the last minute")
+                .tag("event", event)
+                .register(meterRegistry);
+        FunctionCounter.builder("wallet.transactions", rate, EventRate::total)
+                .description("Transactions created, approved and denied")
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    private record Pending(Transaction.TransactionType type, Wallet.Currency currency, LocalDateTime createdAt) {
+
+        Duration age(LocalDateTime now) {
+            if (createdAt == null || createdAt.isAfter(now)) {
+                return Duration.ZERO;
+            }
+            return Duration.between(createdAt, now);
+        }
+    }
+
+    private enum AgeBucket {
+        UNDER_1M("<1m", Duration.ofMinutes(1)),
+        UNDER_5M("1m-5m", Duration.ofMinutes(5)),
+        UNDER_15M("5m-15m", Duration.ofMinutes(15)),
+        UNDER_1H("15m-1h", Duration.ofHours(1)),
+        UNDER_1D("1h-1d", Duration.ofDays(1)),
+        OVER_1D(">=1d", null);
+
+        private final String label;
+        private final Duration below;
+
+        AgeBucket(String label, Duration below) {
+            this.label = label;
+            this.below = below;
+        }
+
+        static AgeBucket of(Duration age) {
+            for (AgeBucket bucket : values()) {
+                if (bucket.below == null || age.compareTo(bucket.below) < 0) {
+                    return bucket;
+                }
+            }
+            return OVER_1D;
+        }
+    }
+
+    /**
+     * Events per second over the last 10 and 60 whole seconds, from per-second counts.
+     * Increments are synchronized; they follow a database commit, so they are never hot.
+     */
+    static final class EventRate {
+
+        private static final int WINDOW = 60;
+        // One more than the window, so the current second never overwrites its oldest
+        private static final int SLOTS = WINDOW + 1;
+
+        private final long[] seconds = new long[SLOTS];
+        private final long[] counts = new long[SLOTS];
+        private long total;
+
+        synchronized void increment(long nowMillis) {
+            long second = nowMillis / 1000;
+            int slot = (int) (second % SLOTS);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+            total++;
+        }
+
+        synchronized long total() {
+            return total;
+        }
+
+        synchronized Rates rates(long nowMillis) {
+            long current = nowMillis / 1000;
+            long last10 = 0;
+            long last60 = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                long age = current - seconds[i];
+                if (age >= 1 && age <= WINDOW) {
+                    last60 += counts[i];
+                    if (age <= 10) {
+                        last10 += counts[i];
+                    }
+                }
+            }
+            return new Rates(last10 / 10.0, (double) last60 / WINDOW);
+        }
+    }
+
+    /**
+     * Per second, over the last 10 and 60 whole seconds
+     */
+    public record Rates(double last10s, double last60s) {
+    }
+
+    /**
+     * Approval latency in seconds. Count and mean cover all approvals so far, max and percentiles the recent window.
+     */
+    public record Latency(long count, double meanSeconds, double maxSeconds, Map<String, Double> percentilesSeconds) {
+
+        static Latency of(HistogramSnapshot snapshot) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                percentiles.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.SECONDS));
+            }
+            return new Latency(snapshot.count(), snapshot.mean(TimeUnit.SECONDS), snapshot.max(TimeUnit.SECONDS), percentiles);
+        }
+    }
+
+    /**
+     * @param backlogGrowthPerSecond created minus approved and denied per second over the last
+     *                               minute; above zero, approvals are falling behind intake
+     */
+    public record FlowSnapshot(Map<String, Rates> perSecond, double backlogGrowthPerSecond, long pending,
+                               Map<String, Map<String, Long>> pendingByTypeAndCurrency,
+                               Map<String, Long> pendingAge, double oldestPendingSeconds,
+                               Map<String, Latency> approvalLatency) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.digitalwallet.api.service;
+
+/**
+ * Approving or denying a transaction that was already approved or denied.
+ */
+public class TransactionNotPendingException extends DomainException {
+
+    @Override
+    public String getCode() {
+        return "transaction_not_pending";
+    }
+
+    @Override
+    public String getMessage() {
+        return "Transaction is not in PENDING status";
+    }
+}
@@ -1,20 +1,33 @@
 package com.digitalwallet.api.service;
 
+import com.digitalwallet.api.dto.CreateTransactionRequest;
 import com.digitalwallet.api.entity.Transaction;
 import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.monitoring.WalletWrite;
+import com.digitalwallet.api.monitoring.jfr.DepositCreatedEvent;
+import com.digitalwallet.api.monitoring.jfr.TransactionApprovedEvent;
+import com.digitalwallet.api.monitoring.jfr.TransactionDeniedEvent;
+import com.digitalwallet.api.monitoring.jfr.WithdrawalCreatedEvent;
 import com.digitalwallet.api.repository.TransactionRepository;
 import com.digitalwallet.api.repository.WalletRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class TransactionService {
@@ -22,112 +35,199 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final WalletRepository walletRepository;
     private final WalletService walletService;
+    private final TransactionFlow transactionFlow;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<Transaction.TransactionStatus, List<Transaction>> statusLoads;
+
+    public TransactionService(TransactionRepository transactionRepository,
+                              WalletRepository walletRepository,
+                              WalletService walletService,
+                              TransactionFlow transactionFlow,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry) {
+        this.transactionRepository = transactionRepository;
+        this.walletRepository = walletRepository;
+        this.walletService = walletService;
+        this.transactionFlow = transactionFlow;
+        this.eventPublisher = eventPublisher;
+        this.statusLoads = new SingleFlight<>("transactions-by-status", meterRegistry);
+    }
 
     /**
      * Create a deposit transaction
      */
+    @WalletWrite("deposit")
     public Transaction createDepositTransaction(Long walletId, BigDecimal amount, 
                                             Transaction.OppositePartyType oppositePartyType, 
                                             String oppositeParty) {
-        log.info("Creating deposit transaction for wallet ID: {}", walletId);
+        return createDepositTransaction(walletId, amount, oppositePartyType, oppositeParty, null);
+    }
+
+    private Transaction createDepositTransaction(Long walletId, BigDecimal amount,
+                                                 Transaction.OppositePartyType oppositePartyType,
+                                                 String oppositeParty, String submissionId) {
+        return new DepositCreatedEvent(walletId, amount).record(() -> {
+            log.info("Creating deposit transaction for wallet ID: {}", walletId);
         
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+            // A new transaction changes the wallet's transaction list, so its version moves too
+            Wallet wallet = walletRepository.lockWithVersionIncrement(walletId)
+                    .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
-        if (!wallet.isActiveForShopping()) {
-            throw new IllegalArgumentException("Wallet is not active for shopping");
-        }
+            if (!wallet.isActiveForShopping()) {
+                throw new WalletInactiveException("shopping");
+            }
         
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount);
-        transaction.setType(Transaction.TransactionType.DEPOSIT);
-        transaction.setOppositePartyType(oppositePartyType);
-        transaction.setOppositeParty(oppositeParty);
-        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+            Transaction transaction = new Transaction();
+            transaction.setWallet(wallet);
+            transaction.setAmount(amount);
+            transaction.setType(Transaction.TransactionType.DEPOSIT);
+            transaction.setOppositePartyType(oppositePartyType);
+            transaction.setOppositeParty(oppositeParty);
+            transaction.setStatus(Transaction.TransactionStatus.PENDING);
+            transaction.setSubmissionId(submissionId);
         
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        log.info("Deposit transaction created successfully with ID: {}", savedTransaction.getId());
-        return savedTransaction;
+            Transaction savedTransaction = transactionRepository.save(transaction);
+            eventPublisher.publishEvent(new TransactionChangedEvent(savedTransaction, TransactionChangedEvent.Change.CREATED));
+            log.info("Deposit transaction created successfully with ID: {}", savedTransaction.getId());
+            return savedTransaction;
+        });
     }
 
     /**
      * Create a withdrawal transaction
      */
+    @WalletWrite("withdraw")
     public Transaction createWithdrawTransaction(Long walletId, BigDecimal amount, 
                                              Transaction.OppositePartyType oppositePartyType, 
                                              String oppositeParty) {
-        log.info("Creating withdrawal transaction for wallet ID: {}", walletId);
+        return createWithdrawTransaction(walletId, amount, oppositePartyType, oppositeParty, null);
+    }
+
+    private Transaction createWithdrawTransaction(Long walletId, BigDecimal amount,
+                                                  Transaction.OppositePartyType oppositePartyType,
+                                                  String oppositeParty, String submissionId) {
+        return new WithdrawalCreatedEvent(walletId, amount).record(() -> {
+            log.info("Creating withdrawal transaction for wallet ID: {}", walletId);
+        
+            // A new transaction changes the wallet's transaction list, so its version moves too
+            Wallet wallet = walletRepository.lockWithVersionIncrement(walletId)
+                    .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+            if (!wallet.isActiveForWithdraw()) {
+                throw new WalletInactiveException("withdrawal");
+            }
         
-        if (!wallet.isActiveForWithdraw()) {
-            throw new IllegalArgumentException("Wallet is not active for withdrawal");
-        }
+            if (wallet.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientBalanceException(wallet.getBalance(), amount);
+            }
         
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance. Available: " + wallet.getBalance() + ", Required: " + amount);
-        }
+            Transaction transaction = new Transaction();
+            transaction.setWallet(wallet);
+            transaction.setAmount(amount);
+            transaction.setType(Transaction.TransactionType.WITHDRAW);
+            transaction.setOppositePartyType(oppositePartyType);
+            transaction.setOppositeParty(oppositeParty);
+            transaction.setStatus(Transaction.TransactionStatus.PENDING);
+            transaction.setSubmissionId(submissionId);
+        
+            Transaction savedTransaction = transactionRepository.save(transaction);
+            eventPublisher.publishEvent(new TransactionChangedEvent(savedTransaction, TransactionChangedEvent.Change.CREATED));
+            log.info("Withdrawal transaction created successfully with ID: {}", savedTransaction.getId());
+            return savedTransaction;
+        });
+    }
+
+    /**
+     * Create the transactions of queued submissions in one database transaction. A submission
+     * rejected with a {@link DomainException} is reported in its outcome and does not affect the
+     * others; one whose transaction already exists (replayed after a restart) gets that
+     * transaction back.
+     *
+     * @param submissions requests by submission id, in the order they were submitted
+     */
+    @WalletWrite("submission_batch")
+    public List<SubmissionOutcome> createSubmittedTransactions(Map<String, CreateTransactionRequest> submissions) {
+        log.debug("Creating transactions for {} submissions", submissions.size());
         
-        Transaction transaction = new Transaction();
-        transaction.setWallet(wallet);
-        transaction.setAmount(amount);
-        transaction.setType(Transaction.TransactionType.WITHDRAW);
-        transaction.setOppositePartyType(oppositePartyType);
-        transaction.setOppositeParty(oppositeParty);
-        transaction.setStatus(Transaction.TransactionStatus.PENDING);
+        Map<String, Transaction> existing = transactionRepository.findBySubmissionIdIn(submissions.keySet()).stream()
+                .collect(Collectors.toMap(Transaction::getSubmissionId, transaction -> transaction));
         
-        Transaction savedTransaction = transactionRepository.save(transaction);
-        log.info("Withdrawal transaction created successfully with ID: {}", savedTransaction.getId());
-        return savedTransaction;
+        List<SubmissionOutcome> outcomes = new ArrayList<>(submissions.size());
+        submissions.forEach((submissionId, request) -> {
+            Transaction transaction = existing.get(submissionId);
+            if (transaction == null) {
+                try {
+                    transaction = request.getType() == Transaction.TransactionType.WITHDRAW
+                            ? createWithdrawTransaction(request.getWalletId(), request.getAmount(),
+                                    request.getOppositePartyType(), request.getOppositeParty(), submissionId)
+                            : createDepositTransaction(request.getWalletId(), request.getAmount(),
+                                    request.getOppositePartyType(), request.getOppositeParty(), submissionId);
+                } catch (DomainException e) {
+                    // Anything else fails the batch, and the queue reports it without its message
+                    outcomes.add(new SubmissionOutcome(submissionId, null, e.getMessage()));
+                    return;
+                }
+            }
+            outcomes.add(new SubmissionOutcome(submissionId, transaction, null));
+        });
+        return outcomes;
     }
 
     /**
      * Approve a transaction
      */
+    @WalletWrite("approve")
     public Transaction approveTransaction(Long transactionId) {
-        log.info("Approving transaction with ID: {}", transactionId);
+        return new TransactionApprovedEvent(transactionId).record(() -> {
+            log.info("Approving transaction with ID: {}", transactionId);
         
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new IllegalArgumentException("Transaction not found with ID: " + transactionId));
+            Transaction transaction = transactionRepository.findById(transactionId)
+                    .orElseThrow(() -> new NotFoundException("Transaction", transactionId));
         
-        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
-            throw new IllegalArgumentException("Transaction is not in PENDING status");
-        }
+            if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
+                throw new TransactionNotPendingException();
+            }
         
-        transaction.setStatus(Transaction.TransactionStatus.APPROVED);
+            transaction.setStatus(Transaction.TransactionStatus.APPROVED);
+            incrementWalletVersion(transaction);
         
-        // Update wallet balance based on transaction type
-        if (transaction.getType() == Transaction.TransactionType.DEPOSIT) {
-            walletService.addToWalletBalance(transaction.getWallet().getId(), transaction.getAmount());
-        } else if (transaction.getType() == Transaction.TransactionType.WITHDRAW) {
-            walletService.deductFromWalletBalance(transaction.getWallet().getId(), transaction.getAmount());
-        }
+            // Update wallet balance based on transaction type
+            if (transaction.getType() == Transaction.TransactionType.DEPOSIT) {
+                walletService.addToWalletBalance(transaction.getWallet().getId(), transaction.getAmount());
+            } else if (transaction.getType() == Transaction.TransactionType.WITHDRAW) {
+                walletService.deductFromWalletBalance(transaction.getWallet().getId(), transaction.getAmount());
+            }
         
-        Transaction approvedTransaction = transactionRepository.save(transaction);
-        log.info("Transaction approved successfully");
-        return approvedTransaction;
+            Transaction approvedTransaction = transactionRepository.save(transaction);
+            eventPublisher.publishEvent(new TransactionChangedEvent(approvedTransaction, TransactionChangedEvent.Change.APPROVED));
+            log.info("Transaction approved successfully");
+            return approvedTransaction;
+        });
     }
 
     /**
      * Deny a transaction
      */
+    @WalletWrite("deny")
     public Transaction denyTransaction(Long transactionId) {
-        log.info("Denying transaction with ID: {}", transactionId);
+        return new TransactionDeniedEvent(transactionId).record(() -> {
+            log.info("Denying transaction with ID: {}", transactionId);
         
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new IllegalArgumentException("Transaction not found with ID: " + transactionId));
+            Transaction transaction = transactionRepository.findById(transactionId)
+                    .orElseThrow(() -> new NotFoundException("Transaction", transactionId));
         
-        if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
-            throw new IllegalArgumentException("Transaction is not in PENDING status");
-        }
+            if (transaction.getStatus() != Transaction.TransactionStatus.PENDING) {
+                throw new TransactionNotPendingException();
+            }
         
-        transaction.setStatus(Transaction.TransactionStatus.DENIED);
+            transaction.setStatus(Transaction.TransactionStatus.DENIED);
+            incrementWalletVersion(transaction);
         
-        Transaction deniedTransaction = transactionRepository.save(transaction);
-        log.info("Transaction denied successfully");
-        return deniedTransaction;
+            Transaction deniedTransaction = transactionRepository.save(transaction);
+            eventPublisher.publishEvent(new TransactionChangedEvent(deniedTransaction, TransactionChangedEvent.Change.DENIED));
+            log.info("Transaction denied successfully");
+            return deniedTransaction;
+        });
     }
 
     /**
@@ -135,7 +235,40 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public Optional<Transaction> getTransactionById(Long id) {
-        return transactionRepository.findById(id);
+        return transactionRepository.findWithWalletById(id);
+    }
+
+    /**
+     * Get the transaction created for a queued submission
+     */
+    @Transactional(readOnly = true)
+    public Optional<Transaction> getTransactionBySubmissionId(String submissionId) {
+        return transactionRepository.findBySubmissionId(submissionId);
+    }
+
+    /**
+     * Get transaction by ID only if it belongs to the customer (authorize and fetch in one query)
+     */
+    @Transactional(readOnly = true)
+    public Optional<Transaction> getTransactionByIdForCustomer(Long id, Long customerId) {
+        return transactionRepository.findByIdAndWalletCustomerId(id, customerId);
+    }
+
+    /**
+     * Get transactions by IDs, indexed by ID; IDs that do not exist are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Transaction> getTransactionsByIds(Collection<Long> ids) {
+        return IdChunks.fetch(ids, transactionRepository::findByIdIn, Transaction::getId);
+    }
+
+    /**
+     * Get those of the transactions that belong to the customer, indexed by ID (authorize and fetch in one query)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Transaction> getTransactionsByIdsForCustomer(Collection<Long> ids, Long customerId) {
+        return IdChunks.fetch(ids, chunk -> transactionRepository.findByIdInAndWalletCustomerId(chunk, customerId),
+                Transaction::getId);
     }
 
     /**
@@ -146,6 +279,14 @@ public class TransactionService {
         return transactionRepository.findByWalletId(walletId);
     }
 
+    /**
+     * Get all transactions for a wallet owned by the customer
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getTransactionsByWalletIdForCustomer(Long walletId, Long customerId) {
+        return transactionRepository.findByWalletIdAndWalletCustomerId(walletId, customerId);
+    }
+
     /**
      * Get transactions by wallet ID and status
      */
@@ -154,6 +295,15 @@ public class TransactionService {
         return transactionRepository.findByWalletIdAndStatus(walletId, status);
     }
 
+    /**
+     * Get transactions by wallet ID and status for a wallet owned by the customer
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getTransactionsByWalletIdAndStatusForCustomer(Long walletId, Long customerId,
+                                                                           Transaction.TransactionStatus status) {
+        return transactionRepository.findByWalletIdAndWalletCustomerIdAndStatus(walletId, customerId, status);
+    }
+
     /**
      * Get all transactions
      */
@@ -163,19 +313,20 @@ public class TransactionService {
     }
 
     /**
-     * Get transactions by status
+     * Get transactions by status. Concurrent calls for the same status outside a transaction
+     * share one query and the list it returns, which they must not modify.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Transaction> getTransactionsByStatus(Transaction.TransactionStatus status) {
-        return transactionRepository.findByStatus(status);
+        return statusLoads.load(status, () -> transactionRepository.findByStatus(status));
     }
 
     /**
-     * Get pending transactions
+     * Get pending transactions, shared like {@link #getTransactionsByStatus}
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public List<Transaction> getPendingTransactions() {
-        return transactionRepository.findByStatus(Transaction.TransactionStatus.PENDING);
+        return getTransactionsByStatus(Transaction.TransactionStatus.PENDING);
     }
 
     /**
@@ -194,6 +345,15 @@ public class TransactionService {
         return transactionRepository.findByWalletIdAndType(walletId, type);
     }
 
+    /**
+     * Get transactions by wallet ID and type for a wallet owned by the customer
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getTransactionsByWalletIdAndTypeForCustomer(Long walletId, Long customerId,
+                                                                         Transaction.TransactionType type) {
+        return transactionRepository.findByWalletIdAndWalletCustomerIdAndType(walletId, customerId, type);
+    }
+
     /**
      * Get deposit transactions for a wallet
      */
@@ -217,4 +377,44 @@ public class TransactionService {
     public List<Transaction> getTransactionsByCustomerId(Long customerId) {
         return transactionRepository.findByWalletCustomerId(customerId);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Get the latest transactions of each of the customer's wallets, at most {@code limit} per wallet
+     */
+    @Transactional(readOnly = true)
+    public List<Transaction> getLatestTransactionsPerWallet(Long customerId, int limit) {
+        return transactionRepository.findLatestPerWalletByCustomerId(customerId, limit);
+    }
+
+    /**
+     * Get the customer's pending transactions counted and summed as (walletId, type, count, amount) rows
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> getPendingTotalsByCustomerId(Long customerId) {
+        return transactionRepository.summarizeByCustomerIdAndStatus(customerId, Transaction.TransactionStatus.PENDING);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        statusLoads.invalidateAfterCommit();
+        transactionFlow.changed(event);
+    }
+
+    /**
+     * Bump the version of the transaction's wallet, so cached copies of its transaction list go stale
+     */
+    private void incrementWalletVersion(Transaction transaction) {
+        walletRepository.lockWithVersionIncrement(transaction.getWallet().getId());
+    }
+
+    /**
+     * Result of one submission: its transaction, or why it was not created.
+     */
+    @lombok.Value
+    public static class SubmissionOutcome {
+        String submissionId;
+        Transaction transaction;
+        String error;
+    }
+}
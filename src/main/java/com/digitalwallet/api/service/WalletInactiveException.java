@@ -0,0 +1,23 @@
+package com.digitalwallet.api.service;
+
+/**
+ * A deposit into a wallet not active for shopping, or a withdrawal from one not active for withdrawal.
+ */
+public class WalletInactiveException extends DomainException {
+
+    private final String operation;
+
+    public WalletInactiveException(String operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    public String getCode() {
+        return "wallet_inactive";
+    }
+
+    @Override
+    public String getMessage() {
+        return "Wallet is not active for " + operation;
+    }
+}
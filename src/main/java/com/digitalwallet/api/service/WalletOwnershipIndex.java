@@ -0,0 +1,264 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.repository.WalletRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory walletId → customerId index for ownership checks. Primitive long arrays with
+ * linear-probing open addressing, so a lookup is a couple of array reads with no boxing and
+ * no DB round trip. Loaded at startup; a miss falls back to a single-column query.
+ */
+@Component
+@Slf4j
+public class WalletOwnershipIndex {
+
+    static final long NO_OWNER = -1L;
+
+    private static final long EMPTY = 0L; // Wallet ids start at 1
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final WalletRepository walletRepository;
+    private final StampedLock lock = new StampedLock();
+
+    private Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+    // Bumped under the write lock, so a lookup does not index a wallet deleted while it queried
+    private volatile long removals;
+
+    public WalletOwnershipIndex(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> ownerships = walletRepository.findAllWalletOwnerships();
+        for (Object[] ownership : ownerships) {
+            put((Long) ownership[0], (Long) ownership[1]);
+        }
+        log.info("Wallet ownership index loaded with {} wallets", size());
+    }
+
+    /**
+     * Check ownership from memory, querying the owner only when the wallet is not indexed yet.
+     */
+    public boolean isOwnedBy(long walletId, long customerId) {
+        long owner = loadOwnerOf(walletId);
+        return owner != NO_OWNER && owner == customerId;
+    }
+
+    /**
+     * Check that a wallet exists, from memory unless it is not indexed yet.
+     */
+    public boolean exists(long walletId) {
+        return loadOwnerOf(walletId) != NO_OWNER;
+    }
+
+    /**
+     * Index a new wallet once the creating transaction commits.
+     */
+    public void walletCreated(long walletId, long customerId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(walletId, customerId);
+                }
+            });
+        } else {
+            put(walletId, customerId);
+        }
+    }
+
+    /**
+     * Drop a deleted wallet right away, and again once the delete commits: until then other
+     * transactions still see the row, so a lookup in between indexes it again. A rolled back
+     * delete is simply re-read on the next miss.
+     */
+    public void walletDeleted(long walletId) {
+        remove(walletId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(walletId);
+                }
+            });
+        }
+    }
+
+    long ownerOf(long walletId) {
+        if (walletId <= EMPTY) {
+            return NO_OWNER;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long owner = probe(table, walletId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                owner = probe(table, walletId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return owner;
+    }
+
+    private long loadOwnerOf(long walletId) {
+        long owner = ownerOf(walletId);
+        if (owner == NO_OWNER) {
+            long removalsBefore = removals;
+            Long loaded = walletRepository.findCustomerIdById(walletId).orElse(null);
+            if (loaded == null) {
+                return NO_OWNER;
+            }
+            put(walletId, loaded, removalsBefore);
+            owner = loaded;
+        }
+        return owner;
+    }
+
+    void put(long walletId, long customerId) {
+        put(walletId, customerId, -1L);
+    }
+
+    /**
+     * Index the owner unless a wallet was removed since {@code removalsBefore} (-1 to index anyway).
+     */
+    private void put(long walletId, long customerId, long removalsBefore) {
+        if (walletId <= EMPTY) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (removalsBefore >= 0 && removals != removalsBefore) {
+                return; // Possibly this one, read before its delete committed; the next miss reads it again
+            }
+            if ((size + 1) * 2 > table.keys.length) {
+                resize(table.keys.length * 2);
+            }
+            long[] keys = table.keys;
+            long[] values = table.values;
+            int mask = keys.length - 1;
+            int slot = slot(walletId, mask);
+            while (keys[slot] != EMPTY && keys[slot] != walletId) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = walletId;
+                size++;
+            }
+            values[slot] = customerId;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(long walletId) {
+        if (walletId <= EMPTY) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            // Also when not indexed: a lookup running now may be about to index it
+            removals++;
+            long[] keys = table.keys;
+            long[] values = table.values;
+            int mask = keys.length - 1;
+            int slot = slot(walletId, mask);
+            while (keys[slot] != walletId) {
+                if (keys[slot] == EMPTY) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == EMPTY) {
+                    break;
+                }
+                int home = slot(keys[next], mask);
+                boolean canMove = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+                if (canMove) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    slot = next;
+                }
+            }
+            keys[slot] = EMPTY;
+            values[slot] = 0L;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.keys[i] != EMPTY) {
+                int slot = slot(old.keys[i], mask);
+                while (resized.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                resized.keys[slot] = old.keys[i];
+                resized.values[slot] = old.values[i];
+            }
+        }
+        table = resized; // Keys and values swap together for optimistic readers
+    }
+
+    private static long probe(Table table, long walletId) {
+        long[] keys = table.keys;
+        long[] values = table.values;
+        int mask = keys.length - 1;
+        int slot = slot(walletId, mask);
+        // Bounded so an optimistic read racing a writer cannot spin forever
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = keys[slot];
+            if (key == walletId) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return NO_OWNER;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_OWNER;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final long[] values;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+        }
+    }
+}
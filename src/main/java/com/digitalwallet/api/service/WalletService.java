@@ -2,50 +2,110 @@ package com.digitalwallet.api.service;
 
 import com.digitalwallet.api.entity.Customer;
 import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.event.WalletChangedEvent;
+import com.digitalwallet.api.monitoring.WalletWrite;
+import com.digitalwallet.api.monitoring.jfr.BalanceChangedEvent;
 import com.digitalwallet.api.repository.CustomerRepository;
 import com.digitalwallet.api.repository.WalletRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class WalletService {
 
     private final WalletRepository walletRepository;
     private final CustomerRepository customerRepository;
+    private final WalletOwnershipIndex walletOwnershipIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<WalletLookup, Optional<Wallet>> walletLoads;
+
+    public WalletService(WalletRepository walletRepository,
+                         CustomerRepository customerRepository,
+                         WalletOwnershipIndex walletOwnershipIndex,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.customerRepository = customerRepository;
+        this.walletOwnershipIndex = walletOwnershipIndex;
+        this.eventPublisher = eventPublisher;
+        this.walletLoads = new SingleFlight<>("wallet", meterRegistry);
+    }
 
     /**
      * Create a new wallet for a customer
      */
+    @WalletWrite("create")
     public Wallet createWallet(Long customerId, Wallet wallet) {
         log.info("Creating wallet for customer ID: {}", customerId);
         
         Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new IllegalArgumentException("Customer not found with ID: " + customerId));
+                .orElseThrow(() -> new NotFoundException("Customer", customerId));
         
         wallet.setCustomer(customer);
         wallet.setBalance(BigDecimal.ZERO);
         wallet.setUsableBalance(BigDecimal.ZERO);
         
         Wallet savedWallet = walletRepository.save(wallet);
+        walletOwnershipIndex.walletCreated(savedWallet.getId(), customerId);
+        walletLoads.invalidateAfterCommit();
         log.info("Wallet created successfully with ID: {}", savedWallet.getId());
         return savedWallet;
     }
 
     /**
-     * Get wallet by ID
+     * Get wallet by ID. Concurrent calls for the same wallet outside a transaction share one
+     * query and the wallet it returns, which they must not modify.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Wallet> getWalletById(Long id) {
-        return walletRepository.findById(id);
+        return walletLoads.load(new WalletLookup(id, null), () -> walletRepository.findWithCustomerById(id));
+    }
+
+    /**
+     * Get the version of a wallet, which changes with its balance and its transactions
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> getWalletVersion(Long id) {
+        return walletRepository.findVersionById(id);
+    }
+
+    /**
+     * Get wallet by ID only if it belongs to the customer (authorize and fetch in one query).
+     * Shared like {@link #getWalletById(Long)}, but only between calls for the same customer.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<Wallet> getWalletByIdForCustomer(Long id, Long customerId) {
+        return walletLoads.load(new WalletLookup(id, customerId), () -> walletRepository.findByIdAndCustomerId(id, customerId));
+    }
+
+    /**
+     * Get wallets by IDs, indexed by ID; IDs that do not exist are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Wallet> getWalletsByIds(Collection<Long> ids) {
+        return IdChunks.fetch(ids, walletRepository::findByIdIn, Wallet::getId);
+    }
+
+    /**
+     * Get those of the wallets that belong to the customer, indexed by ID (authorize and fetch in one query)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Wallet> getWalletsByIdsForCustomer(Collection<Long> ids, Long customerId) {
+        return IdChunks.fetch(ids, chunk -> walletRepository.findByIdInAndCustomerId(chunk, customerId), Wallet::getId);
     }
 
     /**
@@ -75,73 +135,87 @@ public class WalletService {
     /**
      * Update wallet balance
      */
+    @WalletWrite("balance_set")
     public Wallet updateWalletBalance(Long walletId, BigDecimal newBalance) {
-        log.info("Updating wallet balance for wallet ID: {}", walletId);
+        return new BalanceChangedEvent(BalanceChangedEvent.SET, walletId, newBalance).record(() -> {
+            log.info("Updating wallet balance for wallet ID: {}", walletId);
         
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+            Wallet wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
-        wallet.setBalance(newBalance);
-        wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
+            wallet.setBalance(newBalance);
+            wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
         
-        Wallet updatedWallet = walletRepository.save(wallet);
-        log.info("Wallet balance updated successfully");
-        return updatedWallet;
+            Wallet updatedWallet = walletRepository.save(wallet);
+            eventPublisher.publishEvent(new WalletChangedEvent(updatedWallet));
+            log.info("Wallet balance updated successfully");
+            return updatedWallet;
+        });
     }
 
     /**
      * Add amount to wallet balance
      */
+    @WalletWrite("balance_add")
     public Wallet addToWalletBalance(Long walletId, BigDecimal amount) {
-        log.info("Adding {} to wallet balance for wallet ID: {}", amount, walletId);
+        return new BalanceChangedEvent(BalanceChangedEvent.ADD, walletId, amount).record(() -> {
+            log.info("Adding {} to wallet balance for wallet ID: {}", amount, walletId);
         
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+            Wallet wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
-        BigDecimal newBalance = wallet.getBalance().add(amount);
-        wallet.setBalance(newBalance);
-        wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
+            BigDecimal newBalance = wallet.getBalance().add(amount);
+            wallet.setBalance(newBalance);
+            wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
         
-        Wallet updatedWallet = walletRepository.save(wallet);
-        log.info("Amount added to wallet balance successfully");
-        return updatedWallet;
+            Wallet updatedWallet = walletRepository.save(wallet);
+            eventPublisher.publishEvent(new WalletChangedEvent(updatedWallet));
+            log.info("Amount added to wallet balance successfully");
+            return updatedWallet;
+        });
     }
 
     /**
      * Deduct amount from wallet balance
      */
+    @WalletWrite("balance_deduct")
     public Wallet deductFromWalletBalance(Long walletId, BigDecimal amount) {
-        log.info("Deducting {} from wallet balance for wallet ID: {}", amount, walletId);
+        return new BalanceChangedEvent(BalanceChangedEvent.DEDUCT, walletId, amount).record(() -> {
+            log.info("Deducting {} from wallet balance for wallet ID: {}", amount, walletId);
         
-        Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+            Wallet wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new IllegalArgumentException("Insufficient balance. Available: " + wallet.getBalance() + ", Required: " + amount);
-        }
+            if (wallet.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientBalanceException(wallet.getBalance(), amount);
+            }
         
-        BigDecimal newBalance = wallet.getBalance().subtract(amount);
-        wallet.setBalance(newBalance);
-        wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
+            BigDecimal newBalance = wallet.getBalance().subtract(amount);
+            wallet.setBalance(newBalance);
+            wallet.setUsableBalance(newBalance); // For simplicity, usable balance equals balance
         
-        Wallet updatedWallet = walletRepository.save(wallet);
-        log.info("Amount deducted from wallet balance successfully");
-        return updatedWallet;
+            Wallet updatedWallet = walletRepository.save(wallet);
+            eventPublisher.publishEvent(new WalletChangedEvent(updatedWallet));
+            log.info("Amount deducted from wallet balance successfully");
+            return updatedWallet;
+        });
     }
 
     /**
      * Update wallet status (active for shopping/withdraw)
      */
+    @WalletWrite("status")
     public Wallet updateWalletStatus(Long walletId, boolean activeForShopping, boolean activeForWithdraw) {
         log.info("Updating wallet status for wallet ID: {}", walletId);
         
         Wallet wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new IllegalArgumentException("Wallet not found with ID: " + walletId));
+                .orElseThrow(() -> new NotFoundException("Wallet", walletId));
         
         wallet.setActiveForShopping(activeForShopping);
         wallet.setActiveForWithdraw(activeForWithdraw);
         
         Wallet updatedWallet = walletRepository.save(wallet);
+        eventPublisher.publishEvent(new WalletChangedEvent(updatedWallet));
         log.info("Wallet status updated successfully");
         return updatedWallet;
     }
@@ -149,14 +223,17 @@ public class WalletService {
     /**
      * Delete wallet
      */
+    @WalletWrite("delete")
     public void deleteWallet(Long id) {
         log.info("Deleting wallet with ID: {}", id);
         
         if (!walletRepository.existsById(id)) {
-            throw new IllegalArgumentException("Wallet not found with ID: " + id);
+            throw new NotFoundException("Wallet", id);
         }
         
         walletRepository.deleteById(id);
+        walletOwnershipIndex.walletDeleted(id);
+        walletLoads.invalidateAfterCommit();
         log.info("Wallet deleted successfully");
     }
 
@@ -193,11 +270,39 @@ public class WalletService {
     }
 
     /**
-     * Check if a wallet is owned by a specific customer
+     * Check if a wallet is owned by a specific customer (served from the in-memory ownership index)
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean isWalletOwnedByCustomer(Long walletId, Long customerId) {
-        Optional<Wallet> wallet = walletRepository.findById(walletId);
-        return wallet.isPresent() && wallet.get().getCustomer().getId().equals(customerId);
+        if (walletId == null || customerId == null) {
+            return false;
+        }
+        return walletOwnershipIndex.isOwnedBy(walletId, customerId);
+    }
+
+    /**
+     * Check if a wallet exists (served from the in-memory ownership index)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public boolean walletExists(Long walletId) {
+        return walletId != null && walletOwnershipIndex.exists(walletId);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void onWalletChanged(WalletChangedEvent event) {
+        walletLoads.invalidateAfterCommit();
+    }
+
+    /**
+     * Transactions move the wallet's balances too.
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        walletLoads.invalidateAfterCommit();
+    }
+
+    private record WalletLookup(Long walletId, Long customerId) {
     }
 } 
\ No newline at end of file
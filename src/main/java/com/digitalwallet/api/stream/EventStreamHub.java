@@ -0,0 +1,377 @@
+package com.digitalwallet.api.stream;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of Server-Sent Events to subscribers grouped by topic. An event is serialized once
+ * into an SSE frame and the same frame is queued to every subscriber of its topic. Each
+ * subscriber has a bounded queue drained by a small shared sender pool, so a connection holds
+ * no thread while idle; a subscriber whose queue overflows is disconnected and reconnects with
+ * a fresh snapshot instead of holding the others back. A send that does not finish within the
+ * send timeout (a client that stopped reading with a full socket buffer) gets its subscriber
+ * evicted, and the sender pool gets a thread in place of the one stuck in it until the write
+ * fails. On virtual threads each drain gets its own thread instead, so a client that stops
+ * reading blocks only its own sends.
+ */
+@Component
+@Slf4j
+public class EventStreamHub {
+
+    // Subscriber send states: a stalled send was evicted, and its thread replaced in the sender pool or not
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STALLED = 2;
+    private static final int STALLED_REPLACED = 3;
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int maxReplacementThreads;
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Executor sender;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter evictions;
+    // Sender threads stuck in the send of an evicted subscriber, replaced in the pool
+    private final AtomicInteger stuckSenders = new AtomicInteger();
+
+    public EventStreamHub(ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          WorkerThreads workerThreads,
+                          @Value("${wallet.stream.buffer-size:256}") int bufferSize,
+                          @Value("${wallet.stream.timeout:30m}") Duration timeout,
+                          @Value("${wallet.stream.heartbeat:15s}") Duration heartbeatInterval,
+                          @Value("${wallet.stream.sender-threads:2}") int senderThreads,
+                          @Value("${wallet.stream.send-timeout:5s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        // Bounds the pool while many clients stall at once; evictions go on beyond it
+        this.maxReplacementThreads = senderThreads * 8;
+        // Unbounded queue, but a subscriber has at most one drain task queued at a time
+        this.sender = workerThreads.taskExecutor("event-stream-", senderThreads);
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("event-stream-heartbeat-"));
+
+        // Comments keep idle connections open through proxies and find clients that went away
+        Frame heartbeatFrame = new Frame(0L, SseEmitter.event().comment("heartbeat").build());
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeat.scheduleAtFixedRate(() -> topics.values().forEach(subscribers ->
+                        subscribers.forEach(subscriber -> offer(subscriber, heartbeatFrame))),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        long checkMillis = Math.max(1, sendTimeout.toMillis() / 4);
+        heartbeat.scheduleAtFixedRate(this::evictStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("wallet.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open event stream connections")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("wallet.stream.evicted")
+                .description("Event stream subscribers disconnected for not keeping up or a send past its timeout")
+                .register(meterRegistry);
+        if (sender instanceof ThreadPoolExecutor pool) {
+            new ExecutorServiceMetrics(pool, "event-stream-sender", Tags.empty()).bindTo(meterRegistry);
+        }
+    }
+
+    /**
+     * Register a subscriber. Events published from now on are buffered for it, but nothing is
+     * sent until {@link #start} hands over the initial events.
+     */
+    public Subscriber subscribe(String topic) {
+        return subscribe(topic, new SseEmitter(timeoutMillis));
+    }
+
+    Subscriber subscribe(String topic, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(topic, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        topics.compute(topic, (key, subscribers) -> {
+            Set<Subscriber> updated = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        subscriberCount.incrementAndGet();
+        return subscriber;
+    }
+
+    /**
+     * Send the initial events, then everything buffered since {@link #subscribe}.
+     */
+    public void start(Subscriber subscriber, List<Frame> initialFrames) {
+        start(subscriber, initialFrames, 0L);
+    }
+
+    /**
+     * Send the initial events, then everything buffered since {@link #subscribe} except
+     * sequenced frames up to {@code skipThrough}, which the initial events already cover.
+     */
+    public void start(Subscriber subscriber, List<Frame> initialFrames, long skipThrough) {
+        for (Frame frame : initialFrames) {
+            if (!send(subscriber, frame)) {
+                return;
+            }
+        }
+        subscriber.skipThrough = skipThrough;
+        subscriber.started = true;
+        scheduleDrain(subscriber);
+    }
+
+    public boolean hasSubscribers(String topic) {
+        return topics.containsKey(topic);
+    }
+
+    /**
+     * Queue a frame to every subscriber of the topic.
+     */
+    public void publish(String topic, Frame frame) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> offer(subscriber, frame));
+        }
+    }
+
+    /**
+     * Publish once the current transaction commits, or right away outside a transaction.
+     */
+    public void publishAfterCommit(String topic, Frame frame) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(topic, frame);
+                }
+            });
+        } else {
+            publish(topic, frame);
+        }
+    }
+
+    /**
+     * Build an SSE frame with a JSON payload, serialized once for all subscribers.
+     */
+    public Frame frame(String eventName, Object data) {
+        return new Frame(0L, SseEmitter.event().name(eventName).data(json(data)).build());
+    }
+
+    public String json(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + data.getClass().getSimpleName(), e);
+        }
+    }
+
+    int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+        topics.values().forEach(subscribers -> subscribers.forEach(this::close));
+    }
+
+    private void offer(Subscriber subscriber, Frame frame) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(frame)) {
+            evictions.increment();
+            log.warn("Disconnecting slow event stream subscriber on {} ({} events buffered)", subscriber.topic, bufferSize);
+            close(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.started && subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                close(subscriber); // Shutting down
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        subscriber.onSender = true;
+        do {
+            Frame frame;
+            while ((frame = subscriber.queue.poll()) != null) {
+                if (frame.getSequence() != 0L && frame.getSequence() <= subscriber.skipThrough) {
+                    continue;
+                }
+                if (!send(subscriber, frame)) {
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // A frame queued after the last poll but before the flag was cleared is picked up here
+        } while (!subscriber.queue.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private boolean send(Subscriber subscriber, Frame frame) {
+        if (subscriber.closed.get()) {
+            return false;
+        }
+        subscriber.sendStartedNanos = System.nanoTime();
+        subscriber.sendState.set(SENDING);
+        int state = IDLE;
+        try {
+            subscriber.emitter.send(frame.getData());
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Event stream subscriber on {} went away: {}", subscriber.topic, e.getMessage());
+            close(subscriber);
+            return false;
+        } finally {
+            state = subscriber.sendState.getAndSet(IDLE);
+            if (state == STALLED_REPLACED) {
+                resizeSender(-1);
+            }
+        }
+        if (state != SENDING) {
+            // Evicted while the send was stuck; the emitter could not be completed until now
+            subscriber.emitter.complete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Evict the subscribers whose send has been running for longer than the send timeout. The
+     * emitter cannot be completed while its send holds it, so that is left to the stuck thread
+     * once the write returns or fails.
+     */
+    private void evictStalled() {
+        long now = System.nanoTime();
+        topics.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.sendState.get() != SENDING || now - subscriber.sendStartedNanos <= sendTimeoutNanos) {
+                return;
+            }
+            boolean replace = subscriber.onSender && sender instanceof ThreadPoolExecutor
+                    && stuckSenders.get() < maxReplacementThreads;
+            if (!subscriber.sendState.compareAndSet(SENDING, replace ? STALLED_REPLACED : STALLED)) {
+                return; // Finished in the meantime
+            }
+            if (replace) {
+                resizeSender(1);
+            }
+            evictions.increment();
+            log.warn("Disconnecting stalled event stream subscriber on {} (send running for {} ms)",
+                    subscriber.topic, TimeUnit.NANOSECONDS.toMillis(now - subscriber.sendStartedNanos));
+            remove(subscriber);
+        }));
+    }
+
+    /**
+     * Grow the platform sender pool by one thread per sender stuck in a stalled send, and shrink
+     * it back when the send returns.
+     */
+    private void resizeSender(int delta) {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) sender;
+        synchronized (pool) {
+            int size = pool.getCorePoolSize() + delta;
+            if (delta > 0) {
+                pool.setMaximumPoolSize(size);
+                pool.setCorePoolSize(size);
+            } else {
+                pool.setCorePoolSize(size);
+                pool.setMaximumPoolSize(size);
+            }
+        }
+        stuckSenders.addAndGet(delta);
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriber.queue.clear();
+        topics.computeIfPresent(subscriber.topic, (key, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    /**
+     * One open stream: its emitter and the frames not yet sent to it.
+     */
+    public static final class Subscriber {
+
+        private final String topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile long skipThrough;
+        private final AtomicInteger sendState = new AtomicInteger(IDLE);
+        private volatile long sendStartedNanos;
+        private volatile boolean onSender;
+
+        private Subscriber(String topic, SseEmitter emitter, BlockingQueue<Frame> queue) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        public SseEmitter getEmitter() {
+            return emitter;
+        }
+    }
+
+    /**
+     * A built SSE event. Events that can be resumed carry their sequence number, 0 otherwise.
+     */
+    @lombok.Value
+    public static class Frame {
+        long sequence;
+        Set<DataWithMediaType> data;
+    }
+}
@@ -0,0 +1,49 @@
+package com.digitalwallet.api.stream;
+
+import com.digitalwallet.api.dto.TransactionDto;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Pending transactions for approval consoles: a {@code snapshot} event with every pending
+ * transaction, then {@code created}, {@code approved} and {@code denied} events carrying the
+ * changed transaction as they commit. A delta may repeat a change already in the snapshot, so
+ * clients apply them by transaction id.
+ */
+@Component
+@RequiredArgsConstructor
+public class PendingTransactionStream {
+
+    static final String TOPIC = "pending-transactions";
+
+    private final EventStreamHub eventStreamHub;
+    private final TransactionService transactionService;
+
+    public SseEmitter subscribe() {
+        // Subscribe before reading the snapshot so nothing committed in between is missed
+        EventStreamHub.Subscriber subscriber = eventStreamHub.subscribe(TOPIC);
+        List<TransactionDto> pending = transactionService.getPendingTransactions().stream()
+                .map(TransactionDto::fromEntity)
+                .collect(Collectors.toList());
+        eventStreamHub.start(subscriber, List.of(eventStreamHub.frame("snapshot", pending)));
+        return subscriber.getEmitter();
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        if (!eventStreamHub.hasSubscribers(TOPIC)) {
+            return;
+        }
+        // Serialized here, while the wallet and customer can still be loaded, and sent after commit
+        String eventName = event.getChange().name().toLowerCase(Locale.ROOT);
+        eventStreamHub.publishAfterCommit(TOPIC, eventStreamHub.frame(eventName, TransactionDto.fromEntity(event.getTransaction())));
+    }
+}
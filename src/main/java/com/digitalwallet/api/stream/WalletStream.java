@@ -0,0 +1,216 @@
+package com.digitalwallet.api.stream;
+
+import com.digitalwallet.api.dto.TransactionDto;
+import com.digitalwallet.api.dto.WalletDto;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.event.WalletChangedEvent;
+import com.digitalwallet.api.service.WalletService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * A customer's wallets as a stream: a {@code snapshot} event with the wallets, then
+ * {@code wallet} events when a balance or status changes and {@code transaction} events when
+ * one of the wallets' transactions is created, approved or denied.
+ * <p>
+ * Events carry ids, and the last events of each recently connected customer are kept, so a
+ * client reconnecting with Last-Event-ID is sent just what it missed. When they are no longer
+ * kept, or the id is from before a restart, it gets a fresh snapshot instead.
+ */
+@Component
+@Slf4j
+public class WalletStream {
+
+    private static final String TOPIC_PREFIX = "customer-";
+
+    private final EventStreamHub eventStreamHub;
+    private final WalletService walletService;
+    private final Cache<Long, ReplayBuffer> replayBuffers;
+    private final int replaySize;
+    private final AtomicLong sequence = new AtomicLong();
+    // Distinguishes ids issued by this process from ids issued before a restart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public WalletStream(EventStreamHub eventStreamHub,
+                        WalletService walletService,
+                        @Value("${wallet.stream.replay-size:32}") int replaySize,
+                        @Value("${wallet.stream.replay-ttl:10m}") Duration replayTtl,
+                        @Value("${wallet.stream.replay-max-customers:10000}") long replayMaxCustomers) {
+        this.eventStreamHub = eventStreamHub;
+        this.walletService = walletService;
+        this.replaySize = replaySize;
+        this.replayBuffers = Caffeine.newBuilder()
+                .maximumSize(replayMaxCustomers)
+                .expireAfterAccess(replayTtl)
+                .build();
+    }
+
+    /**
+     * Open a stream for the customer, resuming after {@code lastEventId} when possible.
+     */
+    public SseEmitter subscribe(Long customerId, String lastEventId) {
+        // Subscribe before reading the snapshot or replay so nothing committed in between is missed
+        EventStreamHub.Subscriber subscriber = eventStreamHub.subscribe(topic(customerId));
+        ReplayBuffer buffer = replayBuffer(customerId);
+        long resumeAfter = sequenceOf(lastEventId);
+
+        List<EventStreamHub.Frame> missed = null;
+        long coveredThrough;
+        buffer.lock.lock();
+        try {
+            // Every event of this customer up to here is already published and in the buffer
+            coveredThrough = sequence.get();
+            if (resumeAfter >= 0 && resumeAfter >= buffer.droppedThrough) {
+                missed = buffer.after(resumeAfter);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+
+        if (missed != null) {
+            log.debug("Resuming wallet stream of customer {} with {} missed events", customerId, missed.size());
+            eventStreamHub.start(subscriber, missed, coveredThrough);
+        } else {
+            List<WalletDto> wallets = walletService.getWalletsByCustomerId(customerId).stream()
+                    .map(WalletDto::fromEntity)
+                    .collect(Collectors.toList());
+            EventStreamHub.Frame snapshot = new EventStreamHub.Frame(0L, SseEmitter.event()
+                    .id(eventId(coveredThrough))
+                    .name("snapshot")
+                    .data(eventStreamHub.json(wallets))
+                    .build());
+            eventStreamHub.start(subscriber, List.of(snapshot), coveredThrough);
+        }
+        return subscriber.getEmitter();
+    }
+
+    @EventListener
+    public void onWalletChanged(WalletChangedEvent event) {
+        Long customerId = event.getWallet().getCustomer().getId();
+        if (isFollowed(customerId)) {
+            publishAfterCommit(customerId, "wallet", eventStreamHub.json(WalletDto.fromEntity(event.getWallet())));
+        }
+    }
+
+    @EventListener
+    public void onTransactionChanged(TransactionChangedEvent event) {
+        Long customerId = event.getTransaction().getWallet().getCustomer().getId();
+        if (isFollowed(customerId)) {
+            publishAfterCommit(customerId, "transaction", eventStreamHub.json(TransactionDto.fromEntity(event.getTransaction())));
+        }
+    }
+
+    /**
+     * Connected now, or recently enough that a reconnect could resume; otherwise nothing is built.
+     */
+    private boolean isFollowed(Long customerId) {
+        return eventStreamHub.hasSubscribers(topic(customerId)) || replayBuffers.getIfPresent(customerId) != null;
+    }
+
+    private void publishAfterCommit(Long customerId, String eventName, String json) {
+        // The id is assigned after commit so that ids follow commit order
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(customerId, eventName, json);
+                }
+            });
+        } else {
+            publish(customerId, eventName, json);
+        }
+    }
+
+    private void publish(Long customerId, String eventName, String json) {
+        ReplayBuffer buffer = replayBuffer(customerId);
+        buffer.lock.lock();
+        try {
+            long eventSequence = sequence.incrementAndGet();
+            EventStreamHub.Frame frame = new EventStreamHub.Frame(eventSequence, SseEmitter.event()
+                    .id(eventId(eventSequence))
+                    .name(eventName)
+                    .data(json)
+                    .build());
+            buffer.append(frame, replaySize);
+            eventStreamHub.publish(topic(customerId), frame);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    private ReplayBuffer replayBuffer(Long customerId) {
+        // A new buffer cannot replay anything published before it existed
+        return replayBuffers.get(customerId, id -> new ReplayBuffer(sequence.get()));
+    }
+
+    private String eventId(long eventSequence) {
+        return epoch + "-" + eventSequence;
+    }
+
+    /**
+     * @return the sequence number of an id issued by this process, or -1
+     */
+    long sequenceOf(String eventId) {
+        if (eventId == null || !eventId.startsWith(epoch + "-")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(eventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static String topic(Long customerId) {
+        return TOPIC_PREFIX + customerId;
+    }
+
+    /**
+     * The last events of one customer. Guarded by its lock, which is held while publishing (a
+     * slow subscriber can be completed there), so it is not a monitor that would pin a virtual
+     * thread.
+     */
+    private static final class ReplayBuffer {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<EventStreamHub.Frame> frames = new ArrayDeque<>();
+        // Highest sequence number that can no longer be replayed
+        private long droppedThrough;
+
+        ReplayBuffer(long droppedThrough) {
+            this.droppedThrough = droppedThrough;
+        }
+
+        void append(EventStreamHub.Frame frame, int capacity) {
+            if (frames.size() == capacity) {
+                droppedThrough = frames.removeFirst().getSequence();
+            }
+            frames.addLast(frame);
+        }
+
+        List<EventStreamHub.Frame> after(long sequence) {
+            List<EventStreamHub.Frame> missed = new ArrayList<>();
+            for (EventStreamHub.Frame frame : frames) {
+                if (frame.getSequence() > sequence) {
+                    missed.add(frame);
+                }
+            }
+            return missed;
+        }
+    }
+}
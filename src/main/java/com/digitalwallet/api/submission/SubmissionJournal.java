@@ -0,0 +1,208 @@
+package com.digitalwallet.api.submission;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Append-only file of accepted submissions, so that accepted but unprocessed submissions
+ * survive a restart. One line per record: {@code S <json>} when a submission is accepted and
+ * {@code D <id>} once it is processed.
+ * <p>
+ * Accepted records are forced to disk before the submission is acknowledged, in groups: a
+ * caller whose record was already covered by another caller's force returns without forcing
+ * again, so concurrent submissions share one fsync. Done records are not forced; losing one
+ * only means the submission is looked up again after a restart.
+ * <p>
+ * The locks are {@link ReentrantLock}s rather than monitors because they are held across file
+ * writes and forces, which would pin a virtual thread to its carrier.
+ */
+@Slf4j
+class SubmissionJournal implements Closeable {
+
+    private static final char SUBMITTED = 'S';
+    private static final char DONE = 'D';
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private volatile FileChannel channel;
+    private long written; // Records written, guarded by writeLock
+    private long forced; // Records forced to disk, guarded by forceLock
+
+    SubmissionJournal(Path file, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        Files.createDirectories(this.file.getParent());
+        this.channel = open(this.file);
+    }
+
+    /**
+     * Submissions accepted but not processed, in the order they were accepted.
+     */
+    List<TransactionSubmission> replay() throws IOException {
+        Map<String, TransactionSubmission> pending = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.length() < 3) {
+                    continue;
+                }
+                if (line.charAt(0) == DONE) {
+                    pending.remove(line.substring(2));
+                } else if (line.charAt(0) == SUBMITTED) {
+                    try {
+                        TransactionSubmission submission = objectMapper.readValue(line.substring(2), TransactionSubmission.class);
+                        pending.put(submission.getId(), submission);
+                    } catch (JsonProcessingException e) {
+                        // A record cut short by a crash was never acknowledged
+                        log.warn("Skipping unreadable submission journal record at line {}", lineNumber);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Replace the journal with just the given submissions, written to a new file first so a
+     * crash leaves either the old or the new journal.
+     */
+    void rewrite(List<TransactionSubmission> submissions) throws IOException {
+        writeLock.lock();
+        try {
+            Path rewritten = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (TransactionSubmission submission : submissions) {
+                    writeFully(out, submittedRecord(submission));
+                }
+                out.force(false);
+            }
+            channel.close();
+            Files.move(rewritten, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(file);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Record an accepted submission; once this returns it is on disk (unless fsync is off).
+     */
+    void submitted(TransactionSubmission submission) throws IOException {
+        long position = append(submittedRecord(submission));
+        if (fsync) {
+            force(position);
+        }
+    }
+
+    /**
+     * Record processed submissions.
+     */
+    void done(Collection<String> submissionIds) throws IOException {
+        StringBuilder records = new StringBuilder();
+        submissionIds.forEach(id -> records.append(DONE).append(' ').append(id).append('\n'));
+        append(records.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Empty the journal once it has grown past {@code size}, if nothing is pending. The check
+     * runs under the write lock, so no submission can be recorded in between.
+     */
+    boolean truncateIfLargerThan(long size, BooleanSupplier nothingPending) throws IOException {
+        writeLock.lock();
+        try {
+            if (channel.size() <= size || !nothingPending.getAsBoolean()) {
+                return false;
+            }
+            channel.truncate(0L);
+            channel.force(false);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            channel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private byte[] submittedRecord(TransactionSubmission submission) throws JsonProcessingException {
+        return (SUBMITTED + " " + objectMapper.writeValueAsString(submission) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long append(byte[] record) throws IOException {
+        writeLock.lock();
+        try {
+            writeFully(channel, record);
+            return ++written;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void force(long position) throws IOException {
+        forceLock.lock();
+        try {
+            if (forced >= position) {
+                return; // Forced along with an earlier caller's record
+            }
+            long target;
+            writeLock.lock();
+            try {
+                target = written;
+            } finally {
+                writeLock.unlock();
+            }
+            channel.force(false);
+            forced = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,11 @@
+package com.digitalwallet.api.submission;
+
+/**
+ * Thrown when the submission queue is at capacity. Answered with 429 so clients back off and retry.
+ */
+public class SubmissionQueueFullException extends RuntimeException {
+
+    public SubmissionQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.digitalwallet.api.submission;
+
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deposit or withdrawal accepted for later processing, as recorded in the journal.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionSubmission {
+
+    private String id;
+    // Submitting customer, null when submitted by an employee or admin
+    private Long customerId;
+    private LocalDateTime submittedAt;
+    private CreateTransactionRequest request;
+}
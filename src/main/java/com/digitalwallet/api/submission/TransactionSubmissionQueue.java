@@ -0,0 +1,377 @@
+package com.digitalwallet.api.submission;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import com.digitalwallet.api.dto.TransactionSubmissionDto;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.service.InvalidRequestException;
+import com.digitalwallet.api.service.NotFoundException;
+import com.digitalwallet.api.service.TransactionService;
+import com.digitalwallet.api.service.WalletService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Accept-now, persist-later deposits and withdrawals. A submission is validated against
+ * in-memory state only, recorded in the local journal and queued; workers then create the
+ * transactions in batches, one database transaction per batch, through TransactionService.
+ * <p>
+ * Submissions still in the journal at startup are queued again. Each transaction stores its
+ * submission id, so one that was created before a crash but not yet marked done is found
+ * instead of created twice.
+ */
+@Component
+@Slf4j
+public class TransactionSubmissionQueue {
+
+    private final TransactionService transactionService;
+    private final WalletService walletService;
+    private final SubmissionJournal journal;
+    private final int capacity;
+    private final int batchSize;
+    private final int workerCount;
+    private final long journalCompactBytes;
+    private final BlockingQueue<TransactionSubmission> queue = new LinkedBlockingQueue<>();
+    // Queued or being processed; the depth also counts submissions being journaled
+    private final Map<String, TransactionSubmission> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Cache<String, Processed> processed;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    private final Counter completed;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter refused;
+    private final Timer latency;
+    private final DistributionSummary batchSizes;
+
+    public TransactionSubmissionQueue(TransactionService transactionService,
+                                      WalletService walletService,
+                                      ObjectMapper objectMapper,
+                                      MeterRegistry meterRegistry,
+                                      WorkerThreads workerThreads,
+                                      @Value("${wallet.submission.queue-capacity:10000}") int capacity,
+                                      @Value("${wallet.submission.workers:2}") int workerCount,
+                                      @Value("${wallet.submission.batch-size:100}") int batchSize,
+                                      @Value("${wallet.submission.journal:data/transaction-submissions.journal}") Path journalFile,
+                                      @Value("${wallet.submission.journal-fsync:true}") boolean journalFsync,
+                                      @Value("${wallet.submission.journal-compact-size:16MB}") DataSize journalCompactSize,
+                                      @Value("${wallet.submission.status-ttl:1h}") Duration statusTtl) throws IOException {
+        this.transactionService = transactionService;
+        this.walletService = walletService;
+        this.capacity = capacity;
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.journalCompactBytes = journalCompactSize.toBytes();
+        this.processed = Caffeine.newBuilder()
+                .maximumSize(Math.max(capacity * 10L, 10_000L))
+                .expireAfterWrite(statusTtl)
+                .build();
+        this.workers = Executors.newFixedThreadPool(workerCount, workerThreads.threadFactory("transaction-submission-"));
+
+        this.journal = new SubmissionJournal(journalFile, objectMapper, journalFsync);
+        List<TransactionSubmission> replayed = journal.replay();
+        // Drops processed records and anything cut short by a crash
+        journal.rewrite(replayed);
+        replayed.forEach(submission -> {
+            pending.put(submission.getId(), submission);
+            queue.add(submission);
+        });
+        depth.set(replayed.size());
+        if (!replayed.isEmpty()) {
+            log.info("Queued {} transaction submissions again from the journal", replayed.size());
+        }
+
+        Gauge.builder("wallet.submission.queue.depth", depth, AtomicInteger::get)
+                .description("Submissions accepted and not processed yet")
+                .register(meterRegistry);
+        Gauge.builder("wallet.submission.queue.age", queue, TransactionSubmissionQueue::oldestAgeSeconds)
+                .description("Time the oldest queued submission has been waiting")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.completed = processedCounter(meterRegistry, "completed");
+        this.rejected = processedCounter(meterRegistry, "rejected");
+        this.failed = processedCounter(meterRegistry, "failed");
+        this.refused = Counter.builder("wallet.submission.refused")
+                .description("Submissions answered with 429 because the queue was full")
+                .register(meterRegistry);
+        this.latency = Timer.builder("wallet.submission.latency")
+                .description("Time from accepting a submission to processing it")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("wallet.submission.batch.size")
+                .description("Submissions processed per database transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start processing once the application is ready, after the data it refers to is loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Validate, journal and queue a submission.
+     *
+     * @param customerId the submitting customer, or null for an employee or admin
+     * @throws InvalidRequestException when the request is invalid
+     * @throws SubmissionQueueFullException when the queue is at capacity
+     */
+    public TransactionSubmissionDto submit(CreateTransactionRequest request, Long customerId) {
+        validate(request);
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            refused.increment();
+            throw new SubmissionQueueFullException("Transaction submission queue is full (" + capacity + ")");
+        }
+
+        TransactionSubmission submission = new TransactionSubmission(
+                UUID.randomUUID().toString(), customerId, LocalDateTime.now(), request);
+        try {
+            journal.submitted(submission);
+        } catch (IOException e) {
+            depth.decrementAndGet();
+            throw new UncheckedIOException("Could not record transaction submission", e);
+        }
+        pending.put(submission.getId(), submission);
+        queue.add(submission);
+        return status(submission);
+    }
+
+    /**
+     * Get a submission's status
+     */
+    public Optional<TransactionSubmissionDto> getSubmission(String id) {
+        return findSubmission(id, null);
+    }
+
+    /**
+     * Get a submission's status only if the customer submitted it, or owns the wallet of the
+     * transaction it created
+     */
+    public Optional<TransactionSubmissionDto> getSubmissionForCustomer(String id, Long customerId) {
+        return findSubmission(id, Objects.requireNonNull(customerId));
+    }
+
+    int depth() {
+        return depth.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        // Unprocessed submissions stay in the journal and are queued again on the next start
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        journal.close();
+    }
+
+    private Optional<TransactionSubmissionDto> findSubmission(String id, Long customerId) {
+        TransactionSubmission submission = pending.get(id);
+        if (submission != null) {
+            return isVisibleTo(submission, customerId) ? Optional.of(status(submission)) : Optional.empty();
+        }
+        Processed done = processed.getIfPresent(id);
+        if (done != null) {
+            return isVisibleTo(done.submission, customerId) ? Optional.of(done.status) : Optional.empty();
+        }
+        // Processed before the last restart, or its status expired
+        return transactionService.getTransactionBySubmissionId(id)
+                .filter(transaction -> customerId == null || customerId.equals(transaction.getWallet().getCustomer().getId()))
+                .map(transaction -> TransactionSubmissionDto.builder()
+                        .id(id)
+                        .status(TransactionSubmissionDto.Status.COMPLETED)
+                        .transactionId(transaction.getId())
+                        .build());
+    }
+
+    private static boolean isVisibleTo(TransactionSubmission submission, Long customerId) {
+        return customerId == null || customerId.equals(submission.getCustomerId());
+    }
+
+    private void validate(CreateTransactionRequest request) {
+        if (request.getType() == null || request.getOppositePartyType() == null) {
+            throw new InvalidRequestException("Transaction type and opposite party type are required");
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidRequestException("Amount must be positive");
+        }
+        if (!StringUtils.hasText(request.getOppositeParty())) {
+            throw new InvalidRequestException("Opposite party is required");
+        }
+        // Served from the ownership index; whether it is active is checked when processed
+        if (!walletService.walletExists(request.getWalletId())) {
+            throw new NotFoundException("Wallet", request.getWalletId());
+        }
+    }
+
+    private void work() {
+        List<TransactionSubmission> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                TransactionSubmission first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Transaction submission worker failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<TransactionSubmission> batch) {
+        Map<String, CreateTransactionRequest> requests = new LinkedHashMap<>();
+        batch.forEach(submission -> requests.put(submission.getId(), submission.getRequest()));
+
+        List<TransactionService.SubmissionOutcome> outcomes;
+        try {
+            outcomes = transactionService.createSubmittedTransactions(requests);
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // Find the submission that breaks the batch instead of failing all of them
+                log.warn("Batch of {} transaction submissions failed, processing them one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(submission -> process(List.of(submission)));
+                return;
+            }
+            log.error("Transaction submission {} could not be processed", batch.get(0).getId(), e);
+            finish(batch, Map.of(batch.get(0).getId(), statusBuilder(batch.get(0))
+                    .status(TransactionSubmissionDto.Status.FAILED)
+                    .error("Could not be processed")
+                    .build()));
+            return;
+        }
+
+        Map<String, TransactionSubmissionDto> statuses = new LinkedHashMap<>();
+        Map<String, TransactionSubmission> byId = batch.stream()
+                .collect(Collectors.toMap(TransactionSubmission::getId, submission -> submission));
+        for (TransactionService.SubmissionOutcome outcome : outcomes) {
+            TransactionSubmissionDto.TransactionSubmissionDtoBuilder status = statusBuilder(byId.get(outcome.getSubmissionId()));
+            Transaction transaction = outcome.getTransaction();
+            statuses.put(outcome.getSubmissionId(), transaction != null
+                    ? status.status(TransactionSubmissionDto.Status.COMPLETED).transactionId(transaction.getId()).build()
+                    : status.status(TransactionSubmissionDto.Status.REJECTED).error(outcome.getError()).build());
+        }
+        batchSizes.record(batch.size());
+        finish(batch, statuses);
+    }
+
+    private void finish(List<TransactionSubmission> batch, Map<String, TransactionSubmissionDto> statuses) {
+        LocalDateTime now = LocalDateTime.now();
+        for (TransactionSubmission submission : batch) {
+            TransactionSubmissionDto status = statuses.get(submission.getId());
+            // Stored before leaving pending, so a status lookup never misses it
+            processed.put(submission.getId(), new Processed(submission, status));
+            pending.remove(submission.getId());
+            latency.record(Duration.between(submission.getSubmittedAt(), now));
+            switch (status.getStatus()) {
+                case COMPLETED -> completed.increment();
+                case REJECTED -> rejected.increment();
+                default -> failed.increment();
+            }
+        }
+        try {
+            journal.done(statuses.keySet());
+        } catch (IOException e) {
+            log.warn("Could not record processed submissions; they are looked up again on restart: {}", e.getMessage());
+        }
+        if (depth.addAndGet(-batch.size()) == 0) {
+            compactJournal();
+        }
+    }
+
+    private void compactJournal() {
+        try {
+            if (journal.truncateIfLargerThan(journalCompactBytes, () -> depth.get() == 0)) {
+                log.debug("Submission journal emptied");
+            }
+        } catch (IOException e) {
+            log.warn("Could not empty submission journal: {}", e.getMessage());
+        }
+    }
+
+    private static TransactionSubmissionDto status(TransactionSubmission submission) {
+        return statusBuilder(submission).status(TransactionSubmissionDto.Status.QUEUED).build();
+    }
+
+    private static TransactionSubmissionDto.TransactionSubmissionDtoBuilder statusBuilder(TransactionSubmission submission) {
+        return TransactionSubmissionDto.builder()
+                .id(submission.getId())
+                .submittedAt(submission.getSubmittedAt());
+    }
+
+    private static double oldestAgeSeconds(BlockingQueue<TransactionSubmission> queue) {
+        TransactionSubmission oldest = queue.peek();
+        return oldest == null ? 0.0 : Duration.between(oldest.getSubmittedAt(), LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    private static Counter processedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("wallet.submission.processed")
+                .description("Submissions processed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A processed submission with its final status.
+     */
+    private static final class Processed {
+
+        private final TransactionSubmission submission;
+        private final TransactionSubmissionDto status;
+
+        private Processed(TransactionSubmission submission, TransactionSubmissionDto status) {
+            this.submission = submission;
+            this.status = status;
+        }
+    }
+}
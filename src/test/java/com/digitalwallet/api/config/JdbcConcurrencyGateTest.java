@@ -0,0 +1,72 @@
+package com.digitalwallet.api.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcConcurrencyGateTest {
+
+    private final JdbcDataSource h2 = new JdbcDataSource();
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcConcurrencyGate gate;
+
+    @BeforeEach
+    void setUp() {
+        h2.setURL("jdbc:h2:mem:gate;DB_CLOSE_DELAY=-1");
+        meterRegistry = new SimpleMeterRegistry();
+        // One connection at a time, waiting at most 100ms
+        gate = new JdbcConcurrencyGate(h2, 1, Duration.ofMillis(100));
+        gate.bindTo(meterRegistry);
+    }
+
+    @Test
+    void testCallerBeyondPermitsTimesOut() throws Exception {
+        try (Connection connection = gate.getConnection()) {
+            assertTrue(connection.isValid(1));
+            assertEquals(1.0, meterRegistry.get("wallet.jdbc.gate.active").gauge().value());
+
+            assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+            assertEquals(1.0, meterRegistry.get("wallet.jdbc.gate.timeouts").functionCounter().count());
+        }
+        assertEquals(0.0, meterRegistry.get("wallet.jdbc.gate.active").gauge().value());
+    }
+
+    @Test
+    void testWaitingCallerGetsPermitWhenConnectionIsClosed() throws Exception {
+        JdbcConcurrencyGate patientGate = new JdbcConcurrencyGate(h2, 1, Duration.ofSeconds(5));
+        Connection first = patientGate.getConnection();
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return patientGate.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+        first.close();
+        try (Connection connection = second.get(5, TimeUnit.SECONDS)) {
+            assertFalse(connection.isClosed());
+        }
+    }
+
+    @Test
+    void testClosingTwiceReleasesOnePermit() throws Exception {
+        Connection connection = gate.getConnection();
+        connection.close();
+        connection.close();
+
+        try (Connection again = gate.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, gate::getConnection);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.digitalwallet.api.controller;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Employee;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.monitoring.QueryBudget;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.EmployeeRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.security.WalletPrincipal;
+import com.digitalwallet.api.service.TransactionService;
+import com.digitalwallet.api.service.WalletService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.digitalwallet.api.monitoring.TestSecurity.signIn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * SQL statement budgets for the hot read endpoints. Each wallet gets its own
+ * customer so lazy-loading per row shows up as extra statements. Requests run as a
+ * signed-in WalletPrincipal, as they do behind the login or token filters.
+ */
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@Transactional
+class QueryBudgetTest {
+
+    private static final int WALLETS = 3;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private MockMvc mockMvc;
+
+    private Employee employee;
+    private Wallet firstWallet;
+    private Transaction firstTransaction;
+    private Transaction otherCustomersTransaction;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .build();
+
+        employee = new Employee();
+        employee.setName("Budget");
+        employee.setSurname("Employee");
+        employee.setEmployeeId("EMP555"); // Unique employee ID to avoid conflicts
+        employee.setPassword("password");
+        employee.setRole(Employee.EmployeeRole.EMPLOYEE);
+        employee = employeeRepository.save(employee);
+
+        for (int i = 0; i < WALLETS; i++) {
+            Customer customer = new Customer();
+            customer.setName("Budget");
+            customer.setSurname("Customer" + i);
+            customer.setTckn("5555555555" + i); // Unique TCKN to avoid conflicts
+            customer.setPassword("password");
+            customer = customerRepository.save(customer);
+
+            Wallet wallet = new Wallet();
+            wallet.setWalletName("Budget Wallet " + i);
+            wallet.setCurrency(Wallet.Currency.TRY);
+            wallet.setActiveForShopping(true);
+            wallet.setActiveForWithdraw(true);
+            wallet.setCustomer(customer);
+            wallet = walletRepository.save(wallet);
+
+            Transaction transaction = transactionService.createDepositTransaction(
+                    wallet.getId(), BigDecimal.valueOf(10), Transaction.OppositePartyType.IBAN, "TR555555555");
+            transactionService.createDepositTransaction(
+                    wallet.getId(), BigDecimal.valueOf(20), Transaction.OppositePartyType.IBAN, "TR555555555");
+
+            if (i == 0) {
+                firstWallet = wallet;
+                firstTransaction = transaction;
+            } else if (i == 1) {
+                otherCustomersTransaction = transaction;
+            }
+        }
+
+        // Start every request from an empty persistence context, as a real request would
+        entityManager.flush();
+        entityManager.clear();
+
+        // Wallets saved through the repository are not indexed yet; a running app has them from startup
+        walletService.isWalletOwnedByCustomer(firstWallet.getId(), firstWallet.getCustomer().getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetPendingTransactions_StaysWithinBudget() throws Exception {
+        signIn(WalletPrincipal.employee(employee));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/transactions/pending"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testGetAllWallets_StaysWithinBudget() throws Exception {
+        signIn(WalletPrincipal.employee(employee));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/wallets"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_AsOwner_StaysWithinBudget() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/transactions/wallet/{walletId}", firstWallet.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testGetTransactionById_AsOwner_StaysWithinBudget() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/transactions/{id}", firstTransaction.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testGetTransactionById_AsOtherCustomer_IsForbiddenWithinBudget() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/transactions/{id}", otherCustomersTransaction.getId()))
+                .andExpect(status().isForbidden()));
+    }
+
+    @Test
+    void testGetWalletById_AsOwner_StaysWithinBudget() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/wallets/{id}", firstWallet.getId()))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testGetWalletsByIds_IsOneStatementPerChunk() throws Exception {
+        signIn(WalletPrincipal.employee(employee));
+        // The real wallets plus unknown IDs: 250 IDs, three chunks of up to 100
+        String ids = LongStream.range(firstWallet.getId(), firstWallet.getId() + 250)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        QueryBudget.assertAtMost(3, () -> mockMvc.perform(get("/api/wallets/batch").param("ids", ids))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(250))
+                .andExpect(jsonPath("$[0].status").value("FOUND")));
+    }
+
+    @Test
+    void testGetTransactionsByIds_AsOwner_IsOneStatement() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/transactions/batch")
+                        .param("ids", firstTransaction.getId() + "," + otherCustomersTransaction.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("FOUND"))
+                .andExpect(jsonPath("$[0].item.wallet.customer.id").value(firstWallet.getCustomer().getId()))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND")));
+    }
+
+    @Test
+    void testGetWalletById_NotModified_IsOneVersionLookup() throws Exception {
+        signIn(WalletPrincipal.customer(firstWallet.getCustomer()));
+        String eTag = mockMvc.perform(get("/api/wallets/{id}", firstWallet.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        QueryBudget.assertAtMost(1, () -> mockMvc.perform(get("/api/wallets/{id}", firstWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified()));
+    }
+}
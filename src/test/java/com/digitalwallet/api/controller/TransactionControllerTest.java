@@ -8,22 +8,32 @@ import com.digitalwallet.api.repository.CustomerRepository;
 import com.digitalwallet.api.repository.EmployeeRepository;
 import com.digitalwallet.api.repository.TransactionRepository;
 import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.security.WalletPrincipal;
 import com.digitalwallet.api.service.TransactionService;
 import com.digitalwallet.api.service.WalletService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
 
+import static com.digitalwallet.api.monitoring.TestSecurity.signIn;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -54,6 +64,9 @@ class TransactionControllerTest {
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private MockMvc mockMvc;
 
     private Customer testCustomer;
@@ -115,6 +128,229 @@ class TransactionControllerTest {
         );
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_DefaultViewEmbedsWallet() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].wallet.customer.id").value(testCustomer.getId()));
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_CompactView() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .param("view", "compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testTransaction.getId()))
+                .andExpect(jsonPath("$[0].walletId").value(testWallet.getId()))
+                .andExpect(jsonPath("$[0].customerId").value(testCustomer.getId()))
+                .andExpect(jsonPath("$[0].wallet").doesNotExist());
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_SparseFields() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .param("fields", "id,status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testTransaction.getId()))
+                .andExpect(jsonPath("$[0].status").value("PENDING"))
+                .andExpect(jsonPath("$[0].amount").doesNotExist())
+                .andExpect(jsonPath("$[0].wallet").doesNotExist());
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_Cbor() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        String jsonETag = mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult result = mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(testTransaction.getId().longValue(), body.get(0).get("id").asLong());
+        assertEquals(testCustomer.getId().longValue(), body.get(0).get("wallet").get("customer").get("id").asLong());
+        // Same version, different bytes: the tag must not match the JSON one
+        assertNotEquals(jsonETag, result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_SmileCompactViewWithSparseFields() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        MvcResult result = mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .accept("application/x-jackson-smile")
+                        .param("view", "compact")
+                        .param("fields", "id,walletId"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        JsonNode body = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals(testTransaction.getId().longValue(), body.get(0).get("id").asLong());
+        assertEquals(testWallet.getId().longValue(), body.get(0).get("walletId").asLong());
+        assertFalse(body.get(0).has("amount"));
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_IfNoneMatch_NotModifiedUntilNewTransaction() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        String eTag = mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+
+        // A new request starts a new persistence context; the wallet row is locked once per transaction
+        entityManager.flush();
+        entityManager.clear();
+        transactionService.createDepositTransaction(
+                testWallet.getId(), BigDecimal.valueOf(5), Transaction.OppositePartyType.IBAN, "TR123456789");
+
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void testGetTransactionsByWalletId_IfNoneMatch_OtherCustomerIsForbidden() throws Exception {
+        Customer otherCustomer = new Customer();
+        otherCustomer.setName("Other");
+        otherCustomer.setSurname("Customer");
+        otherCustomer.setTckn("77777777776"); // Unique TCKN to avoid conflicts
+        otherCustomer.setPassword("password");
+        otherCustomer = customerRepository.save(otherCustomer);
+
+        signIn(WalletPrincipal.customer(testCustomer));
+        String eTag = mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        signIn(WalletPrincipal.customer(otherCustomer));
+        mockMvc.perform(get("/api/transactions/wallet/{walletId}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testStreamPendingTransactions_StartsWithSnapshot() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        MvcResult result = mockMvc.perform(get("/api/transactions/pending/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("event:snapshot\ndata:["), body);
+        assertTrue(body.contains("\"id\":" + testTransaction.getId() + ","), body);
+    }
+
+    @Test
+    void testStreamPendingTransactions_AsCustomer_IsForbidden() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(get("/api/transactions/pending/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testCreateDepositTransaction_RespondAsync_IsAcceptedWithStatusUrl() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        MvcResult result = mockMvc.perform(post("/api/transactions/deposit")
+                        .header("Prefer", "respond-async")
+                        .param("walletId", testWallet.getId().toString())
+                        .param("amount", "25")
+                        .param("oppositePartyType", "IBAN")
+                        .param("oppositeParty", "TR999999999")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn();
+
+        String location = result.getResponse().getHeader("Location");
+        assertTrue(location.startsWith("/api/transactions/submissions/"), location);
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(location.substring(location.lastIndexOf('/') + 1)));
+
+        Customer otherCustomer = new Customer();
+        otherCustomer.setName("Other");
+        otherCustomer.setSurname("Customer");
+        otherCustomer.setTckn("77777777776"); // Unique TCKN to avoid conflicts
+        otherCustomer.setPassword("password");
+        otherCustomer = customerRepository.save(otherCustomer);
+        signIn(WalletPrincipal.customer(otherCustomer));
+        mockMvc.perform(get(location))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testCreateDepositTransaction_RespondAsync_InvalidAmount_ShouldReturn400() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(post("/api/transactions/deposit")
+                        .header("Prefer", "respond-async")
+                        .param("walletId", testWallet.getId().toString())
+                        .param("amount", "-5")
+                        .param("oppositePartyType", "IBAN")
+                        .param("oppositeParty", "TR999999999")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCreateWithdrawTransaction_InsufficientBalance_ShouldReturn400WithReason() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(post("/api/transactions/withdraw")
+                        .param("walletId", testWallet.getId().toString())
+                        .param("amount", "5000")
+                        .param("oppositePartyType", "IBAN")
+                        .param("oppositeParty", "TR999999999")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("insufficient_balance"))
+                .andExpect(jsonPath("$.message").value("Insufficient balance. Available: 100.00, Required: 5000"));
+    }
+
+    @Test
+    void testApproveTransaction_Twice_ShouldReturn400WithReason() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(put("/api/transactions/{id}/approve", testTransaction.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/transactions/{id}/approve", testTransaction.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("transaction_not_pending"));
+    }
+
+    @Test
+    void testApproveTransaction_Unknown_ShouldReturn404WithReason() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(put("/api/transactions/{id}/approve", 999999L))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("not_found"))
+                .andExpect(jsonPath("$.message").value("Transaction not found with ID: 999999"));
+    }
+
+    @Test
+    void testGetTransactionSubmission_Unknown_ShouldReturn404() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(get("/api/transactions/submissions/{id}", "00000000-0000-0000-0000-000000000000"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testCreateDepositTransaction_Unauthenticated_ShouldReturn401() throws Exception {
         mockMvc.perform(post("/api/transactions/deposit")
@@ -220,4 +456,4 @@ class TransactionControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isUnauthorized());
     }
-} 
\ No newline at end of file
+}
@@ -6,21 +6,30 @@ import com.digitalwallet.api.entity.Wallet;
 import com.digitalwallet.api.repository.CustomerRepository;
 import com.digitalwallet.api.repository.EmployeeRepository;
 import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.security.WalletPrincipal;
+import com.digitalwallet.api.service.CustomerService;
 import com.digitalwallet.api.service.WalletService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 
+import static com.digitalwallet.api.monitoring.TestSecurity.signIn;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -45,6 +54,9 @@ class WalletControllerTest {
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private CustomerService customerService;
+
     private MockMvc mockMvc;
 
     private Customer testCustomer;
@@ -94,6 +106,135 @@ class WalletControllerTest {
         testWallet = walletRepository.save(testWallet);
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetWalletsByCustomerId_CompactViewWithSparseFields() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(get("/api/wallets/customer/{customerId}", testCustomer.getId())
+                        .param("view", "compact")
+                        .param("fields", "id,customerId,balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testWallet.getId()))
+                .andExpect(jsonPath("$[0].customerId").value(testCustomer.getId()))
+                .andExpect(jsonPath("$[0].balance").exists())
+                .andExpect(jsonPath("$[0].walletName").doesNotExist())
+                .andExpect(jsonPath("$[0].customer").doesNotExist());
+    }
+
+    @Test
+    void testGetWalletById_IfNoneMatch_NotModifiedUntilBalanceChanges() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        String eTag = mockMvc.perform(get("/api/wallets/{id}", testWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/wallets/{id}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        walletService.addToWalletBalance(testWallet.getId(), BigDecimal.valueOf(25));
+
+        mockMvc.perform(get("/api/wallets/{id}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(25))
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    void testGetWalletById_IfNoneMatch_ModifiedAfterCustomerRename() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        String eTag = mockMvc.perform(get("/api/wallets/{id}", testWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customer.surname").value("Customer"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        Customer renamed = new Customer();
+        renamed.setName(testCustomer.getName());
+        renamed.setSurname("Renamed");
+        renamed.setPassword("password");
+        customerService.updateCustomer(testCustomer.getId(), renamed);
+
+        mockMvc.perform(get("/api/wallets/{id}", testWallet.getId())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customer.surname").value("Renamed"))
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    @Test
+    void testStreamWalletsForCurrentCustomer_StartsWithSnapshot() throws Exception {
+        signIn(WalletPrincipal.customer(testCustomer));
+        MvcResult result = mockMvc.perform(get("/api/wallets/me/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("id:"), body);
+        assertTrue(body.contains("\nevent:snapshot\ndata:[{\"id\":" + testWallet.getId() + ","), body);
+    }
+
+    @Test
+    void testStreamWalletsForCurrentCustomer_AsEmployee_ShouldReturn401() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(get("/api/wallets/me/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testGetWalletsByIds_InRequestOrderWithNotFoundMarkers() throws Exception {
+        Wallet otherWallet = walletForOtherCustomer();
+        signIn(WalletPrincipal.employee(testEmployee));
+        mockMvc.perform(get("/api/wallets/batch")
+                        .param("ids", otherWallet.getId() + ",999999," + testWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(otherWallet.getId()))
+                .andExpect(jsonPath("$[0].status").value("FOUND"))
+                .andExpect(jsonPath("$[0].item.walletName").value("Other Wallet"))
+                .andExpect(jsonPath("$[1].id").value(999999))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[1].item").doesNotExist())
+                .andExpect(jsonPath("$[2].id").value(testWallet.getId()))
+                .andExpect(jsonPath("$[2].item.customer.tckn").value("88888888888"));
+    }
+
+    @Test
+    void testGetWalletsByIds_AsCustomer_OtherCustomersWalletIsNotFound() throws Exception {
+        Wallet otherWallet = walletForOtherCustomer();
+        signIn(WalletPrincipal.customer(testCustomer));
+        mockMvc.perform(get("/api/wallets/batch")
+                        .param("ids", testWallet.getId() + "," + otherWallet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("FOUND"))
+                .andExpect(jsonPath("$[1].id").value(otherWallet.getId()))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void testGetWalletsByIds_TooManyIds_ShouldReturn400() throws Exception {
+        signIn(WalletPrincipal.employee(testEmployee));
+        String ids = String.join(",", Collections.nCopies(501, String.valueOf(testWallet.getId())));
+        mockMvc.perform(get("/api/wallets/batch").param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("bad_request"))
+                .andExpect(jsonPath("$.message").value("At most 500 IDs can be requested at once"));
+    }
+
+    @Test
+    void testGetWalletsByIds_Unauthenticated_ShouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/wallets/batch").param("ids", String.valueOf(testWallet.getId())))
+                .andExpect(status().isUnauthorized());
+    }
+
     @Test
     void testCreateWallet_Unauthenticated_ShouldReturn401() throws Exception {
         String walletRequest = "{\"walletName\":\"New Wallet\",\"currency\":\"TRY\",\"activeForShopping\":true,\"activeForWithdraw\":true}";
@@ -195,4 +336,21 @@ class WalletControllerTest {
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isUnauthorized());
     }
-} 
\ No newline at end of file
+
+    private Wallet walletForOtherCustomer() {
+        Customer otherCustomer = new Customer();
+        otherCustomer.setName("Other");
+        otherCustomer.setSurname("Customer");
+        otherCustomer.setTckn("88888888880"); // Unique TCKN to avoid conflicts
+        otherCustomer.setPassword("password");
+        otherCustomer = customerRepository.save(otherCustomer);
+
+        Wallet otherWallet = new Wallet();
+        otherWallet.setWalletName("Other Wallet");
+        otherWallet.setCurrency(Wallet.Currency.USD);
+        otherWallet.setActiveForShopping(true);
+        otherWallet.setActiveForWithdraw(true);
+        otherWallet.setCustomer(otherCustomer);
+        return walletRepository.save(otherWallet);
+    }
+}
@@ -0,0 +1,161 @@
+package com.digitalwallet.api.dto;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The entity writers must produce exactly what the DTOs they replace produce.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityListBodyTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Test
+    void testTransactionsAreWrittenLikeTheirDtos() throws Exception {
+        List<Transaction> transactions = transactions();
+        List<TransactionDto> dtos = transactions.stream().map(TransactionDto::fromEntity).collect(Collectors.toList());
+
+        assertEquals(objectMapper.writeValueAsString(dtos),
+                objectMapper.writeValueAsString(EntityListBody.transactions(transactions)));
+        assertArrayEquals(cborConverter.getObjectMapper().writeValueAsBytes(dtos),
+                cborConverter.getObjectMapper().writeValueAsBytes(EntityListBody.transactions(transactions)));
+    }
+
+    @Test
+    void testCompactViewAndFieldsAreWrittenLikeNarrowedDtos() throws Exception {
+        List<Transaction> transactions = transactions();
+        Set<String> fields = Set.of("id", "walletId", "amount", "createdAt");
+        List<CompactTransactionDto> compact = transactions.stream()
+                .map(CompactTransactionDto::fromEntity)
+                .collect(Collectors.toList());
+
+        assertEquals(retain(compact, fields),
+                objectMapper.readTree(objectMapper.writeValueAsString(EntityListBody.transactions(transactions).withRepresentation(true, fields))));
+        assertEquals(objectMapper.writeValueAsString(compact),
+                objectMapper.writeValueAsString(EntityListBody.transactions(transactions).withRepresentation(true, null)));
+
+        // Fields without the compact view narrow the transaction, not its embedded wallet
+        List<TransactionDto> dtos = transactions.stream().map(TransactionDto::fromEntity).collect(Collectors.toList());
+        Set<String> withWallet = Set.of("id", "wallet", "status");
+        assertEquals(retain(dtos, withWallet),
+                objectMapper.readTree(objectMapper.writeValueAsString(EntityListBody.transactions(transactions).withRepresentation(false, withWallet))));
+    }
+
+    @Test
+    void testWalletsAndCustomersAreWrittenLikeTheirDtos() throws Exception {
+        List<Wallet> wallets = transactions().stream().map(Transaction::getWallet).distinct().collect(Collectors.toList());
+        List<Customer> customers = wallets.stream().map(Wallet::getCustomer).distinct().collect(Collectors.toList());
+
+        assertEquals(objectMapper.writeValueAsString(wallets.stream().map(WalletDto::fromEntity).collect(Collectors.toList())),
+                objectMapper.writeValueAsString(EntityListBody.wallets(wallets)));
+        assertEquals(objectMapper.writeValueAsString(wallets.stream()
+                        .map(CompactWalletDto::fromEntity)
+                        .collect(Collectors.toList())),
+                objectMapper.writeValueAsString(EntityListBody.wallets(wallets).withRepresentation(true, null)));
+        assertEquals(objectMapper.writeValueAsString(customers.stream().map(CustomerDto::fromEntity).collect(Collectors.toList())),
+                objectMapper.writeValueAsString(EntityListBody.customers(customers)));
+        assertEquals("[]", objectMapper.writeValueAsString(EntityListBody.customers(List.of())));
+    }
+
+    @Test
+    void testDatesAreWrittenLikeTheMapperWritesThem() throws Exception {
+        Wallet wallet = transactions().get(0).getWallet();
+        List<Transaction> transactions = List.of(
+                transaction(1L, wallet, BigDecimal.ONE, Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.APPROVED, LocalDateTime.of(2026, 12, 31, 23, 59, 59, 1)),
+                transaction(2L, wallet, BigDecimal.ONE, Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.APPROVED, LocalDateTime.of(999, 1, 1, 0, 0, 0, 100000000)),
+                transaction(3L, wallet, BigDecimal.ONE, Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.APPROVED, LocalDateTime.of(12026, 1, 1, 0, 0)),
+                transaction(4L, wallet, BigDecimal.ONE, Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.APPROVED, null));
+        List<TransactionDto> dtos = transactions.stream().map(TransactionDto::fromEntity).collect(Collectors.toList());
+
+        assertEquals(objectMapper.writeValueAsString(dtos),
+                objectMapper.writeValueAsString(EntityListBody.transactions(transactions)));
+
+        // A mapper writing timestamps is followed too
+        ObjectMapper timestamps = objectMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        assertEquals(timestamps.writeValueAsString(dtos),
+                timestamps.writeValueAsString(EntityListBody.transactions(transactions)));
+    }
+
+    /**
+     * The DTOs as written, with only the listed top-level properties of each element kept.
+     */
+    private JsonNode retain(List<?> dtos, Set<String> fields) throws Exception {
+        JsonNode items = objectMapper.readTree(objectMapper.writeValueAsString(dtos));
+        items.forEach(item -> ((ObjectNode) item).retain(fields));
+        return items;
+    }
+
+    private static List<Transaction> transactions() {
+        Customer customer = new Customer();
+        customer.setId(7L);
+        customer.setName("Ayşe");
+        customer.setSurname("Yılmaz \"Jr\"");
+        customer.setTckn("12345678901");
+
+        Wallet tryWallet = wallet(11L, customer, "Main", Wallet.Currency.TRY, new BigDecimal("1250.50"));
+        Wallet usdWallet = wallet(12L, customer, "Travel", Wallet.Currency.USD, new BigDecimal("0.00"));
+
+        return List.of(
+                transaction(101L, tryWallet, new BigDecimal("100.00"), Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.APPROVED, LocalDateTime.of(2026, 3, 1, 9, 30)),
+                transaction(102L, tryWallet, new BigDecimal("2500.00"), Transaction.TransactionType.WITHDRAW,
+                        Transaction.TransactionStatus.PENDING, LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123456000)),
+                transaction(103L, usdWallet, new BigDecimal("1E+3"), Transaction.TransactionType.DEPOSIT,
+                        Transaction.TransactionStatus.DENIED, LocalDateTime.of(2026, 3, 2, 0, 0, 1)));
+    }
+
+    private static Wallet wallet(Long id, Customer customer, String name, Wallet.Currency currency, BigDecimal balance) {
+        Wallet wallet = new Wallet();
+        wallet.setId(id);
+        wallet.setCustomer(customer);
+        wallet.setWalletName(name);
+        wallet.setCurrency(currency);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(false);
+        wallet.setBalance(balance);
+        wallet.setUsableBalance(balance);
+        return wallet;
+    }
+
+    private static Transaction transaction(Long id, Wallet wallet, BigDecimal amount, Transaction.TransactionType type,
+                                           Transaction.TransactionStatus status, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setWallet(wallet);
+        transaction.setAmount(amount);
+        transaction.setType(type);
+        transaction.setOppositePartyType(Transaction.OppositePartyType.IBAN);
+        transaction.setOppositeParty("TR33 0006 1005 1978 6457 8413 26");
+        transaction.setStatus(status);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+}
@@ -0,0 +1,47 @@
+package com.digitalwallet.api.monitoring;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Test helper that fails when a block of code (typically one MockMvc request)
+ * executes more SQL statements than allowed, so N+1 regressions break the build.
+ */
+public final class QueryBudget {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Run the action and return the statements it executed.
+     */
+    public static SqlStatementStats measure(Action action) throws Exception {
+        SqlStatementStats stats = SqlStatementStats.open();
+        try {
+            action.run();
+        } finally {
+            stats.close();
+        }
+        return stats;
+    }
+
+    /**
+     * Run the action and fail if it executed more than {@code maxStatements} statements.
+     */
+    public static SqlStatementStats assertAtMost(int maxStatements, Action action) throws Exception {
+        SqlStatementStats stats = measure(action);
+        if (stats.getStatementCount() > maxStatements) {
+            StringBuilder message = new StringBuilder()
+                    .append("Expected at most ").append(maxStatements)
+                    .append(" SQL statements but ").append(stats.getStatementCount()).append(" were executed:");
+            stats.getShapes().forEach((shape, count) ->
+                    message.append(System.lineSeparator()).append("  ").append(count).append("x ").append(shape));
+            fail(message.toString());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,71 @@
+package com.digitalwallet.api.monitoring;
+
+import com.digitalwallet.api.service.NotFoundException;
+import com.digitalwallet.api.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ServiceMetricsAspectTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SlowOperationsEndpoint slowOperationsEndpoint;
+
+    @Test
+    void testServiceCallsAreTimedByOutcome() {
+        long successes = count("getAllWallets", ServiceMetricsAspect.SUCCESS);
+        long rejections = count("deleteWallet", ServiceMetricsAspect.REJECTED);
+
+        walletService.getAllWallets();
+        assertThrows(NotFoundException.class, () -> walletService.deleteWallet(-1L));
+
+        assertEquals(successes + 1, count("getAllWallets", ServiceMetricsAspect.SUCCESS));
+        assertEquals(rejections + 1, count("deleteWallet", ServiceMetricsAspect.REJECTED));
+        assertTrue(meterRegistry.get(ServiceMetricsAspect.ERRORS)
+                .tag("class", "WalletService").tag("method", "deleteWallet")
+                .tag("exception", "NotFoundException").counter().count() >= 1);
+        // Percentiles are published for the slowest operations view
+        assertEquals(4, timer("getAllWallets", ServiceMetricsAspect.SUCCESS).takeSnapshot().percentileValues().length);
+    }
+
+    @Test
+    void testSlowOperationsAreListedSlowestFirst() {
+        walletService.getAllWallets();
+        assertThrows(NotFoundException.class, () -> walletService.deleteWallet(-1L));
+
+        List<SlowOperationsEndpoint.SlowOperation> operations = slowOperationsEndpoint.slowOperations(null);
+        assertFalse(operations.isEmpty());
+        assertTrue(operations.size() <= SlowOperationsEndpoint.DEFAULT_LIMIT);
+        for (int i = 1; i < operations.size(); i++) {
+            assertTrue(operations.get(i - 1).p99Millis() >= operations.get(i).p99Millis());
+        }
+        assertEquals(List.of("p50", "p95", "p99", "p999"), List.copyOf(operations.get(0).percentilesMillis().keySet()));
+        assertEquals(1, slowOperationsEndpoint.slowOperations(1).size());
+    }
+
+    private long count(String method, String outcome) {
+        Timer timer = meterRegistry.find(ServiceMetricsAspect.TIMER)
+                .tag("class", "WalletService").tag("method", method).tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get(ServiceMetricsAspect.TIMER)
+                .tag("class", "WalletService").tag("method", method).tag("outcome", outcome).timer();
+    }
+}
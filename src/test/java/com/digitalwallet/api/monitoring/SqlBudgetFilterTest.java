@@ -0,0 +1,95 @@
+package com.digitalwallet.api.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlBudgetFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SqlBudgetFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new SqlBudgetFilter(meterRegistry, 10, 200);
+        request = new MockHttpServletRequest("GET", "/api/wallets/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/wallets/{id}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void testHeadersAreSetBeforeTheBodyWithoutBufferingIt() throws Exception {
+        FilterChain chain = (req, res) -> {
+            runStatement("select * from wallets where id = 1");
+            runStatement("select * from customers where id = 1");
+            res.getOutputStream().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+            // Written through, with the headers ahead of it
+            assertEquals("{\"id\":1}", response.getContentAsString());
+            assertEquals("2", response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER));
+            // A lazy load while the body is written is only in the metrics
+            runStatement("select * from transactions where wallet_id = 1");
+            res.getOutputStream().write(' ');
+        };
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals("2", response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER));
+        assertNotNull(response.getHeader(SqlBudgetFilter.DB_TIME_HEADER));
+        DistributionSummary statements = meterRegistry.get("wallet.http.sql.statements")
+                .tag("method", "GET").tag("uri", "/api/wallets/{id}").summary();
+        assertEquals(1, statements.count());
+        assertEquals(3, statements.totalAmount(), 0.0);
+        assertEquals(1, meterRegistry.get("wallet.http.db.time").tag("uri", "/api/wallets/{id}").timer().count());
+    }
+
+    @Test
+    void testHeadersAreSetWithoutBody() throws Exception {
+        filter.doFilter(request, response, (req, res) -> runStatement("delete from wallets where id = 1"));
+
+        assertEquals("1", response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER));
+        assertEquals(0, response.getContentLength());
+    }
+
+    @Test
+    void testHeadersAreSetWhenCommittedByAnError() throws Exception {
+        filter.doFilter(request, response, (req, res) -> {
+            runStatement("select * from wallets where id = 1");
+            ((HttpServletResponse) res).sendError(404);
+        });
+
+        assertEquals(404, response.getStatus());
+        assertEquals("1", response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER));
+    }
+
+    @Test
+    void testActuatorRequestsAreNotCounted() throws Exception {
+        MockHttpServletRequest dump = new MockHttpServletRequest("GET", "/actuator/jfr/dump");
+
+        filter.doFilter(dump, response, (req, res) -> {
+            assertSame(response, res);
+            runStatement("select 1");
+        });
+
+        assertNull(response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER));
+        assertTrue(meterRegistry.find("wallet.http.sql.statements").summaries().isEmpty());
+    }
+
+    private static void runStatement(String sql) {
+        SqlStatementStats.recordStatement(sql);
+        SqlStatementStats.queryStarted();
+        SqlStatementStats.queryFinished();
+    }
+}
@@ -0,0 +1,26 @@
+package com.digitalwallet.api.monitoring;
+
+import com.digitalwallet.api.security.WalletPrincipal;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+/**
+ * Test helper that signs a principal in on the current thread, as the login filters would,
+ * so MockMvc requests built without the security filter chain run as that user.
+ */
+public final class TestSecurity {
+
+    private TestSecurity() {
+    }
+
+    /**
+     * Sign the principal in with its role; clear with {@link SecurityContextHolder#clearContext()}.
+     */
+    public static void signIn(WalletPrincipal principal) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, List.of(new SimpleGrantedAuthority(principal.getAuthority()))));
+    }
+}
@@ -0,0 +1,223 @@
+package com.digitalwallet.api.monitoring;
+
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.TransactionRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.service.TransactionService;
+import com.digitalwallet.api.service.WalletService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: the connection has to be taken inside the write path to be measured.
+ * Everything created here is deleted afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletWriteMetricsTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ContendedWalletsEndpoint contendedWalletsEndpoint;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Customer customer;
+    private Wallet wallet;
+    private Wallet otherWallet;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Contended");
+        customer.setSurname("Customer");
+        customer.setTckn("66666666663"); // Unique TCKN to avoid conflicts
+        customer.setPassword("password");
+        customer = customerRepository.save(customer);
+
+        Wallet newWallet = new Wallet();
+        newWallet.setWalletName("Hot Wallet");
+        newWallet.setCurrency(Wallet.Currency.TRY);
+        newWallet.setActiveForShopping(true);
+        newWallet.setActiveForWithdraw(true);
+        wallet = walletService.createWallet(customer.getId(), newWallet);
+
+        Wallet secondWallet = new Wallet();
+        secondWallet.setWalletName("Other Wallet");
+        secondWallet.setCurrency(Wallet.Currency.TRY);
+        secondWallet.setActiveForShopping(true);
+        secondWallet.setActiveForWithdraw(true);
+        otherWallet = walletService.createWallet(customer.getId(), secondWallet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Wallet created : List.of(wallet, otherWallet)) {
+            transactionRepository.deleteAll(transactionRepository.findByWalletId(created.getId()));
+            walletRepository.deleteById(created.getId());
+        }
+        customerRepository.deleteById(customer.getId());
+    }
+
+    @Test
+    void testWritePathsAreBrokenDown() {
+        long approvals = timer(WalletWriteMetrics.TRANSACTION, "approve", WalletWriteMetrics.SUCCESS);
+        long approvalLocks = timer(WalletWriteMetrics.LOCK_WAIT, "approve", null);
+        long approvalConnections = timer(WalletWriteMetrics.POOL_ACQUIRE, "approve", null);
+        long balanceAdds = timer(WalletWriteMetrics.TRANSACTION, "balance_add", WalletWriteMetrics.SUCCESS);
+
+        Transaction deposit = transactionService.createDepositTransaction(wallet.getId(), new BigDecimal("100.00"),
+                Transaction.OppositePartyType.IBAN, "TR330006100519786457841326");
+        transactionService.approveTransaction(deposit.getId());
+
+        assertEquals(approvals + 1, timer(WalletWriteMetrics.TRANSACTION, "approve", WalletWriteMetrics.SUCCESS));
+        assertEquals(approvalLocks + 1, timer(WalletWriteMetrics.LOCK_WAIT, "approve", null));
+        assertEquals(approvalConnections + 1, timer(WalletWriteMetrics.POOL_ACQUIRE, "approve", null));
+        // The balance change inside the approval is measured as part of it
+        assertEquals(balanceAdds, timer(WalletWriteMetrics.TRANSACTION, "balance_add", WalletWriteMetrics.SUCCESS));
+
+        // Locked once for the deposit and once for the approval
+        ContendedWallets.ContendedWallet contended = contendedWalletsEndpoint.contendedWallets(1000).stream()
+                .filter(candidate -> candidate.walletId() == wallet.getId())
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, contended.locks());
+        assertTrue(contended.lockWaitMillis() > 0);
+        assertEquals(0, contended.conflicts());
+    }
+
+    @Test
+    void testSubmissionBatchLocksAreAttributedPerWallet() {
+        long batches = timer(WalletWriteMetrics.TRANSACTION, "submission_batch", WalletWriteMetrics.SUCCESS);
+        long batchLocks = timer(WalletWriteMetrics.LOCK_WAIT, "submission_batch", null);
+        long deposits = timer(WalletWriteMetrics.TRANSACTION, "deposit", WalletWriteMetrics.SUCCESS);
+
+        Map<String, CreateTransactionRequest> submissions = new LinkedHashMap<>();
+        submissions.put("batch-1", deposit(wallet));
+        submissions.put("batch-2", deposit(otherWallet));
+        submissions.put("batch-3", deposit(wallet));
+        transactionService.createSubmittedTransactions(submissions);
+
+        assertEquals(batches + 1, timer(WalletWriteMetrics.TRANSACTION, "submission_batch", WalletWriteMetrics.SUCCESS));
+        assertEquals(batchLocks + 3, timer(WalletWriteMetrics.LOCK_WAIT, "submission_batch", null));
+        // The deposits inside the batch are measured as part of it
+        assertEquals(deposits, timer(WalletWriteMetrics.TRANSACTION, "deposit", WalletWriteMetrics.SUCCESS));
+
+        List<ContendedWallets.ContendedWallet> contended = contendedWalletsEndpoint.contendedWallets(1000);
+        assertEquals(2, locksOf(contended, wallet));
+        assertEquals(1, locksOf(contended, otherWallet));
+    }
+
+    @Test
+    void testRejectionsAreNotConflicts() {
+        long rejected = timer(WalletWriteMetrics.TRANSACTION, "withdraw", WalletWriteMetrics.REJECTED);
+
+        assertThrows(IllegalArgumentException.class, () -> transactionService.createWithdrawTransaction(wallet.getId(),
+                new BigDecimal("5000.00"), Transaction.OppositePartyType.IBAN, "TR330006100519786457841326"));
+
+        assertEquals(rejected + 1, timer(WalletWriteMetrics.TRANSACTION, "withdraw", WalletWriteMetrics.REJECTED));
+        assertNull(meterRegistry.find(WalletWriteMetrics.CONFLICTS).tag("path", "withdraw").counter());
+    }
+
+    @Test
+    void testConflictsAreClassified() {
+        assertEquals(WalletWriteMetrics.OPTIMISTIC,
+                WalletWriteMetrics.conflictOf(new ObjectOptimisticLockingFailureException(Wallet.class, 1L)));
+        assertEquals(WalletWriteMetrics.OPTIMISTIC,
+                WalletWriteMetrics.conflictOf(new IllegalStateException(new OptimisticLockException())));
+        assertEquals(WalletWriteMetrics.LOCK,
+                WalletWriteMetrics.conflictOf(new CannotAcquireLockException("Timeout trying to lock table")));
+        assertNull(WalletWriteMetrics.conflictOf(new IllegalArgumentException("Insufficient balance")));
+    }
+
+    @Test
+    void testContentionIsKeptForTheLastWindows() {
+        AtomicLong clock = new AtomicLong();
+        ContendedWallets wallets = new ContendedWallets(Duration.ofMinutes(1), 100, clock::get);
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+
+        wallets.lockWaited(1L, 5 * millis);
+        wallets.lockWaited(2L, 1 * millis);
+        wallets.lockWaited(2L, 2 * millis);
+        wallets.conflicted(2L);
+        assertEquals(List.of(1L, 2L), wallets.top(10).stream().map(ContendedWallets.ContendedWallet::walletId).toList());
+        assertEquals(1, wallets.top(1).size());
+
+        // Wallet 2 stays hot into the next window: the previous window still counts
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(70));
+        wallets.lockWaited(2L, 4 * millis);
+        ContendedWallets.ContendedWallet hot = wallets.top(10).get(0);
+        assertEquals(2L, hot.walletId());
+        assertEquals(3, hot.locks());
+        assertEquals(7.0, hot.lockWaitMillis(), 0.001);
+        assertEquals(4.0, hot.maxLockWaitMillis(), 0.001);
+        assertEquals(1, hot.conflicts());
+
+        // Two windows later only the latest figures are left
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        wallets.lockWaited(2L, 1 * millis);
+        assertEquals(List.of(2L), wallets.top(10).stream().map(ContendedWallets.ContendedWallet::walletId).toList());
+        assertEquals(2, wallets.top(10).get(0).locks());
+
+        wallets.reset();
+        assertTrue(wallets.top(10).isEmpty());
+    }
+
+    private static CreateTransactionRequest deposit(Wallet target) {
+        return new CreateTransactionRequest(target.getId(), new BigDecimal("10.00"), Transaction.TransactionType.DEPOSIT,
+                Transaction.OppositePartyType.IBAN, "TR330006100519786457841326");
+    }
+
+    private static long locksOf(List<ContendedWallets.ContendedWallet> contended, Wallet target) {
+        return contended.stream()
+                .filter(candidate -> candidate.walletId() == target.getId())
+                .findFirst()
+                .orElseThrow()
+                .locks();
+    }
+
+    private long timer(String name, String path, String outcome) {
+        Timer timer = outcome == null
+                ? meterRegistry.find(name).tag("path", path).timer()
+                : meterRegistry.find(name).tag("path", path).tag("outcome", outcome).timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.digitalwallet.api.monitoring.jfr;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.service.CustomerService;
+import com.digitalwallet.api.service.InsufficientBalanceException;
+import com.digitalwallet.api.service.TransactionService;
+import com.digitalwallet.api.service.WalletService;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LedgerEventTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private FlightRecordingEndpoint flightRecordingEndpoint;
+
+    @AfterEach
+    void tearDown() {
+        flightRecordingEndpoint.stop();
+    }
+
+    @Test
+    void testLedgerOperationsAreRecorded() throws Exception {
+        Customer customer = new Customer();
+        customer.setName("Jfr");
+        customer.setSurname("Recorded");
+        customer.setTckn("55555555555");
+        customer.setPassword("password");
+        customer = customerService.createCustomer(customer);
+        Wallet wallet = new Wallet();
+        wallet.setWalletName("Recorded Wallet");
+        wallet.setCurrency(Wallet.Currency.TRY);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(true);
+        Long walletId = walletService.createWallet(customer.getId(), wallet).getId();
+
+        WebEndpointResponse<FlightRecordingEndpoint.RecordingStatus> started = flightRecordingEndpoint.start(null, null);
+        assertEquals(200, started.getStatus());
+        assertEquals("RUNNING", flightRecordingEndpoint.status().state());
+        // One recording at a time
+        assertEquals(HttpStatus.CONFLICT.value(), flightRecordingEndpoint.start(null, null).getStatus());
+
+        Transaction deposit = transactionService.createDepositTransaction(walletId, new BigDecimal("250.00"),
+                Transaction.OppositePartyType.IBAN, "TR330006100519786457841326");
+        transactionService.approveTransaction(deposit.getId());
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.createWithdrawTransaction(walletId,
+                new BigDecimal("5000.00"), Transaction.OppositePartyType.IBAN, "TR330006100519786457841326"));
+
+        assertEquals("STOPPED", flightRecordingEndpoint.stop().getBody().state());
+        List<RecordedEvent> events = dump().stream()
+                .filter(event -> event.getEventType().getName().startsWith("com.digitalwallet."))
+                .filter(event -> event.getLong("walletId") == walletId)
+                .collect(Collectors.toList());
+
+        RecordedEvent created = single(events, "com.digitalwallet.DepositCreated");
+        assertEquals(deposit.getId(), created.getLong("transactionId"));
+        assertEquals("100-1K", created.getString("amountBucket"));
+        assertEquals(LedgerEvent.SUCCESS, created.getString("outcome"));
+        assertNull(created.getStackTrace());
+
+        RecordedEvent rejected = single(events, "com.digitalwallet.WithdrawalCreated");
+        assertEquals("1K-10K", rejected.getString("amountBucket"));
+        assertEquals("insufficient_balance", rejected.getString("outcome"));
+
+        RecordedEvent approved = single(events, "com.digitalwallet.TransactionApproved");
+        assertEquals(deposit.getId(), approved.getLong("transactionId"));
+        assertEquals("100-1K", approved.getString("amountBucket"));
+        assertFalse(approved.getDuration().isNegative());
+
+        // Approving the deposit adds it to the balance
+        RecordedEvent balance = single(events, "com.digitalwallet.BalanceChanged");
+        assertEquals(BalanceChangedEvent.ADD, balance.getString("change"));
+        assertEquals(LedgerEvent.SUCCESS, balance.getString("outcome"));
+    }
+
+    @Test
+    void testNothingToDumpWithoutRecording() throws Exception {
+        flightRecordingEndpoint.stop();
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, flightRecordingEndpoint.dump("other").getStatus());
+    }
+
+    @Test
+    void testAmountsAreBucketedByOrderOfMagnitude() {
+        assertNull(LedgerEvent.bucketOf(null));
+        assertEquals("<1", LedgerEvent.bucketOf(new BigDecimal("0.99")));
+        assertEquals("1-10", LedgerEvent.bucketOf(BigDecimal.ONE));
+        assertEquals("1K-10K", LedgerEvent.bucketOf(new BigDecimal("-1000")));
+        assertEquals("100K-1M", LedgerEvent.bucketOf(new BigDecimal("999999.99")));
+        assertEquals(">=1M", LedgerEvent.bucketOf(new BigDecimal("1E+9")));
+    }
+
+    private List<RecordedEvent> dump() throws Exception {
+        WebEndpointResponse<Resource> response = flightRecordingEndpoint.dump(FlightRecordingEndpoint.DUMP);
+        assertEquals(200, response.getStatus());
+        Path file = Files.createTempFile("ledger-test-", ".jfr");
+        try {
+            try (InputStream in = response.getBody().getInputStream()) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // The endpoint's copy is gone once streamed
+            assertFalse(response.getBody().exists());
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,235 @@
+package com.digitalwallet.api.monitoring.tracing;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Employee;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.monitoring.SqlBudgetFilter;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.EmployeeRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.security.WalletPrincipal;
+import com.digitalwallet.api.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.digitalwallet.api.monitoring.TestSecurity.signIn;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests run through the SQL budget and tracing filters as a signed-in employee, as they do
+ * behind the login filters.
+ */
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@Transactional
+class RequestTracerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private SqlBudgetFilter sqlBudgetFilter;
+
+    @Autowired
+    private TracingFilter tracingFilter;
+
+    @Autowired
+    private RequestTracer requestTracer;
+
+    @Autowired
+    private TracesEndpoint tracesEndpoint;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private MockMvc mockMvc;
+    private Wallet wallet;
+    private double sampleRate;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .addFilters(sqlBudgetFilter, tracingFilter)
+                .build();
+        sampleRate = requestTracer.getSampleRate();
+        requestTracer.clear();
+
+        Employee employee = new Employee();
+        employee.setName("Trace");
+        employee.setSurname("Employee");
+        employee.setEmployeeId("EMP777"); // Unique employee ID to avoid conflicts
+        employee.setPassword("password");
+        employee.setRole(Employee.EmployeeRole.EMPLOYEE);
+        employee = employeeRepository.save(employee);
+
+        Customer customer = new Customer();
+        customer.setName("Trace");
+        customer.setSurname("Customer");
+        customer.setTckn("77777777770"); // Unique TCKN to avoid conflicts
+        customer.setPassword("password");
+        customer = customerRepository.save(customer);
+
+        wallet = new Wallet();
+        wallet.setWalletName("Traced Wallet");
+        wallet.setCurrency(Wallet.Currency.TRY);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(true);
+        wallet.setCustomer(customer);
+        wallet = walletRepository.save(wallet);
+        for (String amount : List.of("10.00", "20.00")) {
+            transactionService.createDepositTransaction(wallet.getId(), new BigDecimal(amount),
+                    Transaction.OppositePartyType.IBAN, "TR777777777");
+        }
+
+        // Start the request from an empty persistence context, as a real request would
+        entityManager.flush();
+        entityManager.clear();
+
+        signIn(WalletPrincipal.employee(employee));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        requestTracer.setSampleRate(sampleRate);
+        requestTracer.clear();
+    }
+
+    @Test
+    void testSampledRequestIsTracedThroughTheLayers() throws Exception {
+        tracesEndpoint.sampleRate(1.0);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/transactions/wallet/{walletId}", wallet.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String traceId = response.getHeader(RequestTracer.TRACE_ID_HEADER);
+        assertNotNull(traceId);
+
+        Trace trace = tracesEndpoint.trace(traceId);
+        assertEquals("/api/transactions/wallet/{walletId}", trace.uri());
+        assertEquals(200, trace.status());
+        assertEquals(Integer.parseInt(response.getHeader(SqlBudgetFilter.SQL_COUNT_HEADER)), trace.sqlStatements());
+
+        Trace.Span root = trace.spans().get(0);
+        assertEquals("GET /api/transactions/wallet/{walletId}", root.name());
+        assertNull(root.parentId());
+
+        Trace.Span controller = span(trace, "TransactionController.getTransactionsByWalletId");
+        assertEquals(TraceRecorder.CONTROLLER, controller.kind());
+        assertEquals(root.id(), controller.parentId());
+        assertEquals(wallet.getId(), controller.attributes().get("walletId"));
+        assertEquals(2, controller.attributes().get("result.size"));
+
+        Trace.Span service = span(trace, "TransactionService.getTransactionsByWalletId");
+        assertEquals(controller.id(), service.parentId());
+        assertEquals(2, service.attributes().get("result.size"));
+
+        // The rows are loaded by a repository call inside the service
+        Trace.Span repository = trace.spans().stream()
+                .filter(span -> service.id() == (span.parentId() != null ? span.parentId() : -1))
+                .filter(span -> span.name().startsWith("TransactionRepository."))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(TraceRecorder.REPOSITORY, repository.kind());
+        assertEquals(2, repository.attributes().get("result.size"));
+        assertTrue(repository.sqlStatements() >= 1);
+        assertTrue(service.sqlStatements() >= repository.sqlStatements());
+
+        assertEquals(List.of(traceId), tracesEndpoint.traces("/api/transactions/wallet", null, null).traces().stream()
+                .map(Trace.Summary::traceId)
+                .toList());
+        assertTrue(tracesEndpoint.traces(null, trace.durationMillis() + 1000, null).traces().isEmpty());
+    }
+
+    @Test
+    void testUnsampledRequestsAreNotTraced() throws Exception {
+        tracesEndpoint.sampleRate(0);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/transactions/wallet/{walletId}", wallet.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertNull(response.getHeader(RequestTracer.TRACE_ID_HEADER));
+        assertTrue(tracesEndpoint.traces(null, null, null).traces().isEmpty());
+        assertThrows(InvalidEndpointRequestException.class, () -> tracesEndpoint.sampleRate(1.5));
+    }
+
+    @Test
+    void testSpansAreCappedAndTracesWrittenToFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("traces.jsonl");
+        RequestTracer tracer = new RequestTracer(1.0, List.of("/api/**"), Duration.ZERO, 10, 3, file.toString(),
+                DataSize.ofBytes(1), new ObjectMapper().findAndRegisterModules(), new WorkerThreads(new MockEnvironment()));
+        assertNull(tracer.start("/actuator/health"));
+
+        TraceRecorder recorder = tracer.start("/api/wallets/1");
+        for (int i = 0; i < 5; i++) {
+            TraceRecorder.ActiveSpan span = recorder.open(TraceRecorder.SERVICE, "WalletService.getWalletById");
+            if (span != null) {
+                recorder.close(span, i == 0 ? new IllegalArgumentException() : null);
+            }
+        }
+        Trace first = recorder.finish("GET", "/api/wallets/{id}", 400, null);
+        tracer.finished(first);
+        assertEquals(3, first.spans().size());
+        assertEquals(3, first.droppedSpans());
+        assertEquals("IllegalArgumentException", first.spans().get(1).error());
+        assertEquals(0, first.spans().get(2).parentId());
+        assertNull(TraceRecorder.current());
+
+        Trace second = tracer.start("/api/wallets/2").finish("GET", "/api/wallets/{id}", 200, null);
+        tracer.finished(second);
+        assertEquals(List.of(second, first), tracer.recent(null, 0, 10));
+        tracer.shutdown();
+
+        // Over the size limit, so the first trace was moved aside when the second was written
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(second.traceId()));
+        assertTrue(Files.readString(directory.resolve("traces.jsonl.1")).contains(first.traceId()));
+    }
+
+    private static Trace.Span span(Trace trace, String name) {
+        return trace.spans().stream().filter(span -> span.name().equals(name)).findFirst().orElseThrow();
+    }
+}
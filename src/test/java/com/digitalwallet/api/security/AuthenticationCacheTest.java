@@ -0,0 +1,121 @@
+package com.digitalwallet.api.security;
+
+import com.digitalwallet.api.security.AuthenticationCache.CachedAccount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticationCacheTest {
+
+    private final AuthenticationCache cache = new AuthenticationCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch loading = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        Future<CachedAccount> first = callers.submit(() -> cache.get("alice", blockingLoader()));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<CachedAccount> second = callers.submit(() -> cache.get("alice", blockingLoader()));
+        waitForState(second, Thread.State.WAITING);
+
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        cache.get("alice", blockingLoader());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictionDuringLoadOnlyAffectsThatUser() throws Exception {
+        Future<CachedAccount> alice = callers.submit(() -> cache.get("alice", blockingLoader()));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict("bob");
+        release.countDown();
+        alice.get(5, TimeUnit.SECONDS);
+
+        // Still cached, an eviction of another user does not discard it
+        cache.get("alice", blockingLoader());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testLoadEvictedWhileRunningIsNotCached() throws Exception {
+        Future<CachedAccount> alice = callers.submit(() -> cache.get("alice", blockingLoader()));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.evict("alice");
+        release.countDown();
+        alice.get(5, TimeUnit.SECONDS);
+
+        cache.get("alice", blockingLoader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testUnknownUserIsNotCached() {
+        assertNull(cache.get("nobody", username -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get("nobody", username -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    private Function<String, CachedAccount> blockingLoader() {
+        return username -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new CachedAccount(null, "{bcrypt}" + username);
+        };
+    }
+
+    /**
+     * Wait until the pool thread running the second caller is parked on the first caller's load.
+     */
+    private static void waitForState(Future<?> caller, Thread.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline && !caller.isDone()) {
+            boolean parked = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().startsWith("pool-"))
+                    .anyMatch(thread -> thread.getState() == state
+                            && Arrays.stream(thread.getStackTrace())
+                                    .anyMatch(frame -> frame.getMethodName().equals("await")
+                                            && frame.getClassName().endsWith("AuthenticationCache$Load")));
+            if (parked) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Second caller did not wait for the running load");
+    }
+}
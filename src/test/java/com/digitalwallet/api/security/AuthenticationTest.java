@@ -2,8 +2,10 @@ package com.digitalwallet.api.security;
 
 import com.digitalwallet.api.entity.Customer;
 import com.digitalwallet.api.entity.Employee;
+import com.digitalwallet.api.monitoring.QueryBudget;
 import com.digitalwallet.api.repository.CustomerRepository;
 import com.digitalwallet.api.repository.EmployeeRepository;
+import com.digitalwallet.api.service.EmployeeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,17 +33,33 @@ class AuthenticationTest {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private AuthenticationCache authenticationCache;
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     private Customer testCustomer;
     private Employee testEmployee;
 
     @BeforeEach
     void setUp() {
+        // Test data is rolled back after each test, so nothing cached may outlive it
+        authenticationCache.invalidateAll();
+        loginThrottle.reset();
+
         // Create a test customer with a unique TCKN
         testCustomer = new Customer();
         testCustomer.setName("Test");
         testCustomer.setSurname("User");
         testCustomer.setTckn("11111111111"); // Different TCKN to avoid conflict with DataInitializer
-        testCustomer.setPassword("password");
+        testCustomer.setPassword(passwordEncoder.encode("password"));
         customerRepository.save(testCustomer);
 
         // Create a test employee with a unique Employee ID
@@ -48,7 +67,7 @@ class AuthenticationTest {
         testEmployee.setName("Test");
         testEmployee.setSurname("Employee");
         testEmployee.setEmployeeId("EMP111"); // Different Employee ID to avoid conflict
-        testEmployee.setPassword("password");
+        testEmployee.setPassword(passwordEncoder.encode("password"));
         testEmployee.setRole(Employee.EmployeeRole.EMPLOYEE);
         employeeRepository.save(testEmployee);
     }
@@ -87,6 +106,69 @@ class AuthenticationTest {
             .anyMatch(authority -> authority.getAuthority().equals("ROLE_EMPLOYEE")));
     }
 
+    @Test
+    void testAuthenticationCarriesTypedPrincipal() {
+        Authentication customerResult = authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken("11111111111", "password"));
+        Authentication employeeResult = authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken("EMP111", "password"));
+
+        // Verify the principal already carries the id and role so no further lookups are needed
+        WalletPrincipal customerPrincipal = assertInstanceOf(WalletPrincipal.class, customerResult.getPrincipal());
+        assertTrue(customerPrincipal.isCustomer());
+        assertEquals(testCustomer.getId(), customerPrincipal.getId());
+
+        WalletPrincipal employeePrincipal = assertInstanceOf(WalletPrincipal.class, employeeResult.getPrincipal());
+        assertTrue(employeePrincipal.isEmployeeOrAdmin());
+        assertFalse(employeePrincipal.isAdmin());
+        assertEquals(testEmployee.getId(), employeePrincipal.getId());
+    }
+
+    @Test
+    void testRepeatedAuthenticationIsServedFromCache() throws Exception {
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("11111111111", "password"));
+
+        // Second login for the same user must not touch the database
+        QueryBudget.assertAtMost(0, () -> authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken("11111111111", "password")));
+    }
+
+    @Test
+    void testAccountUpdateEvictsCachedAuthentication() {
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("EMP111", "password"));
+
+        Employee promoted = new Employee();
+        promoted.setName("Test");
+        promoted.setSurname("Employee");
+        promoted.setPassword("password");
+        promoted.setRole(Employee.EmployeeRole.ADMIN);
+        employeeService.updateEmployee(testEmployee.getId(), promoted);
+
+        // The cached EMPLOYEE role must not survive the update
+        Authentication result = authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken("EMP111", "password"));
+        assertTrue(result.getAuthorities().stream()
+            .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN")));
+    }
+
+    @Test
+    void testWrongPasswordIsRejected() {
+        assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(
+            new UsernamePasswordAuthenticationToken("EMP111", "wrong-password")));
+    }
+
+    @Test
+    void testRepeatedFailuresAreThrottledWithoutDatabaseAccess() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken("99999999999", "password")));
+        }
+
+        // Over the per-username limit: rejected before any repository lookup
+        QueryBudget.assertAtMost(0, () -> assertThrows(LoginThrottledException.class, () ->
+            authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("99999999999", "password"))));
+    }
+
     @Test
     void testFailedAuthentication() {
         // Create authentication token with non-existent username
@@ -0,0 +1,66 @@
+package com.digitalwallet.api.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Logins through the real Tomcat connector, so the client address is resolved as in production.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "wallet.auth.throttle.ip.capacity=2",
+        "wallet.auth.throttle.ip.refill-period=1h",
+        // Own database and journal, as this context runs next to the shared test context
+        "spring.datasource.url=jdbc:h2:mem:forwardedtestdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "wallet.submission.journal=target/forwarded-test-transaction-submissions.journal"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class ForwardedClientAddressTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void testLoginThrottleKeysOnForwardedClientAddress() {
+        // The test client connects from loopback, a trusted proxy, so X-Forwarded-For names the client
+        assertEquals(401, login("unknown-1", "203.0.113.7"));
+        assertEquals(401, login("unknown-2", "203.0.113.7"));
+        assertEquals(429, login("unknown-3", "203.0.113.7"));
+
+        // Other clients behind the same proxy keep their own budget
+        assertEquals(401, login("unknown-4", "203.0.113.8"));
+        assertEquals(401, login("unknown-5", null));
+    }
+
+    @Test
+    void testOnlyTheLastUntrustedAddressIsUsed() {
+        // A client cannot pick a fresh address per attempt by prepending to the header
+        assertEquals(401, login("unknown-6", "198.51.100.1, 203.0.113.9"));
+        assertEquals(401, login("unknown-7", "198.51.100.2, 203.0.113.9"));
+        assertEquals(429, login("unknown-8", "198.51.100.3, 203.0.113.9"));
+    }
+
+    private int login(String username, String forwardedFor) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        if (forwardedFor != null) {
+            headers.set("X-Forwarded-For", forwardedFor);
+        }
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("username", username);
+        form.add("password", "wrong-password");
+        return restTemplate.postForEntity("/api/auth/login", new HttpEntity<>(form, headers), String.class)
+                .getStatusCode().value();
+    }
+}
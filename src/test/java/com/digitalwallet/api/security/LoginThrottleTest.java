@@ -0,0 +1,74 @@
+package com.digitalwallet.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final AtomicLong nanos = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 attempts per username (one more every 10s), 5 per IP (one more every second)
+        loginThrottle = new LoginThrottle(meterRegistry, 3, Duration.ofSeconds(10), 5, Duration.ofSeconds(1),
+                1000, nanos::get);
+    }
+
+    @Test
+    void testUsernameLimitRejectsUntilRefilled() {
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("EMP001", "10.0.0.1");
+        }
+
+        LoginThrottledException rejected = assertThrows(LoginThrottledException.class,
+                () -> loginThrottle.acquire("EMP001", "10.0.0.2"));
+        assertEquals(10, rejected.getRetryAfterSeconds());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertDoesNotThrow(() -> loginThrottle.acquire("EMP001", "10.0.0.2"));
+    }
+
+    @Test
+    void testIpLimitAppliesAcrossUsernames() {
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("user-" + i, "10.0.0.1");
+        }
+
+        assertThrows(LoginThrottledException.class, () -> loginThrottle.acquire("user-9", "10.0.0.1"));
+        assertDoesNotThrow(() -> loginThrottle.acquire("user-9", "10.0.0.2"));
+    }
+
+    @Test
+    void testSuccessfulLoginsDoNotUseUpTheBudget() {
+        for (int i = 0; i < 20; i++) {
+            loginThrottle.acquire("EMP001", "10.0.0.1");
+            loginThrottle.succeeded("EMP001", "10.0.0.1");
+        }
+
+        assertDoesNotThrow(() -> loginThrottle.acquire("EMP001", "10.0.0.1"));
+    }
+
+    @Test
+    void testMetricsCountAcceptedAndRejectedAttempts() {
+        for (int i = 0; i < 4; i++) {
+            try {
+                loginThrottle.acquire("EMP001", null);
+            } catch (LoginThrottledException ignored) {
+                // Expected for the 4th attempt
+            }
+        }
+
+        assertEquals(3, meterRegistry.get("wallet.auth.throttle").tag("result", "accepted").counter().count());
+        assertEquals(1, meterRegistry.get("wallet.auth.throttle").tag("limit", "username").counter().count());
+    }
+}
@@ -0,0 +1,194 @@
+package com.digitalwallet.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordVerifierTest {
+
+    private final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+    private PasswordVerifier passwordVerifier;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordVerifier != null) {
+            passwordVerifier.shutdown();
+        }
+    }
+
+    @Test
+    void testVerifiedCredentialSkipsBcryptOnRepeat() {
+        CountingEncoder encoder = new CountingEncoder(bcrypt);
+        passwordVerifier = verifier(encoder, 2, 4);
+        String stored = bcrypt.encode("password");
+
+        assertTrue(passwordVerifier.matches("EMP001", "password", stored));
+        assertTrue(passwordVerifier.matches("EMP001", "password", stored));
+
+        assertEquals(1, encoder.matchCalls.get());
+    }
+
+    @Test
+    void testWrongPasswordIsRejectedAndNotCached() {
+        CountingEncoder encoder = new CountingEncoder(bcrypt);
+        passwordVerifier = verifier(encoder, 2, 4);
+        String stored = bcrypt.encode("password");
+
+        assertFalse(passwordVerifier.matches("EMP001", "wrong", stored));
+        assertFalse(passwordVerifier.matches("EMP001", "wrong", stored));
+
+        assertEquals(2, encoder.matchCalls.get());
+    }
+
+    @Test
+    void testPasswordChangeInvalidatesVerifiedCredential() {
+        passwordVerifier = verifier(bcrypt, 2, 4);
+        String oldHash = bcrypt.encode("password");
+        String newHash = bcrypt.encode("changed");
+
+        assertTrue(passwordVerifier.matches("EMP001", "password", oldHash));
+        assertFalse(passwordVerifier.matches("EMP001", "password", newHash));
+    }
+
+    @Test
+    void testPlaintextStoredPasswordIsRejected() {
+        CountingEncoder encoder = new CountingEncoder(bcrypt);
+        passwordVerifier = verifier(encoder, 1, 1);
+
+        assertFalse(passwordVerifier.matches("11111111111", "password", "password"));
+        assertEquals(0, encoder.matchCalls.get());
+    }
+
+    @Test
+    void testCheckThatWouldTimeOutIsRejectedWithoutWaiting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        PasswordEncoder slowEncoder = new CountingEncoder(bcrypt) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    if (calls.incrementAndGet() == 1) {
+                        Thread.sleep(100);
+                    } else {
+                        started.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        passwordVerifier = new PasswordVerifier(slowEncoder, new SimpleMeterRegistry(), 1, 4,
+                Duration.ofMillis(250), Duration.ofMinutes(2));
+        String stored = bcrypt.encode("password");
+        // Checks take about 100 ms
+        assertTrue(passwordVerifier.matches("user-1", "password", stored));
+
+        Thread running = new Thread(() -> matchIgnoringRejection("user-2", stored));
+        Thread queued = new Thread(() -> matchIgnoringRejection("user-3", stored));
+        running.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queued.start();
+        waitForQueuedTask(1);
+
+        // Two checks ahead on one thread: about 200 ms of wait plus its own 100 ms is over the 250 ms budget
+        long startNanos = System.nanoTime();
+        assertThrows(PasswordVerificationRejectedException.class,
+                () -> passwordVerifier.matches("user-4", "password", stored));
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(100));
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+
+    @Test
+    void testSaturatedPoolRejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new CountingEncoder(bcrypt) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        // One worker and a queue of one: the third concurrent check has nowhere to go
+        passwordVerifier = verifier(blockingEncoder, 1, 1);
+        String stored = bcrypt.encode("password");
+
+        Thread running = new Thread(() -> passwordVerifier.matches("user-1", "password", stored));
+        Thread queued = new Thread(() -> passwordVerifier.matches("user-2", "password", stored));
+        running.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queued.start();
+        waitForQueuedTask(1);
+
+        long startNanos = System.nanoTime();
+        assertThrows(PasswordVerificationRejectedException.class,
+                () -> passwordVerifier.matches("user-3", "password", stored));
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.SECONDS.toNanos(1));
+
+        release.countDown();
+        running.join();
+        queued.join();
+    }
+
+    private void waitForQueuedTask(int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (passwordVerifier.queuedChecks() != queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(queued, passwordVerifier.queuedChecks());
+    }
+
+    private void matchIgnoringRejection(String username, String stored) {
+        try {
+            passwordVerifier.matches(username, "password", stored);
+        } catch (PasswordVerificationRejectedException e) {
+            // Timed out waiting for the blocked check
+        }
+    }
+
+    private PasswordVerifier verifier(PasswordEncoder encoder, int threads, int queueCapacity) {
+        return new PasswordVerifier(encoder, new SimpleMeterRegistry(), threads, queueCapacity,
+                Duration.ofSeconds(5), Duration.ofMinutes(2));
+    }
+
+    private static class CountingEncoder implements PasswordEncoder {
+
+        private final PasswordEncoder delegate;
+        private final AtomicInteger matchCalls = new AtomicInteger();
+
+        CountingEncoder(PasswordEncoder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            matchCalls.incrementAndGet();
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.digitalwallet.api.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private static final byte[] OLD_KEY = key('a');
+    private static final byte[] NEW_KEY = key('b');
+
+    private MutableClock clock;
+    private TokenRevocationList revocationList;
+    private WalletPrincipal principal;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2026-01-01T10:00:00Z"));
+        revocationList = new TokenRevocationList(100, clock);
+        principal = new WalletPrincipal(WalletPrincipal.Type.EMPLOYEE, 7L, "EMP007", "ADMIN");
+    }
+
+    @Test
+    void testIssuedTokenVerifiesToSamePrincipal() {
+        TokenService tokenService = tokenService(keys("k1", OLD_KEY), "k1");
+
+        TokenService.IssuedToken issued = tokenService.issue(principal);
+        Optional<TokenService.VerifiedToken> verified = tokenService.verify(issued.getToken());
+
+        assertTrue(verified.isPresent());
+        assertEquals(principal, verified.get().getPrincipal());
+        assertEquals(issued.getTokenId(), verified.get().getTokenId());
+    }
+
+    @Test
+    void testTamperedTokenIsRejected() {
+        TokenService tokenService = tokenService(keys("k1", OLD_KEY), "k1");
+        String token = tokenService.issue(principal).getToken();
+
+        // Flip one character of the payload
+        char[] chars = token.toCharArray();
+        chars[5] = chars[5] == 'A' ? 'B' : 'A';
+
+        assertTrue(tokenService.verify(new String(chars)).isEmpty());
+        assertTrue(tokenService.verify("not-a-token").isEmpty());
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        TokenService tokenService = tokenService(keys("k1", OLD_KEY), "k1");
+        String token = tokenService.issue(principal).getToken();
+
+        clock.advance(Duration.ofMinutes(61));
+
+        assertTrue(tokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    void testRevokedTokenIsRejected() {
+        TokenService tokenService = tokenService(keys("k1", OLD_KEY), "k1");
+        String token = tokenService.issue(principal).getToken();
+        String otherToken = tokenService.issue(principal).getToken();
+
+        assertTrue(tokenService.revoke(token));
+
+        assertTrue(tokenService.verify(token).isEmpty());
+        assertTrue(tokenService.verify(otherToken).isPresent());
+    }
+
+    @Test
+    void testKeyRotationKeepsOldTokensValidUntilKeyIsRemoved() {
+        TokenService beforeRotation = tokenService(keys("k1", OLD_KEY), "k1");
+        String oldToken = beforeRotation.issue(principal).getToken();
+
+        Map<String, byte[]> rotatedKeys = keys("k1", OLD_KEY);
+        rotatedKeys.put("k2", NEW_KEY);
+        TokenService afterRotation = tokenService(rotatedKeys, "k2");
+        String newToken = afterRotation.issue(principal).getToken();
+
+        assertTrue(afterRotation.verify(oldToken).isPresent());
+        assertTrue(afterRotation.verify(newToken).isPresent());
+
+        TokenService oldKeyRetired = tokenService(keys("k2", NEW_KEY), "k2");
+        assertTrue(oldKeyRetired.verify(oldToken).isEmpty());
+        assertTrue(oldKeyRetired.verify(newToken).isPresent());
+    }
+
+    @Test
+    void testRevocationListDropsExpiredEntries() {
+        revocationList.revoke("expired-soon", clock.instant().plusSeconds(10));
+        revocationList.revoke("expires-later", clock.instant().plusSeconds(3600));
+
+        clock.advance(Duration.ofSeconds(11));
+        revocationList.purge();
+
+        assertFalse(revocationList.isRevoked("expired-soon", clock.instant()));
+        assertTrue(revocationList.isRevoked("expires-later", clock.instant()));
+    }
+
+    @Test
+    void testRevocationListNeverForgetsUnexpiredRevocations() {
+        TokenRevocationList smallList = new TokenRevocationList(4, clock);
+        TokenService service = new TokenService(keys("k1", OLD_KEY), "k1", Duration.ofHours(1), smallList, clock);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tokens.add(service.issue(principal).getToken());
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(service.revoke(tokens.get(i)));
+        }
+        assertEquals(4, smallList.size());
+
+        // Over the bound with nothing expired: every token issued so far is revoked instead
+        clock.advance(Duration.ofSeconds(1));
+        String newer = service.issue(principal).getToken();
+        clock.advance(Duration.ofSeconds(1));
+        String revokedLast = service.issue(principal).getToken();
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(service.revoke(revokedLast));
+
+        assertEquals(0, smallList.size());
+        for (String token : tokens) {
+            assertTrue(service.verify(token).isEmpty());
+        }
+        assertTrue(service.verify(newer).isEmpty());
+        assertTrue(service.verify(revokedLast).isEmpty());
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(service.verify(service.issue(principal).getToken()).isPresent());
+    }
+
+    @Test
+    void testStatelessModeNeedsSharedKeys() {
+        assertThrows(IllegalStateException.class, () -> TokenService.requireSharedKeys(Map.of(), true));
+        assertTrue(TokenService.requireSharedKeys(Map.of(), false).isEmpty());
+        assertEquals(1, TokenService.requireSharedKeys(keys("k1", OLD_KEY), true).size());
+    }
+
+    private TokenService tokenService(Map<String, byte[]> keys, String activeKeyId) {
+        return new TokenService(keys, activeKeyId, Duration.ofHours(1), revocationList, clock);
+    }
+
+    private static Map<String, byte[]> keys(String keyId, byte[] secret) {
+        Map<String, byte[]> keys = new LinkedHashMap<>();
+        keys.put(keyId, secret);
+        return keys;
+    }
+
+    private static byte[] key(char fill) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) fill);
+        return key;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.digitalwallet.api.dto.CustomerDashboardDto;
+import com.digitalwallet.api.dto.CustomerDashboardDto.CurrencyTotal;
+import com.digitalwallet.api.dto.CustomerDashboardDto.WalletSummary;
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.TransactionRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: the dashboard sections are queried on pool threads in their own database
+ * transactions, so the data must be committed. Everything created here is deleted afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CustomerDashboardServiceTest {
+
+    @Autowired
+    private CustomerDashboardService customerDashboardService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private WalletOwnershipIndex walletOwnershipIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Customer customer;
+    private Wallet tryWallet;
+    private Wallet usdWallet;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Dashboard");
+        customer.setSurname("Customer");
+        customer.setTckn("66666666664"); // Unique TCKN to avoid conflicts
+        customer.setPassword("password");
+        customer = customerRepository.save(customer);
+
+        tryWallet = wallet("TRY Wallet", Wallet.Currency.TRY, "300");
+        usdWallet = wallet("USD Wallet", Wallet.Currency.USD, "50");
+
+        LocalDateTime now = LocalDateTime.now();
+        transaction(tryWallet, "100", Transaction.TransactionType.DEPOSIT, Transaction.TransactionStatus.APPROVED, now.minusMinutes(3));
+        transaction(tryWallet, "200", Transaction.TransactionType.DEPOSIT, Transaction.TransactionStatus.APPROVED, now.minusMinutes(2));
+        transaction(tryWallet, "1500", Transaction.TransactionType.DEPOSIT, Transaction.TransactionStatus.PENDING, now.minusMinutes(1));
+        transaction(usdWallet, "2000", Transaction.TransactionType.WITHDRAW, Transaction.TransactionStatus.PENDING, now);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Wallet wallet : List.of(tryWallet, usdWallet)) {
+            transactionRepository.deleteAll(transactionRepository.findByWalletId(wallet.getId()));
+            walletRepository.deleteById(wallet.getId());
+        }
+        customerRepository.deleteById(customer.getId());
+    }
+
+    @Test
+    void testDashboardHasAllSections() {
+        CustomerDashboardDto dashboard = customerDashboardService.getDashboard(customer.getId(), 2);
+
+        assertNull(dashboard.getUnavailable());
+        assertEquals("66666666664", dashboard.getCustomer().getTckn());
+        assertEquals(2, dashboard.getWallets().size());
+
+        WalletSummary tryEntry = summaryOf(dashboard, tryWallet.getId());
+        assertEquals("TRY Wallet", tryEntry.getWallet().getWalletName());
+        // Latest two, newest first
+        assertEquals(2, tryEntry.getLatestTransactions().size());
+        assertEquals(0, new BigDecimal("1500").compareTo(tryEntry.getLatestTransactions().get(0).getAmount()));
+        assertEquals(0, new BigDecimal("200").compareTo(tryEntry.getLatestTransactions().get(1).getAmount()));
+        assertEquals(1, tryEntry.getPending().getDepositCount());
+        assertEquals(0, tryEntry.getPending().getWithdrawCount());
+
+        WalletSummary usdEntry = summaryOf(dashboard, usdWallet.getId());
+        assertEquals(1, usdEntry.getLatestTransactions().size());
+        assertEquals(0, new BigDecimal("2000").compareTo(usdEntry.getPending().getWithdrawAmount()));
+
+        CurrencyTotal tryTotal = dashboard.getTotals().stream()
+                .filter(total -> total.getCurrency() == Wallet.Currency.TRY)
+                .findFirst().orElseThrow();
+        assertEquals(1, tryTotal.getWalletCount());
+        assertEquals(0, new BigDecimal("300").compareTo(tryTotal.getBalance()));
+        assertEquals(1L, tryTotal.getPendingCount());
+        assertEquals(0, new BigDecimal("1500").compareTo(tryTotal.getPendingDepositAmount()));
+    }
+
+    @Test
+    void testSlowSectionIsReportedUnavailableAndTheRestIsReturned() {
+        CountDownLatch release = new CountDownLatch(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WalletService slowWalletService = new WalletService(walletRepository, customerRepository,
+                walletOwnershipIndex, eventPublisher, meterRegistry) {
+            @Override
+            public List<Wallet> getWalletsByCustomerId(Long customerId) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        };
+        CustomerDashboardService dashboardService = new CustomerDashboardService(customerService, slowWalletService,
+                transactionService, workerThreads, meterRegistry, Duration.ofMillis(300), 4, 16, 50);
+        try {
+            CustomerDashboardDto dashboard = dashboardService.getDashboard(customer.getId(), 5);
+
+            assertEquals(List.of(CustomerDashboardDto.WALLETS), dashboard.getUnavailable());
+            assertNotNull(dashboard.getCustomer());
+            assertNull(dashboard.getTotals());
+            // Wallets known from the other sections, without their details
+            assertEquals(2, dashboard.getWallets().size());
+            WalletSummary tryEntry = summaryOf(dashboard, tryWallet.getId());
+            assertNull(tryEntry.getWallet());
+            assertEquals(3, tryEntry.getLatestTransactions().size());
+            assertEquals(1, tryEntry.getPending().getDepositCount());
+            assertEquals(1.0, meterRegistry.get("wallet.dashboard.unavailable")
+                    .tag("section", CustomerDashboardDto.WALLETS).tag("reason", "timeout").counter().count());
+        } finally {
+            release.countDown();
+            dashboardService.shutdown();
+        }
+    }
+
+    @Test
+    void testTransactionsPerWalletOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> customerDashboardService.getDashboard(customer.getId(), -1));
+        assertThrows(IllegalArgumentException.class, () -> customerDashboardService.getDashboard(customer.getId(), 51));
+    }
+
+    private static WalletSummary summaryOf(CustomerDashboardDto dashboard, Long walletId) {
+        return dashboard.getWallets().stream()
+                .filter(entry -> entry.getWalletId().equals(walletId))
+                .findFirst().orElseThrow();
+    }
+
+    private Wallet wallet(String name, Wallet.Currency currency, String balance) {
+        Wallet wallet = new Wallet();
+        wallet.setWalletName(name);
+        wallet.setCurrency(currency);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(true);
+        wallet.setBalance(new BigDecimal(balance));
+        wallet.setUsableBalance(new BigDecimal(balance));
+        wallet.setCustomer(customer);
+        return walletRepository.save(wallet);
+    }
+
+    private void transaction(Wallet wallet, String amount, Transaction.TransactionType type,
+                             Transaction.TransactionStatus status, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setWallet(wallet);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setType(type);
+        transaction.setOppositePartyType(Transaction.OppositePartyType.IBAN);
+        transaction.setOppositeParty("TR123456789");
+        transaction.setStatus(status);
+        transaction.setCreatedAt(createdAt);
+        transactionRepository.save(transaction);
+    }
+}
@@ -3,6 +3,7 @@ package com.digitalwallet.api.service;
 import com.digitalwallet.api.entity.Customer;
 import com.digitalwallet.api.entity.Wallet;
 import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.monitoring.QueryBudget;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -87,6 +88,41 @@ class ServiceTest {
         });
     }
 
+    @Test
+    void testWalletOwnershipCheck() throws Exception {
+        Customer owner = new Customer();
+        owner.setName("Olivia");
+        owner.setSurname("Owner");
+        owner.setTckn("13131313131"); // Unique TCKN to avoid conflict
+        owner.setPassword("password");
+        Customer savedOwner = customerService.createCustomer(owner);
+
+        Customer other = new Customer();
+        other.setName("Oscar");
+        other.setSurname("Other");
+        other.setTckn("14141414141");
+        other.setPassword("password");
+        Customer savedOther = customerService.createCustomer(other);
+
+        Wallet wallet = new Wallet();
+        wallet.setWalletName("Owned Wallet");
+        wallet.setCurrency(Wallet.Currency.TRY);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(true);
+        Wallet savedWallet = walletService.createWallet(savedOwner.getId(), wallet);
+
+        assertTrue(walletService.isWalletOwnedByCustomer(savedWallet.getId(), savedOwner.getId()));
+        assertFalse(walletService.isWalletOwnedByCustomer(savedWallet.getId(), savedOther.getId()));
+        assertFalse(walletService.isWalletOwnedByCustomer(Long.MAX_VALUE, savedOwner.getId()));
+
+        // Once indexed, ownership checks are answered from memory
+        QueryBudget.assertAtMost(0, () ->
+                assertTrue(walletService.isWalletOwnedByCustomer(savedWallet.getId(), savedOwner.getId())));
+
+        walletService.deleteWallet(savedWallet.getId());
+        assertFalse(walletService.isWalletOwnedByCustomer(savedWallet.getId(), savedOwner.getId()));
+    }
+
     @Test
     void testTransactionService() {
         // Create customer and wallet with unique TCKN
@@ -128,7 +164,7 @@ class ServiceTest {
         assertEquals(Transaction.TransactionStatus.PENDING, withdrawTransaction.getStatus());
 
         // Test insufficient balance for withdrawal
-        assertThrows(IllegalArgumentException.class, () -> {
+        IllegalArgumentException insufficient = assertThrows(IllegalArgumentException.class, () -> {
             transactionService.createWithdrawTransaction(
                     savedWallet.getId(),
                     BigDecimal.valueOf(300), // More than available balance
@@ -136,6 +172,8 @@ class ServiceTest {
                     "TR111111111"
             );
         });
+        assertInstanceOf(InsufficientBalanceException.class, insufficient);
+        assertEquals(0, insufficient.getStackTrace().length); // Routine rejection, no stack trace captured
     }
 
     @Test
@@ -173,7 +211,7 @@ class ServiceTest {
         // Check wallet balance increased
         Wallet updatedWallet = walletService.getWalletById(savedWallet.getId()).orElse(null);
         assertNotNull(updatedWallet);
-        assertEquals(BigDecimal.valueOf(150), updatedWallet.getBalance());
+        assertEquals(new BigDecimal("150.00"), updatedWallet.getBalance());
 
         // Create withdrawal transaction
         Transaction withdrawTransaction = transactionService.createWithdrawTransaction(
@@ -190,7 +228,7 @@ class ServiceTest {
         // Check wallet balance decreased
         Wallet finalWallet = walletService.getWalletById(savedWallet.getId()).orElse(null);
         assertNotNull(finalWallet);
-        assertEquals(BigDecimal.valueOf(120), finalWallet.getBalance());
+        assertEquals(new BigDecimal("120.00"), finalWallet.getBalance());
     }
 
     @Test
@@ -228,7 +266,7 @@ class ServiceTest {
         // Check wallet balance unchanged
         Wallet updatedWallet = walletService.getWalletById(savedWallet.getId()).orElse(null);
         assertNotNull(updatedWallet);
-        assertEquals(BigDecimal.valueOf(100), updatedWallet.getBalance());
+        assertEquals(new BigDecimal("100.00"), updatedWallet.getBalance());
     }
 
     @Test
@@ -0,0 +1,128 @@
+package com.digitalwallet.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallsShareOneLoad() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Future<String> leader = callers.submit(() -> singleFlight.load("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value";
+        }));
+        awaitLoads(1);
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(callers.submit(() -> singleFlight.load("key", () -> {
+                loads.incrementAndGet();
+                return "own value";
+            })));
+        }
+        awaitCoalesced(5);
+        release.countDown();
+
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("wallet.singleflight.loads").tag("name", "test").counter().count());
+    }
+
+    @Test
+    void testFailureIsSharedAndNextCallLoadsAgain() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = callers.submit(() -> singleFlight.load("key", () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        awaitLoads(1);
+        Future<String> follower = callers.submit(() -> singleFlight.load("key", () -> "own value"));
+        awaitCoalesced(1);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderFailure.getCause());
+        ExecutionException followerFailure = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, followerFailure.getCause());
+
+        // Nothing is kept: the next call runs its own load
+        assertEquals("fresh", singleFlight.load("key", () -> "fresh"));
+    }
+
+    @Test
+    void testLoadStartedBeforeInvalidationIsNotJoined() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stale = callers.submit(() -> singleFlight.load("key", () -> {
+            await(release);
+            return "before change";
+        }));
+        awaitLoads(1);
+
+        singleFlight.invalidateAfterCommit(); // No transaction here, so immediately
+        assertEquals("after change", singleFlight.load("key", () -> "after change"));
+        release.countDown();
+
+        assertEquals("before change", stale.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get("wallet.singleflight.coalesced").tag("name", "test").counter().count());
+    }
+
+    @Test
+    void testDifferentKeysLoadSeparately() {
+        assertEquals("a", singleFlight.load("a", () -> "a"));
+        assertEquals("b", singleFlight.load("b", () -> "b"));
+        assertEquals(2.0, meterRegistry.get("wallet.singleflight.loads").tag("name", "test").counter().count());
+    }
+
+    private void awaitLoads(int count) throws InterruptedException {
+        awaitCount("wallet.singleflight.loads", count);
+    }
+
+    private void awaitCoalesced(int count) throws InterruptedException {
+        awaitCount("wallet.singleflight.coalesced", count);
+    }
+
+    private void awaitCount(String meter, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(meter).tag("name", "test").counter().count() < count) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for " + meter);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.event.TransactionChangedEvent;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.TransactionRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: the flow only moves once a change commits. Everything created here is
+ * deleted afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionFlowTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private TransactionFlow transactionFlow;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Customer customer;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Flow");
+        customer.setSurname("Customer");
+        customer.setTckn("66666666662"); // Unique TCKN to avoid conflicts
+        customer.setPassword("password");
+        customer = customerRepository.save(customer);
+
+        Wallet newWallet = new Wallet();
+        newWallet.setWalletName("EUR Wallet");
+        newWallet.setCurrency(Wallet.Currency.EUR);
+        newWallet.setActiveForShopping(true);
+        newWallet.setActiveForWithdraw(true);
+        wallet = walletService.createWallet(customer.getId(), newWallet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionRepository.findByWalletIdAndStatus(wallet.getId(), Transaction.TransactionStatus.PENDING)
+                .forEach(pending -> transactionService.denyTransaction(pending.getId()));
+        transactionRepository.deleteAll(transactionRepository.findByWalletId(wallet.getId()));
+        walletRepository.deleteById(wallet.getId());
+        customerRepository.deleteById(customer.getId());
+    }
+
+    @Test
+    void testCommittedChangesMoveTheFlow() {
+        long pendingEurDeposits = pendingCount(transactionFlow.snapshot(), "DEPOSIT", "EUR");
+        double created = total(TransactionFlow.CREATED);
+        long approvals = transactionFlow.snapshot().approvalLatency().get("DEPOSIT").count();
+
+        Transaction first = deposit("100.00");
+        Transaction second = deposit("200.00");
+        deposit("300.00");
+        assertEquals(pendingEurDeposits + 3, pendingCount(transactionFlow.snapshot(), "DEPOSIT", "EUR"));
+        assertEquals(created + 3, total(TransactionFlow.CREATED), 0.0);
+
+        transactionService.approveTransaction(first.getId());
+        transactionService.denyTransaction(second.getId());
+        TransactionFlow.FlowSnapshot snapshot = transactionFlow.snapshot();
+        assertEquals(pendingEurDeposits + 1, pendingCount(snapshot, "DEPOSIT", "EUR"));
+        assertEquals(approvals + 1, snapshot.approvalLatency().get("DEPOSIT").count());
+        assertEquals(snapshot.pending(), snapshot.pendingAge().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(pendingCount(snapshot, "DEPOSIT", "EUR"), meterRegistry.get("wallet.transactions.pending")
+                .tag("type", "DEPOSIT").tag("currency", "EUR").gauge().value(), 0.0);
+
+        // A rejected change never commits, so nothing moves
+        assertThrows(TransactionNotPendingException.class, () -> transactionService.approveTransaction(first.getId()));
+        assertEquals(approvals + 1, transactionFlow.snapshot().approvalLatency().get("DEPOSIT").count());
+    }
+
+    @Test
+    void testRatesBacklogAndAges() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-03-01T09:00:00.500Z"));
+        TransactionFlow flow = new TransactionFlow(null, new SimpleMeterRegistry(), clock);
+        Wallet tryWallet = new Wallet();
+        tryWallet.setCurrency(Wallet.Currency.TRY);
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        // Created 360, 250, 160, 90, 40 and 10 minutes ago
+        for (long id = 1; id <= 6; id++) {
+            flow.changed(new TransactionChangedEvent(
+                    transaction(id, tryWallet, Transaction.TransactionType.WITHDRAW, now.minusMinutes((7 - id) * (7 - id) * 10)),
+                    TransactionChangedEvent.Change.CREATED));
+        }
+        flow.changed(new TransactionChangedEvent(
+                transaction(1L, tryWallet, Transaction.TransactionType.WITHDRAW, now.minusMinutes(360)),
+                TransactionChangedEvent.Change.APPROVED));
+        // The current second only counts once it is over
+        assertEquals(0.0, flow.snapshot().perSecond().get(TransactionFlow.CREATED).last60s());
+
+        clock.advance(Duration.ofSeconds(1));
+        TransactionFlow.FlowSnapshot snapshot = flow.snapshot();
+        assertEquals(0.6, snapshot.perSecond().get(TransactionFlow.CREATED).last10s(), 0.001);
+        assertEquals(0.1, snapshot.perSecond().get(TransactionFlow.CREATED).last60s(), 0.001);
+        assertEquals((6 - 1) / 60.0, snapshot.backlogGrowthPerSecond(), 0.001);
+        assertEquals(5, snapshot.pending());
+        assertEquals(5, snapshot.pendingByTypeAndCurrency().get("WITHDRAW").get("TRY"));
+        assertEquals(0, snapshot.pendingByTypeAndCurrency().get("DEPOSIT").get("TRY"));
+        assertEquals(Map.of("<1m", 0L, "1m-5m", 0L, "5m-15m", 1L, "15m-1h", 1L, "1h-1d", 3L, ">=1d", 0L), snapshot.pendingAge());
+        assertEquals(Duration.ofMinutes(250).plusSeconds(1).toSeconds(), snapshot.oldestPendingSeconds(), 0.001);
+        assertEquals(Duration.ofMinutes(360).toSeconds(), snapshot.approvalLatency().get("WITHDRAW").maxSeconds(), 0.001);
+
+        // A minute later the window has moved past them
+        clock.advance(Duration.ofSeconds(60));
+        assertEquals(0.0, flow.snapshot().perSecond().get(TransactionFlow.CREATED).last60s());
+        assertEquals(5, flow.snapshot().pending());
+    }
+
+    private Transaction deposit(String amount) {
+        return transactionService.createDepositTransaction(wallet.getId(), new BigDecimal(amount),
+                Transaction.OppositePartyType.IBAN, "TR330006100519786457841326");
+    }
+
+    private long pendingCount(TransactionFlow.FlowSnapshot snapshot, String type, String currency) {
+        return snapshot.pendingByTypeAndCurrency().get(type).get(currency);
+    }
+
+    private double total(String event) {
+        return meterRegistry.get("wallet.transactions").tag("event", event).functionCounter().count();
+    }
+
+    private static Transaction transaction(Long id, Wallet wallet, Transaction.TransactionType type, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setWallet(wallet);
+        transaction.setType(type);
+        transaction.setAmount(BigDecimal.TEN);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.digitalwallet.api.service;
+
+import com.digitalwallet.api.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletOwnershipIndexTest {
+
+    // Repository is only needed for the startup load and the miss fallback
+    private final WalletOwnershipIndex index = new WalletOwnershipIndex(null);
+
+    @Test
+    void testPutOverwriteAndRemove() {
+        index.put(1L, 10L);
+        index.put(2L, 20L);
+        index.put(1L, 11L);
+
+        assertEquals(11L, index.ownerOf(1L));
+        assertEquals(20L, index.ownerOf(2L));
+        assertEquals(2, index.size());
+
+        index.remove(1L);
+        index.remove(42L);
+
+        assertEquals(WalletOwnershipIndex.NO_OWNER, index.ownerOf(1L));
+        assertEquals(20L, index.ownerOf(2L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void testInvalidIdsAreIgnored() {
+        index.put(0L, 10L);
+        index.put(-5L, 10L);
+
+        assertEquals(0, index.size());
+        assertEquals(WalletOwnershipIndex.NO_OWNER, index.ownerOf(0L));
+    }
+
+    @Test
+    void testMatchesHashMapAcrossResizesAndRemovals() {
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long walletId = 1 + random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(walletId);
+                expected.remove(walletId);
+            } else {
+                long customerId = 1 + random.nextInt(500);
+                index.put(walletId, customerId);
+                expected.put(walletId, customerId);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (long walletId = 1; walletId <= 5_000; walletId++) {
+            assertEquals(expected.getOrDefault(walletId, WalletOwnershipIndex.NO_OWNER), index.ownerOf(walletId));
+        }
+    }
+
+    @Test
+    void testLookupBeforeTheDeleteCommitsDoesNotKeepTheWallet() {
+        WalletOwnershipIndex index = new WalletOwnershipIndex(repository(walletId -> Optional.of(10L)));
+        index.put(1L, 10L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.walletDeleted(1L);
+            // Another transaction still sees the row and indexes it again
+            assertTrue(index.isOwnedBy(1L, 10L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(WalletOwnershipIndex.NO_OWNER, index.ownerOf(1L));
+    }
+
+    @Test
+    void testLookupQueryingWhileTheDeleteCommitsDoesNotIndexTheWallet() {
+        WalletOwnershipIndex[] holder = new WalletOwnershipIndex[1];
+        WalletOwnershipIndex index = new WalletOwnershipIndex(repository(walletId -> {
+            // The row was read, then the delete commits before the lookup indexes it
+            holder[0].walletDeleted(walletId);
+            return Optional.of(10L);
+        }));
+        holder[0] = index;
+
+        assertTrue(index.exists(1L));
+
+        assertEquals(WalletOwnershipIndex.NO_OWNER, index.ownerOf(1L));
+        assertEquals(0, index.size());
+    }
+
+    private static WalletRepository repository(LongFunction<Optional<Long>> findCustomerIdById) {
+        return (WalletRepository) Proxy.newProxyInstance(WalletRepository.class.getClassLoader(),
+                new Class<?>[]{WalletRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findCustomerIdById")) {
+                        return findCustomerIdById.apply((Long) args[0]);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
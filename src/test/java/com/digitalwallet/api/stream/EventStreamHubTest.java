@@ -0,0 +1,118 @@
+package com.digitalwallet.api.stream;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventStreamHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventStreamHub eventStreamHub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Room for 2 buffered frames per subscriber
+        eventStreamHub = new EventStreamHub(new ObjectMapper(), meterRegistry, new WorkerThreads(new MockEnvironment()), 2,
+                Duration.ofMinutes(1), Duration.ofHours(1), 1, Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventStreamHub.shutdown();
+    }
+
+    @Test
+    void testSubscribersAreGroupedByTopic() {
+        eventStreamHub.subscribe("a");
+        eventStreamHub.subscribe("a");
+        eventStreamHub.subscribe("b");
+
+        assertTrue(eventStreamHub.hasSubscribers("a"));
+        assertFalse(eventStreamHub.hasSubscribers("c"));
+        assertEquals(3, eventStreamHub.subscriberCount());
+        assertEquals(3.0, meterRegistry.get("wallet.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void testSlowSubscriberIsEvictedWithoutAffectingOthers() {
+        // Not started yet, so nothing drains its buffer
+        eventStreamHub.subscribe("pending");
+        eventStreamHub.subscribe("other");
+
+        for (int i = 0; i < 3; i++) {
+            eventStreamHub.publish("pending", eventStreamHub.frame("created", Map.of("id", i)));
+        }
+
+        assertFalse(eventStreamHub.hasSubscribers("pending"));
+        assertTrue(eventStreamHub.hasSubscribers("other"));
+        assertEquals(1, eventStreamHub.subscriberCount());
+        assertEquals(1.0, meterRegistry.get("wallet.stream.evicted").counter().count());
+    }
+
+    @Test
+    void testStalledSubscriberIsEvictedWithoutDelayingOthers() throws Exception {
+        CountDownLatch stalledSendStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EventStreamHub.Subscriber stalled = eventStreamHub.subscribe("stalled", new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> data) {
+                // A client that stopped reading: the write blocks until the socket gives up
+                stalledSendStarted.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        BlockingQueue<Set<DataWithMediaType>> received = new LinkedBlockingQueue<>();
+        EventStreamHub.Subscriber healthy = eventStreamHub.subscribe("healthy", new SseEmitter() {
+            @Override
+            public void send(Set<DataWithMediaType> data) {
+                received.add(data);
+            }
+        });
+        eventStreamHub.start(stalled, List.of());
+        eventStreamHub.start(healthy, List.of());
+
+        // The stalled send holds the only sender thread
+        eventStreamHub.publish("stalled", eventStreamHub.frame("created", Map.of("id", 1)));
+        assertTrue(stalledSendStarted.await(5, TimeUnit.SECONDS));
+        EventStreamHub.Frame frame = eventStreamHub.frame("created", Map.of("id", 2));
+        eventStreamHub.publish("healthy", frame);
+
+        // Sent once the stalled send is past its 100 ms timeout, not when the stalled client gives up
+        assertEquals(frame.getData(), received.poll(5, TimeUnit.SECONDS));
+        assertFalse(eventStreamHub.hasSubscribers("stalled"));
+        assertTrue(eventStreamHub.hasSubscribers("healthy"));
+        assertEquals(1.0, meterRegistry.get("wallet.stream.evicted").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void testFrameIsSerializedAsNamedJsonEvent() {
+        String frame = eventStreamHub.frame("approved", Map.of("id", 7)).getData().stream()
+                .map(part -> part.getData().toString())
+                .reduce("", String::concat);
+
+        assertEquals("event:approved\ndata:{\"id\":7}\n\n", frame);
+    }
+}
@@ -0,0 +1,113 @@
+package com.digitalwallet.api.stream;
+
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.event.WalletChangedEvent;
+import com.digitalwallet.api.security.WalletPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static com.digitalwallet.api.monitoring.TestSecurity.signIn;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Resuming with Last-Event-ID. Not transactional: events are published as they would be after a
+ * commit, so the customer and wallet are never saved.
+ */
+@SpringBootTest
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+class WalletStreamTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private WalletStream walletStream;
+
+    private MockMvc mockMvc;
+
+    private Customer customer;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .build();
+
+        customer = new Customer();
+        customer.setId(990001L);
+        customer.setName("Stream");
+        customer.setSurname("Customer");
+        customer.setTckn("99000100000");
+
+        wallet = new Wallet();
+        wallet.setId(990001L);
+        wallet.setWalletName("Stream Wallet");
+        wallet.setCurrency(Wallet.Currency.TRY);
+        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setUsableBalance(BigDecimal.ZERO);
+        wallet.setCustomer(customer);
+
+        signIn(WalletPrincipal.customer(customer));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReconnectWithLastEventId_ReplaysOnlyMissedEvents() throws Exception {
+        String snapshotId = firstEventId(openStream(null));
+
+        wallet.setBalance(new BigDecimal("10"));
+        walletStream.onWalletChanged(new WalletChangedEvent(wallet));
+        wallet.setBalance(new BigDecimal("25"));
+        walletStream.onWalletChanged(new WalletChangedEvent(wallet));
+
+        String resumed = openStream(snapshotId);
+        assertFalse(resumed.contains("event:snapshot"), resumed);
+        assertTrue(resumed.indexOf("\"balance\":10") < resumed.indexOf("\"balance\":25"), resumed);
+
+        String caughtUp = openStream(firstEventId(resumed.substring(resumed.indexOf("\n\n") + 2)));
+        assertEquals("", caughtUp);
+    }
+
+    @Test
+    void testReconnectWithUnknownEventId_StartsWithSnapshot() throws Exception {
+        String body = openStream("0-1");
+
+        assertTrue(body.contains("event:snapshot\ndata:[]"), body);
+    }
+
+    private String openStream(String lastEventId) throws Exception {
+        var request = get("/api/wallets/me/stream").accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static String firstEventId(String body) {
+        assertTrue(body.startsWith("id:"), body);
+        return body.substring(3, body.indexOf('\n'));
+    }
+}
@@ -0,0 +1,80 @@
+package com.digitalwallet.api.submission;
+
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import com.digitalwallet.api.entity.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubmissionJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayReturnsSubmissionsNotDoneInOrder() throws Exception {
+        Path file = directory.resolve("submissions.journal");
+        try (SubmissionJournal journal = new SubmissionJournal(file, objectMapper, true)) {
+            journal.submitted(submission("a"));
+            journal.submitted(submission("b"));
+            journal.submitted(submission("c"));
+            journal.done(List.of("b"));
+        }
+
+        try (SubmissionJournal journal = new SubmissionJournal(file, objectMapper, true)) {
+            List<TransactionSubmission> replayed = journal.replay();
+            assertEquals(List.of("a", "c"), replayed.stream().map(TransactionSubmission::getId).toList());
+            assertEquals(new BigDecimal("10.50"), replayed.get(0).getRequest().getAmount());
+        }
+    }
+
+    @Test
+    void testReplaySkipsRecordCutShortAndRewriteDropsIt() throws Exception {
+        Path file = directory.resolve("submissions.journal");
+        try (SubmissionJournal journal = new SubmissionJournal(file, objectMapper, false)) {
+            journal.submitted(submission("a"));
+        }
+        Files.writeString(file, "S {\"id\":\"b\",\"custo", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (SubmissionJournal journal = new SubmissionJournal(file, objectMapper, false)) {
+            List<TransactionSubmission> replayed = journal.replay();
+            assertEquals(1, replayed.size());
+
+            journal.rewrite(replayed);
+            journal.submitted(submission("c"));
+            assertEquals(List.of("a", "c"), journal.replay().stream().map(TransactionSubmission::getId).toList());
+        }
+    }
+
+    @Test
+    void testTruncateOnlyWhenLargeAndNothingPending() throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(directory.resolve("submissions.journal"), objectMapper, false)) {
+            journal.submitted(submission("a"));
+            journal.done(List.of("a"));
+
+            assertFalse(journal.truncateIfLargerThan(0L, () -> false));
+            assertFalse(journal.truncateIfLargerThan(1024L * 1024L, () -> true));
+            assertTrue(journal.truncateIfLargerThan(0L, () -> true));
+            assertEquals(0L, journal.size());
+        }
+    }
+
+    private static TransactionSubmission submission(String id) {
+        return new TransactionSubmission(id, 7L, LocalDateTime.of(2026, 10, 1, 12, 0),
+                new CreateTransactionRequest(1L, new BigDecimal("10.50"), Transaction.TransactionType.DEPOSIT,
+                        Transaction.OppositePartyType.IBAN, "TR123456789"));
+    }
+}
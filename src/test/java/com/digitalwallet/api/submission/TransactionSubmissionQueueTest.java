@@ -0,0 +1,189 @@
+package com.digitalwallet.api.submission;
+
+import com.digitalwallet.api.config.WorkerThreads;
+import com.digitalwallet.api.dto.CreateTransactionRequest;
+import com.digitalwallet.api.dto.TransactionSubmissionDto;
+import com.digitalwallet.api.entity.Customer;
+import com.digitalwallet.api.entity.Transaction;
+import com.digitalwallet.api.entity.Wallet;
+import com.digitalwallet.api.repository.CustomerRepository;
+import com.digitalwallet.api.repository.TransactionRepository;
+import com.digitalwallet.api.repository.WalletRepository;
+import com.digitalwallet.api.service.TransactionService;
+import com.digitalwallet.api.service.WalletService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional: the workers create transactions in their own database transactions, so the
+ * wallet they refer to must be committed. Everything created here is deleted afterwards.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionSubmissionQueueTest {
+
+    @Autowired
+    private TransactionSubmissionQueue transactionSubmissionQueue;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WorkerThreads workerThreads;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @TempDir
+    Path directory;
+
+    private Customer customer;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Queue");
+        customer.setSurname("Customer");
+        customer.setTckn("66666666665"); // Unique TCKN to avoid conflicts
+        customer.setPassword("password");
+        customer = customerRepository.save(customer);
+
+        wallet = new Wallet();
+        wallet.setWalletName("Queue Wallet");
+        wallet.setCurrency(Wallet.Currency.TRY);
+        wallet.setActiveForShopping(true);
+        wallet.setActiveForWithdraw(true);
+        wallet.setBalance(BigDecimal.ZERO);
+        wallet.setUsableBalance(BigDecimal.ZERO);
+        wallet.setCustomer(customer);
+        wallet = walletRepository.save(wallet);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // By id: the workers moved the wallet version on
+        transactionRepository.deleteAll(transactionRepository.findByWalletId(wallet.getId()));
+        walletRepository.deleteById(wallet.getId());
+        customerRepository.deleteById(customer.getId());
+    }
+
+    @Test
+    void testSubmittedDepositIsCreatedByWorker() throws Exception {
+        TransactionSubmissionDto submitted = transactionSubmissionQueue.submit(deposit("25"), customer.getId());
+        assertEquals(TransactionSubmissionDto.Status.QUEUED, submitted.getStatus());
+
+        TransactionSubmissionDto status = awaitProcessed(transactionSubmissionQueue, submitted.getId());
+        assertEquals(TransactionSubmissionDto.Status.COMPLETED, status.getStatus());
+        Transaction transaction = transactionRepository.findById(status.getTransactionId()).orElseThrow();
+        assertEquals(submitted.getId(), transaction.getSubmissionId());
+        assertEquals(0, new BigDecimal("25").compareTo(transaction.getAmount()));
+
+        // Only the submitting customer sees it
+        assertTrue(transactionSubmissionQueue.getSubmissionForCustomer(submitted.getId(), customer.getId()).isPresent());
+        assertTrue(transactionSubmissionQueue.getSubmissionForCustomer(submitted.getId(), customer.getId() + 1000).isEmpty());
+    }
+
+    @Test
+    void testSubmissionFailingValidationWhenProcessedIsRejected() throws Exception {
+        CreateTransactionRequest withdrawal = new CreateTransactionRequest(wallet.getId(), new BigDecimal("50"),
+                Transaction.TransactionType.WITHDRAW, Transaction.OppositePartyType.IBAN, "TR123456789");
+        TransactionSubmissionDto submitted = transactionSubmissionQueue.submit(withdrawal, customer.getId());
+
+        TransactionSubmissionDto status = awaitProcessed(transactionSubmissionQueue, submitted.getId());
+        assertEquals(TransactionSubmissionDto.Status.REJECTED, status.getStatus());
+        assertTrue(status.getError().startsWith("Insufficient balance"), status.getError());
+    }
+
+    @Test
+    void testInvalidSubmissionIsRefusedBeforeQueueing() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionSubmissionQueue.submit(deposit("-1"), customer.getId()));
+        assertThrows(IllegalArgumentException.class, () -> transactionSubmissionQueue.submit(
+                new CreateTransactionRequest(Long.MAX_VALUE, BigDecimal.ONE, Transaction.TransactionType.DEPOSIT,
+                        Transaction.OppositePartyType.IBAN, "TR123456789"), customer.getId()));
+    }
+
+    @Test
+    void testFullQueueIsRefused() throws Exception {
+        TransactionSubmissionQueue queue = newQueue(1);
+        try {
+            queue.submit(deposit("1"), customer.getId());
+            assertThrows(SubmissionQueueFullException.class, () -> queue.submit(deposit("2"), customer.getId()));
+            assertEquals(1, queue.depth());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void testReplayedSubmissionIsNotCreatedTwice() throws Exception {
+        // Accepted, then created but stopped before it was marked done
+        TransactionSubmissionQueue stopped = newQueue(10);
+        TransactionSubmissionDto submitted = stopped.submit(deposit("10"), customer.getId());
+        stopped.shutdown();
+        Transaction created = transactionService.createSubmittedTransactions(
+                Map.of(submitted.getId(), deposit("10"))).get(0).getTransaction();
+
+        TransactionSubmissionQueue restarted = newQueue(10);
+        try {
+            assertEquals(1, restarted.depth());
+            restarted.start();
+
+            TransactionSubmissionDto status = awaitProcessed(restarted, submitted.getId());
+            assertEquals(TransactionSubmissionDto.Status.COMPLETED, status.getStatus());
+            assertEquals(created.getId(), status.getTransactionId());
+            assertEquals(1, transactionRepository.findByWalletId(wallet.getId()).size());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private TransactionSubmissionQueue newQueue(int capacity) throws Exception {
+        return new TransactionSubmissionQueue(transactionService, walletService, objectMapper, new SimpleMeterRegistry(),
+                workerThreads, capacity, 1, 10, directory.resolve("submissions.journal"), false, DataSize.ofMegabytes(1),
+                Duration.ofMinutes(1));
+    }
+
+    private CreateTransactionRequest deposit(String amount) {
+        return new CreateTransactionRequest(wallet.getId(), new BigDecimal(amount), Transaction.TransactionType.DEPOSIT,
+                Transaction.OppositePartyType.IBAN, "TR123456789");
+    }
+
+    private static TransactionSubmissionDto awaitProcessed(TransactionSubmissionQueue queue, String id) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        TransactionSubmissionDto status = queue.getSubmission(id).orElseThrow();
+        while (status.getStatus() == TransactionSubmissionDto.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = queue.getSubmission(id).orElseThrow();
+        }
+        return status;
+    }
+}